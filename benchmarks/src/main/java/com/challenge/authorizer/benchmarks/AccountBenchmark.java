@@ -0,0 +1,89 @@
+package com.challenge.authorizer.benchmarks;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Rules evaluation on an account holding a given number of transactions on its rules interval.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccountBenchmark {
+
+    private static final int EVENTS = 4096;
+
+    /* Events are handled in batches on a fresh account, so their times keep moving forward */
+    @State(Scope.Thread)
+    public static class Batch {
+
+        @Param({"4", "64", "1024"})
+        public int historySize;
+
+        private long seed;
+        private Account account;
+        private TransactionAuthorizationEvent[] events;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+
+            EventGenerator generator = new EventGenerator(this.seed++, 1, Account.RULES_INTERVAL_MILLIS / this.historySize);
+            this.account = generator.accountWithHistory(1, this.historySize);
+            this.events = new TransactionAuthorizationEvent[EVENTS];
+            for (int i = 0; i < EVENTS; i++) {
+                this.events[i] = generator.transactionEvent(1);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class History {
+
+        @Param({"4", "64", "1024"})
+        public int historySize;
+
+        private Account account;
+        private Transaction newestTransaction;
+
+        @Setup
+        public void setUp() {
+
+            this.account = new EventGenerator(42, 1, 0).accountWithHistory(1, this.historySize);
+            this.newestTransaction = this.account.getTransactions().last();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void handleTransaction(Batch batch, Blackhole blackhole) {
+
+        for (TransactionAuthorizationEvent event : batch.events) {
+            blackhole.consume(batch.account.handleEvent(event));
+        }
+    }
+
+    @Benchmark
+    public List<Transaction> twoMinuteInterval(History history) {
+        return history.account.get2MinuteInterval(history.newestTransaction);
+    }
+}
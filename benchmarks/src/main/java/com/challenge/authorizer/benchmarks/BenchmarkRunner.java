@@ -0,0 +1,55 @@
+package com.challenge.authorizer.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs the benchmarks with one of the profiling setups below, e.g. "java -jar benchmarks.jar gc Account".
+ *
+ *   time     plain timings (default)
+ *   gc       allocation rate and bytes allocated per operation, plus GC counts and times
+ *   gc-log   GC logging on a small fixed heap, to see pause times and promotion under pressure
+ *   stack    hottest stack frames of the benchmark threads
+ *
+ * Any argument after the setup name is a regular expression selecting the benchmarks to run.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+
+        String setup = args.length > 0 ? args[0] : "time";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .jvmArgsAppend("-Xms1g", "-Xmx1g");
+
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                options.include(args[i]);
+            }
+        }
+        else {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+
+        switch (setup) {
+            case "time":
+                break;
+            case "gc":
+                options.addProfiler(GCProfiler.class);
+                break;
+            case "gc-log":
+                options.jvmArgsAppend("-Xms256m", "-Xmx256m", "-XX:+PrintGCDetails", "-XX:+PrintGCApplicationStoppedTime");
+                break;
+            case "stack":
+                options.addProfiler(StackProfiler.class);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profiling setup " + setup + ", use time, gc, gc-log or stack");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.challenge.authorizer.benchmarks;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+
+import java.time.Instant;
+import java.util.Random;
+
+/*
+ * Seeded generator of input events shaped like the authorizer traffic: a few accounts, a small set of
+ * popular merchants, integer and cents amounts, and times moving forward by a few seconds with
+ * occasional late events.
+ */
+public class EventGenerator {
+
+    private static final String[] MERCHANTS = {"Burger King", "Habbib's", "McDonald's", "Uber", "iFood",
+            "Netflix", "Spotify", "Amazon", "Padaria S\u00e3o Jo\u00e3o", "Posto Shell"};
+    private static final Instant START = Instant.parse("2019-02-13T10:00:00.000Z");
+
+    private final Random random;
+    private final int accounts;
+    private final long meanStepMillis;
+
+    private long timeMillis;
+
+    public EventGenerator(long seed, int accounts, long meanStepMillis) {
+
+        this.random = new Random(seed);
+        this.accounts = accounts;
+        this.meanStepMillis = meanStepMillis;
+        this.timeMillis = START.toEpochMilli();
+    }
+
+    public String accountLine(long accountId, int availableLimit) {
+
+        return "{\"account\": {\"account-id\": " + accountId + ", \"active-card\": true, \"available-limit\": "
+                + availableLimit + "}}";
+    }
+
+    public String transactionLine() {
+
+        return "{\"transaction\": {\"account-id\": " + nextAccountId() + ", \"merchant\": \"" + nextMerchant()
+                + "\", \"amount\": " + nextAmount() + ", \"time\": \"" + nextTime() + "\"}}";
+    }
+
+    public String[] transactionLines(int count) {
+
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = transactionLine();
+        }
+        return lines;
+    }
+
+    public TransactionAuthorizationEvent transactionEvent(long accountId) {
+
+        return new TransactionAuthorizationEvent(accountId, nextMerchant(), nextAmount(), nextTime());
+    }
+
+    /* Account holding the given number of transactions on its last rules interval */
+    public Account accountWithHistory(long accountId, int historySize) {
+
+        Account account = new Account(accountId, true, Money.valueOf(Integer.MAX_VALUE));
+        long step = Math.max(1, Account.RULES_INTERVAL_MILLIS / Math.max(1, historySize));
+        for (int i = 0; i < historySize; i++) {
+
+            this.timeMillis += step;
+            account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent(accountId, nextMerchant(),
+                    nextAmount(), Instant.ofEpochMilli(this.timeMillis)));
+        }
+        return account;
+    }
+
+    public long nextAccountId() {
+        return this.random.nextInt(this.accounts);
+    }
+
+    public String nextMerchant() {
+        return MERCHANTS[this.random.nextInt(MERCHANTS.length)];
+    }
+
+    public Money nextAmount() {
+
+        /* Most amounts are whole, some carry cents */
+        return this.random.nextInt(4) == 0
+                ? Money.valueOf(1 + this.random.nextInt(50000), 2)
+                : Money.valueOf(1 + this.random.nextInt(500));
+    }
+
+    public Instant nextTime() {
+
+        this.timeMillis += (long) (this.random.nextDouble() * 2 * this.meanStepMillis);
+        long lateness = this.random.nextInt(20) == 0 ? this.random.nextInt(30000) : 0;
+        return Instant.ofEpochMilli(this.timeMillis - lateness);
+    }
+}
@@ -0,0 +1,87 @@
+package com.challenge.authorizer.benchmarks;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.enums.ViolationEnum;
+import com.challenge.authorizer.models.InnerAccountModel;
+import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/* Serialization of outputs, through the sink and through Jackson as a baseline */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OutputBenchmark {
+
+    /* Stand-in for stdout, so the benchmark measures encoding and not the terminal */
+    private static final OutputStream NULL_STREAM = new OutputStream() {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"authorized", "violations", "uninitialized"})
+    public String output;
+
+    private OutputModel model;
+    private BufferedOutputSink sink;
+    private ObjectMapper mapper;
+
+    @Setup
+    public void setUp() {
+
+        InnerAccountModel account = new InnerAccountModel(true, Money.parse("1234.56"));
+        switch (this.output) {
+            case "violations":
+                this.model = new OutputModel(account, Arrays.asList(ViolationEnum.INSUFFICIENT_LIMIT.getDescription(),
+                        ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL.getDescription()));
+                break;
+            case "uninitialized":
+                this.model = new OutputModel(null, Collections.singletonList(
+                        ViolationEnum.ACCOUNT_NOT_INITIALIZED.getDescription()));
+                break;
+            default:
+                this.model = new OutputModel(account, Collections.emptyList());
+        }
+
+        this.sink = new BufferedOutputSink(NULL_STREAM, FlushPolicy.bySize(BufferedOutputSink.DEFAULT_CAPACITY / 2));
+        this.mapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public void bufferedSink() throws IOException {
+        this.sink.write(this.model);
+    }
+
+    @Benchmark
+    public void jacksonBaseline() throws IOException {
+
+        this.mapper.writeValue(NULL_STREAM, this.model);
+    }
+}
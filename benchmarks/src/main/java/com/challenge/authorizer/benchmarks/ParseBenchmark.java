@@ -0,0 +1,55 @@
+package com.challenge.authorizer.benchmarks;
+
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.output.DiscardingOutputSink;
+import com.challenge.authorizer.processor.EventProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* Decoding of input lines into events */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    private static final int LINES = 1024;
+
+    private EventProcessor processor;
+    private String accountLine;
+    private String[] transactionLines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+
+        EventGenerator generator = new EventGenerator(42, 16, 1000);
+        this.processor = new EventProcessor(new DiscardingOutputSink());
+        this.accountLine = generator.accountLine(1, 100);
+        this.transactionLines = generator.transactionLines(LINES);
+    }
+
+    @Benchmark
+    public Event parseAccount() {
+        return this.processor.parseEventString(this.accountLine);
+    }
+
+    @Benchmark
+    public Event parseTransaction() {
+
+        this.next = (this.next + 1) & (LINES - 1);
+        return this.processor.parseEventString(this.transactionLines[this.next]);
+    }
+}
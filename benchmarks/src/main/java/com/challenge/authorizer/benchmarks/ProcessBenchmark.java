@@ -0,0 +1,98 @@
+package com.challenge.authorizer.benchmarks;
+
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.processor.EventProcessor;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * End to end processing of input lines: persisting, decoding, authorizing and writing the output. Lines
+ * are processed in batches, each one on empty stores, so their times keep moving forward. The EventStore
+ * lives on a temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProcessBenchmark {
+
+    private static final int LINES = 8192;
+
+    private static final OutputStream NULL_STREAM = new OutputStream() {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"16", "10000"})
+    public int accounts;
+
+    @Param({"true", "false"})
+    public boolean persist;
+
+    private EventProcessor processor;
+    private String[] lines;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        System.setProperty("authorizer.eventstore.dir", Files.createTempDirectory("authorizer-benchmark").toString());
+        System.setProperty("authorizer.eventstore.segment-size", String.valueOf(8 * 1024 * 1024));
+        this.processor = new EventProcessor(new BufferedOutputSink(NULL_STREAM, FlushPolicy.atEndOfStream()));
+        this.lines = new EventGenerator(42, this.accounts, 1000).transactionLines(LINES);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpBatch() {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+
+        EventGenerator generator = new EventGenerator(7, this.accounts, 1000);
+        for (int account = 0; account < this.accounts; account++) {
+            this.processor.process(generator.accountLine(account, Integer.MAX_VALUE), true);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownBatch() {
+
+        this.processor.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void process() {
+
+        for (String line : this.lines) {
+            this.processor.process(line, !this.persist);
+        }
+    }
+}
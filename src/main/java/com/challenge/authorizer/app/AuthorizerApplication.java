@@ -1,26 +1,138 @@
 package com.challenge.authorizer.app;
 
+import com.challenge.authorizer.input.InputFormat;
+import com.challenge.authorizer.input.LineReader;
+import com.challenge.authorizer.metrics.AuthorizerMetrics;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.output.OutputSink;
+import com.challenge.authorizer.pipeline.WaitStrategy;
 import com.challenge.authorizer.processor.EventProcessor;
+import com.challenge.authorizer.processor.PipelinedProcessor;
+import com.challenge.authorizer.processor.StateRecovery;
+import com.challenge.authorizer.server.AuthorizerServer;
+import com.challenge.authorizer.server.HttpBatchServer;
 import com.challenge.authorizer.state.AccountDataStore;
 import com.challenge.authorizer.state.EventStore;
+import com.challenge.authorizer.state.SnapshotStore;
+import com.challenge.authorizer.state.Snapshotter;
 
-import java.io.InputStream;
-import java.util.Scanner;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.file.Paths;
+import java.time.Instant;
 
 public class AuthorizerApplication {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 
-		EventProcessor processor = new EventProcessor();
-		AccountDataStore.getInstance().resetState();
-		EventStore.getInstance().emptyEventStore();
+		AuthorizerMetrics.getInstance().register();
 
-		InputStream source = System.in;
-		Scanner in = new Scanner(source);
-		while(in.hasNext()) {
+		// Incident replays write the outputs of the persisted events from the given sequence or time, then stop
+		String replayFrom = System.getProperty("authorizer.replay.from");
 
-			String input = in.nextLine();
-			processor.process(input, false);
+		// Answers on stdin are written as each line is read, files and replays are batches written at the end
+		boolean batch = replayFrom != null || (args != null && args.length > 0);
+		FlushPolicy flushPolicy = FlushPolicy.parse(System.getProperty("authorizer.output.flush", batch ? "end" : "event"));
+		OutputSink sink = new BufferedOutputSink(System.out, flushPolicy);
+
+		if(replayFrom != null) {
+
+			replay(replayFrom, sink);
+			return;
+		}
+
+		// State from a previous run is only kept when asked to recover it
+		if(Boolean.getBoolean("authorizer.recover")) {
+
+			// Accounts kept on disk would skip the events of a new log, numbered from 0 again
+			if(!EventStore.isDurable()) {
+				throw new IllegalStateException("No authorizer.eventstore.dir configured, there are no events to recover");
+			}
+			int parallelism = Integer.getInteger("authorizer.recover.parallelism", 1);
+			new StateRecovery(SnapshotStore.getInstance(), parallelism).recover();
+		}
+		else {
+
+			// Only configured directories hold files of previous runs, the others belong to this process
+			AccountDataStore.getInstance().resetState();
+			EventStore.getInstance().emptyEventStore();
+			SnapshotStore.getInstance().clear();
+		}
+
+		Snapshotter snapshotter = new Snapshotter(SnapshotStore.getInstance());
+		long snapshotInterval = Long.getLong("authorizer.snapshot.interval-seconds", 0L);
+		if(snapshotInterval > 0) {
+			snapshotter.start(snapshotInterval);
+		}
+
+		Integer serverPort = Integer.getInteger("authorizer.server.port");
+		Integer httpPort = Integer.getInteger("authorizer.http.port");
+		if(serverPort != null) {
+			serve(serverPort);
+		}
+		else if(httpPort != null) {
+			serveHttp(httpPort);
+		}
+		else {
+			readInput(args, sink);
+		}
+		snapshotter.stop();
+	}
+
+	// Events come from the file given as argument, or from stdin
+	private static void readInput(String[] args, OutputSink sink) throws IOException {
+
+		InputFormat format = InputFormat.parse(System.getProperty("authorizer.input.format", "json"));
+		try(LineReader in = args != null && args.length > 0
+				? LineReader.open(Paths.get(args[0]), format)
+				: LineReader.forChannel(Channels.newChannel(System.in), format)) {
+
+			if(Boolean.getBoolean("authorizer.pipeline")) {
+
+				int ringSize = Integer.getInteger("authorizer.pipeline.ring-size", 1024);
+				WaitStrategy waitStrategy = WaitStrategy.parse(System.getProperty("authorizer.pipeline.wait", "park"));
+				new PipelinedProcessor(sink, ringSize, waitStrategy).process(in);
+			}
+			else {
+
+				EventProcessor processor = new EventProcessor(sink);
+				while(in.readLine()) {
+					processor.process(in.getLine(), 0, in.getLength(), false);
+				}
+				processor.flush();
+			}
 		}
 	}
+
+	private static void replay(String from, OutputSink sink) throws IOException {
+
+		StateRecovery recovery = new StateRecovery(SnapshotStore.getInstance());
+		long sequence = !from.isEmpty() && from.chars().allMatch(Character::isDigit)
+				? recovery.replayFrom(Long.parseLong(from), sink)
+				: recovery.replayFrom(Instant.parse(from), sink);
+		System.err.println("Replayed events from sequence " + sequence);
+	}
+
+	// Runs until the JVM is stopped
+	private static void serve(int port) throws IOException {
+
+		AuthorizerServer server = new AuthorizerServer(serverAddress(port));
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		server.serve();
+	}
+
+	// Runs until the JVM is stopped
+	private static void serveHttp(int port) throws IOException {
+
+		HttpBatchServer server = new HttpBatchServer(serverAddress(port));
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		server.serve();
+	}
+
+	private static InetSocketAddress serverAddress(int port) {
+
+		return new InetSocketAddress(System.getProperty("authorizer.server.host", "127.0.0.1"), port);
+	}
 }
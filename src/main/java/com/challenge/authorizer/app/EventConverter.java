@@ -0,0 +1,131 @@
+package com.challenge.authorizer.app;
+
+import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.input.InputFormat;
+import com.challenge.authorizer.input.LineReader;
+import com.challenge.authorizer.processor.EventDecoder;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Converts event files between JSON lines and the binary records of the BinaryEventCodec, both ways:
+ *
+ *   EventConverter to-binary <json input> <binary output>
+ *   EventConverter to-json <binary input> <json output>
+ *
+ * Converted events decode to the same values they had, so the outputs of processing either file are the
+ * same. Lines that aren't events have no binary record and are left out, with a message on stderr.
+ */
+public class EventConverter {
+
+    private final EventDecoder decoder;
+    private final BinaryEventCodec codec;
+    private final ObjectMapper mapper;
+
+    public EventConverter() {
+
+        this.decoder = new EventDecoder(true);
+        this.codec = new BinaryEventCodec();
+        this.mapper = new ObjectMapper();
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 3 || !("to-binary".equals(args[0]) || "to-json".equals(args[0]))) {
+
+            System.err.println("Usage: EventConverter to-binary|to-json <input> <output>");
+            return;
+        }
+
+        InputFormat target = "to-binary".equals(args[0]) ? InputFormat.BINARY : InputFormat.JSON;
+        InputFormat source = target == InputFormat.BINARY ? InputFormat.JSON : InputFormat.BINARY;
+        try (LineReader in = LineReader.open(Paths.get(args[1]), source);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(args[2])), 64 * 1024)) {
+
+            long converted = new EventConverter().convert(in, target, out);
+            System.err.println("Converted " + converted + " events to " + target.name().toLowerCase());
+        }
+    }
+
+    /* Writes every event read to the target format, returning how many were written */
+    public long convert(LineReader in, InputFormat target, OutputStream out) throws IOException {
+
+        long converted = 0;
+        while (in.readLine()) {
+
+            Event event;
+            try {
+
+                event = this.decoder.decode(in.getLine(), 0, in.getLength());
+            } catch (IOException e) {
+
+                System.err.println("Skipping line that isn't an event. Error: " + e);
+                continue;
+            }
+            if (event == null) {
+                continue;
+            }
+
+            if (target == InputFormat.BINARY) {
+
+                int length = this.codec.encode(event);
+                out.write(this.codec.getBuffer(), 0, length);
+            }
+            else {
+
+                out.write(this.mapper.writeValueAsBytes(toJson(event)));
+                out.write('\n');
+            }
+            converted++;
+        }
+        out.flush();
+        return converted;
+    }
+
+    /* Fields of the input line the event decodes from, leaving out the ones that default when missing */
+    private static Map<String, Object> toJson(Event event) {
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (event.getAccountId() != AccountDataStore.DEFAULT_ACCOUNT_ID) {
+            fields.put("account-id", event.getAccountId());
+        }
+
+        Map<String, Object> line = new LinkedHashMap<>();
+        if (event instanceof AccountCreationEvent) {
+
+            AccountCreationEvent account = (AccountCreationEvent) event;
+            putIfPresent(fields, "active-card", account.getActiveCard());
+            putIfPresent(fields, "available-limit", account.getAvailableLimit() == null ? null
+                    : account.getAvailableLimit().toBigDecimal());
+            line.put("account", fields);
+        }
+        else {
+
+            TransactionAuthorizationEvent transaction = (TransactionAuthorizationEvent) event;
+            putIfPresent(fields, "merchant", transaction.getMerchant());
+            putIfPresent(fields, "amount", transaction.getAmount() == null ? null
+                    : transaction.getAmount().toBigDecimal());
+            putIfPresent(fields, "time", transaction.getTime() == null ? null : transaction.getTime().toString());
+            line.put("transaction", fields);
+        }
+        return line;
+    }
+
+    private static void putIfPresent(Map<String, Object> fields, String name, Object value) {
+
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
@@ -1,55 +1,115 @@
 package com.challenge.authorizer.domain;
 
-import com.challenge.authorizer.enums.ViolationEnum;
 import com.challenge.authorizer.events.AccountCreationEvent;
 import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.rules.RulePlan;
 import com.challenge.authorizer.state.AccountDataStore;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Account {
 
+    /* Interval watched by the high frequency and doubled transaction rules */
+    public static final long RULES_INTERVAL_MILLIS = 2 * 60 * 1000L;
+
+    /* How late a transaction may arrive and still see its full interval, the watermark of the TransactionWindow */
+    public static final long ALLOWED_LATENESS_MILLIS = Long.getLong("authorizer.window.allowed-lateness-millis",
+            RULES_INTERVAL_MILLIS);
+
+    private final long accountId;
     private final Boolean activeCard;
-    private BigDecimal availableLimit;
+    private Money availableLimit;
+
+    /* Keep Transactions ordered by time, bounded to the rules interval */
+    private TransactionWindow transactions;
 
-    /* Keep Transactions ordered by time */
-    private TreeSet<Transaction> transactions;
+    /* Sequence of the last persisted event applied to this account */
+    private long lastSequence = -1;
 
-    public Account(Boolean activeCard, BigDecimal availableLimit) {
+    /* Last published state, read without the account lock */
+    private final AtomicReference<AccountSnapshot> snapshot = new AtomicReference<>();
+
+    public Account(Boolean activeCard, Money availableLimit) {
+
+        this(AccountDataStore.DEFAULT_ACCOUNT_ID, activeCard, availableLimit);
+    }
 
+    public Account(long accountId, Boolean activeCard, Money availableLimit) {
+
+        this.accountId = accountId;
         this.activeCard = activeCard;
         this.availableLimit = availableLimit;
-        this.transactions = new TreeSet<>();
+        this.transactions = new TransactionWindow(RULES_INTERVAL_MILLIS, ALLOWED_LATENESS_MILLIS);
+        publish();
+    }
+
+    public long getAccountId() {
+        return accountId;
     }
 
     public Boolean getActiveCard() {
         return activeCard;
     }
 
-    public BigDecimal getAvailableLimit() {
+    public Money getAvailableLimit() {
         return availableLimit;
     }
 
-    public TreeSet<Transaction> getTransactions() {
+    public TransactionWindow getTransactions() {
         return transactions;
     }
 
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+
+        this.lastSequence = lastSequence;
+        publish();
+    }
+
+    public AccountSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /* Writers hold the account lock, so an ordered store is enough to hand the new state to readers */
+    private void publish() {
+
+        this.snapshot.lazySet(new AccountSnapshot(this.accountId, this.activeCard, this.availableLimit, this.lastSequence));
+    }
+
+    /* Whether the persisted event at the given sequence is already reflected on this account */
+    public boolean hasApplied(long sequence) {
+        return sequence >= 0 && sequence <= this.lastSequence;
+    }
+
     @Override
     public boolean equals(Object o) {
 
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Account account = (Account) o;
-        return activeCard.equals(account.activeCard) &&
+        return accountId == account.accountId &&
+                activeCard.equals(account.activeCard) &&
                 availableLimit.equals(account.availableLimit);
     }
 
     /* Ensures Immutability of Account objects */
     public Account copyAccount() {
 
-        Account copy = new Account(this.activeCard, this.availableLimit);
+        Account copy = new Account(this.accountId, this.activeCard, this.availableLimit);
         copy.transactions = this.transactions;
+        copy.setLastSequence(this.lastSequence);
+        return copy;
+    }
+
+    /* Copy that doesn't share the transactions, safe to read after the account lock is released */
+    public Account deepCopyAccount() {
+
+        Account copy = copyAccount();
+        copy.transactions = this.transactions.copyWindow();
         return copy;
     }
 
@@ -57,35 +117,26 @@ public class Account {
 
     public void handleEvent(AccountCreationEvent accountCreationEvent) {
 
-        AccountDataStore.getInstance().setAccount(this);
+        this.lastSequence = accountCreationEvent.getSequence();
+        publish();
+        AccountDataStore.getInstance().setAccount(this.accountId, this);
     }
 
-    public List<String> handleEvent(TransactionAuthorizationEvent transactionAuthorizationEvent){
+    /* Returns the violations as a bitmask of ViolationEnum masks */
+    public int handleEvent(TransactionAuthorizationEvent transactionAuthorizationEvent){
 
+        /* Every transaction goes on the window, later ones count it whatever its violations */
         Transaction insertedTransaction = this.insertTransactionEventOrderedByTime(transactionAuthorizationEvent);
 
-        List<Transaction> twoMinuteWindow = this.get2MinuteInterval(insertedTransaction);
-
-        List<String> violations = new ArrayList<>();
+        int violations = RulePlan.getDefault().evaluate(this, transactionAuthorizationEvent, insertedTransaction);
 
-        boolean cardNotActive = checkCardNotActiveViolation();
-        if(cardNotActive) violations.add(ViolationEnum.CARD_NOT_ACTIVE.getDescription());
-
-        boolean checkInsufficientLimit = checkInsufficientLimitViolation(transactionAuthorizationEvent);
-        if(checkInsufficientLimit) violations.add(ViolationEnum.INSUFFICIENT_LIMIT.getDescription());
-
-        boolean checkHighFrequencySmallInterval = checkHighFrequencySmallIntervalViolation(twoMinuteWindow);
-        if(checkHighFrequencySmallInterval) violations.add(ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL.getDescription());
-
-        boolean checkDoubledTransaction = checkDoubledTransaction(twoMinuteWindow, insertedTransaction);
-        if(checkDoubledTransaction) violations.add(ViolationEnum.DOUBLED_TRANSACTION.getDescription());
-
-        /* Only persist data if no violation occurs */
-        if(violations.isEmpty()){
+        /* Only change the limit if no violation occurs, the transaction is on the window either way */
+        if(violations == 0){
 
             reduceAvailableLimit(transactionAuthorizationEvent.getAmount());
-            AccountDataStore.getInstance().setAccount(this);
         }
+        this.lastSequence = Math.max(this.lastSequence, transactionAuthorizationEvent.getSequence());
+        publish();
 
         return violations;
     }
@@ -100,9 +151,8 @@ public class Account {
 
         if(event != null && event.getAmount() != null) {
 
-            BigDecimal amount = event.getAmount();
-            if (amount.compareTo(BigDecimal.ZERO) > 0
-                    || amount.compareTo(BigDecimal.ZERO) == 0) {
+            Money amount = event.getAmount();
+            if (amount.signum() >= 0) {
 
                 return this.availableLimit.compareTo(event.getAmount()) < 0;
             }
@@ -110,38 +160,28 @@ public class Account {
         return false;
     }
 
-    public boolean checkHighFrequencySmallIntervalViolation(List<Transaction> twoMinuteWindow){
+    public boolean checkHighFrequencySmallIntervalViolation(int transactionsOnInterval){
 
         /* There shouldn't be no more than 3 transactions on a 2 minute interval */
-        if(twoMinuteWindow != null) {
-
-            return twoMinuteWindow.size() > 3;
-        }
-        return false;
+        return transactionsOnInterval > 3;
     }
 
-    public boolean checkDoubledTransaction(List<Transaction> twoMinuteWindow, Transaction inserted){
-
+    public boolean checkDoubledTransaction(int similarTransactionsOnInterval){
 
-        if(twoMinuteWindow != null && inserted != null) {
-
-            /* Remove the inserted Transaction before comparision */
-            twoMinuteWindow.remove(inserted);
-            return twoMinuteWindow.contains(inserted);
-        }
-        return false;
+        /* The inserted Transaction itself is part of the interval */
+        return similarTransactionsOnInterval > 1;
     }
 
     /**** INTERNAL STRUCTURES HANDLING ****/
 
     public Transaction insertTransactionEventOrderedByTime(TransactionAuthorizationEvent event){
 
-        Transaction transaction = new Transaction(event.getMerchant(), event.getAmount(), event.getTime());
+        Transaction transaction = new Transaction(event.getMerchantId(), event.getAmount(), event.getTime());
         this.transactions.add(transaction);
         return transaction;
     }
 
-    public void reduceAvailableLimit(BigDecimal money) {
+    public void reduceAvailableLimit(Money money) {
 
         if (this.availableLimit != null && money != null) {
 
@@ -151,37 +191,11 @@ public class Account {
 
     public List<Transaction> get2MinuteInterval(Transaction lastInsertedTransaction){
 
-        List<Transaction> twoMinuteWindow = new ArrayList<>();
-
         if(lastInsertedTransaction != null) {
 
-            /* Get all the transactions that happened before the one just inserted */
-            TreeSet<Transaction> transactionsBeforeLastInserted = (TreeSet<Transaction>)
-                    this.transactions.headSet(lastInsertedTransaction, true);
-
-            /* Iterates on the transactions in descending order (from the most recent) */
-            Iterator iterator = transactionsBeforeLastInserted.descendingIterator();
-
-            /* Get the transactions that happened 2 minutes before the one just inserted */
-            double minutesCounter = 0;
-            Transaction currentTransaction = (Transaction) iterator.next();
-            twoMinuteWindow.add(currentTransaction);
-            while (iterator.hasNext()) {
-
-                Transaction pastTransaction = (Transaction) iterator.next();
-                minutesCounter += currentTransaction.minutesBetweenTransactions(pastTransaction);
-                if (minutesCounter > 2) {
-                    return twoMinuteWindow;
-                }
-                twoMinuteWindow.add(pastTransaction);
-                currentTransaction = pastTransaction;
-            }
-
-            /* Return empty window if after iterating throw all the past transactions, still don't have 2 minutes interval */
-            if (minutesCounter < 2) {
-                twoMinuteWindow = new ArrayList<>();
-            }
+            /* Transactions that happened up to 2 minutes before the one just inserted, from the most recent */
+            return this.transactions.interval(lastInsertedTransaction);
         }
-        return twoMinuteWindow;
+        return new ArrayList<>();
     }
 }
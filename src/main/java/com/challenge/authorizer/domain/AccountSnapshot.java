@@ -0,0 +1,59 @@
+package com.challenge.authorizer.domain;
+
+import java.util.Objects;
+
+/*
+ * Immutable state of an Account as of the last event applied to it.
+ *
+ * Accounts publish a new one at the end of every event, so readers such as balance queries or monitoring
+ * see a consistent state without taking the account lock or copying the account.
+ */
+public final class AccountSnapshot {
+
+    private final long accountId;
+    private final Boolean activeCard;
+    private final Money availableLimit;
+    private final long lastSequence;
+
+    public AccountSnapshot(long accountId, Boolean activeCard, Money availableLimit, long lastSequence) {
+
+        this.accountId = accountId;
+        this.activeCard = activeCard;
+        this.availableLimit = availableLimit;
+        this.lastSequence = lastSequence;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public Boolean getActiveCard() {
+        return activeCard;
+    }
+
+    public Money getAvailableLimit() {
+        return availableLimit;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AccountSnapshot that = (AccountSnapshot) o;
+        return accountId == that.accountId &&
+                lastSequence == that.lastSequence &&
+                Objects.equals(activeCard, that.activeCard) &&
+                Objects.equals(availableLimit, that.availableLimit);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Objects.hash(accountId, activeCard, availableLimit, lastSequence);
+    }
+}
@@ -0,0 +1,180 @@
+package com.challenge.authorizer.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Symbol table giving every merchant name a dense int id, so transactions hold and compare ids instead of
+ * strings. Ids are handed out in first seen order and never change or get reused for the life of the
+ * process, which is fine as merchants are few compared to transactions.
+ *
+ * Lookups of known names only read the concurrent map. New names are added under the dictionary lock,
+ * the name being stored before its id is published, so any thread holding an id can read its name.
+ *
+ * Decoders look names up by their UTF-8 bytes on a second, open addressing table, so known merchants are
+ * resolved without building a String. Its entries are immutable and only added under the lock, so readers
+ * probe it without locking and a miss is checked again under the lock.
+ */
+public final class MerchantDictionary {
+
+    public static final int NO_MERCHANT = -1;
+
+    private static final MerchantDictionary INSTANCE = new MerchantDictionary();
+
+    private final ConcurrentHashMap<String, Integer> ids;
+
+    /* Names by id, replaced by a larger copy when full */
+    private volatile String[] names;
+    private int size;
+
+    /* UTF-8 names seen by decoders, replaced by a larger copy when half full */
+    private volatile Utf8Name[] utf8Names;
+    private int utf8Size;
+
+    private MerchantDictionary() {
+
+        this.ids = new ConcurrentHashMap<>();
+        this.names = new String[64];
+        this.utf8Names = new Utf8Name[128];
+    }
+
+    public static MerchantDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /* Id of the merchant, added when first seen, NO_MERCHANT for null */
+    public int idOf(String name) {
+
+        if (name == null) {
+            return NO_MERCHANT;
+        }
+        Integer id = this.ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    /* Id of the merchant whose name is encoded in UTF-8 on the given bytes, added when first seen */
+    public int idOf(byte[] buffer, int offset, int length) {
+
+        int hash = hash(buffer, offset, length);
+        Utf8Name[] table = this.utf8Names;
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != null; slot = (slot + 1) & mask) {
+
+            if (table[slot].matches(hash, buffer, offset, length)) {
+                return table[slot].id;
+            }
+        }
+        return addUtf8(hash, buffer, offset, length);
+    }
+
+    /* Name of the merchant with the given id, null for NO_MERCHANT */
+    public String nameOf(int id) {
+        return id == NO_MERCHANT ? null : names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String name) {
+
+        Integer id = this.ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        String[] current = this.names;
+        if (this.size == current.length) {
+            current = Arrays.copyOf(current, this.size * 2);
+        }
+        current[this.size] = name;
+        this.names = current;
+        this.ids.put(name, this.size);
+        return this.size++;
+    }
+
+    private synchronized int addUtf8(int hash, byte[] buffer, int offset, int length) {
+
+        Utf8Name[] table = this.utf8Names;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (; table[slot] != null; slot = (slot + 1) & mask) {
+
+            if (table[slot].matches(hash, buffer, offset, length)) {
+                return table[slot].id;
+            }
+        }
+
+        int id = idOf(new String(buffer, offset, length, StandardCharsets.UTF_8));
+        Utf8Name name = new Utf8Name(hash, Arrays.copyOfRange(buffer, offset, offset + length), id);
+        if ((this.utf8Size + 1) * 2 > table.length) {
+            this.utf8Names = grown(table, name);
+        }
+        else {
+            table[slot] = name;
+        }
+        this.utf8Size++;
+        return id;
+    }
+
+    private static Utf8Name[] grown(Utf8Name[] table, Utf8Name added) {
+
+        Utf8Name[] grown = new Utf8Name[table.length * 2];
+        int mask = grown.length - 1;
+        for (Utf8Name name : table) {
+            if (name != null) {
+                insert(grown, mask, name);
+            }
+        }
+        insert(grown, mask, added);
+        return grown;
+    }
+
+    private static void insert(Utf8Name[] table, int mask, Utf8Name name) {
+
+        int slot = name.hash & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = name;
+    }
+
+    private static int hash(byte[] buffer, int offset, int length) {
+
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        /* Spread the low bits the table is indexed with */
+        return hash ^ (hash >>> 16);
+    }
+
+    /* Final fields, so readers probing without the lock see whole entries */
+    private static final class Utf8Name {
+
+        final int hash;
+        final byte[] bytes;
+        final int id;
+
+        Utf8Name(int hash, byte[] bytes, int id) {
+
+            this.hash = hash;
+            this.bytes = bytes;
+            this.id = id;
+        }
+
+        boolean matches(int hash, byte[] buffer, int offset, int length) {
+
+            if (this.hash != hash || this.bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (this.bytes[i] != buffer[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.challenge.authorizer.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/*
+ * Fixed-point amount of money, an unscaled long plus the number of decimal digits it carries.
+ *
+ * It holds exactly the values a BigDecimal with a long unscaled value holds, and behaves the same: the
+ * scale of a difference is the largest scale of its operands, equals is scale sensitive and toString
+ * prints the same text. That keeps the outputs byte for byte what they were with BigDecimal, while the
+ * rules compare and subtract primitives. Operations that leave the long range throw ArithmeticException.
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    public static final Money ZERO = new Money(0, 0);
+    public static final Money ONE = new Money(1, 0);
+    public static final Money TEN = new Money(10, 0);
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final long units;
+    private final int scale;
+
+    private Money(long units, int scale) {
+
+        this.units = units;
+        this.scale = scale;
+    }
+
+    public static Money valueOf(long value) {
+        return new Money(value, 0);
+    }
+
+    public static Money valueOf(long units, int scale) {
+        return new Money(units, scale);
+    }
+
+    public static Money valueOf(BigDecimal value) {
+
+        if (value.unscaledValue().bitLength() > 63) {
+            throw new ArithmeticException("Money out of range: " + value);
+        }
+        return new Money(value.unscaledValue().longValue(), value.scale());
+    }
+
+    /* Accepts the same text as the BigDecimal constructor */
+    public static Money parse(String value) {
+        return valueOf(new BigDecimal(value));
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int signum() {
+        return Long.signum(this.units);
+    }
+
+    public Money subtract(Money money) {
+
+        if (this.scale == money.scale) {
+            try {
+                return new Money(Math.subtractExact(this.units, money.units), this.scale);
+            }
+            catch (ArithmeticException e) {
+                return valueOf(toBigDecimal().subtract(money.toBigDecimal()));
+            }
+        }
+
+        int scale = Math.max(this.scale, money.scale);
+        long left = rescale(this.units, scale - this.scale);
+        long right = rescale(money.units, scale - money.scale);
+        if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+            return valueOf(toBigDecimal().subtract(money.toBigDecimal()));
+        }
+        try {
+            return new Money(Math.subtractExact(left, right), scale);
+        }
+        catch (ArithmeticException e) {
+            return valueOf(toBigDecimal().subtract(money.toBigDecimal()));
+        }
+    }
+
+    @Override
+    public int compareTo(Money money) {
+
+        if (this.scale == money.scale) {
+            return Long.compare(this.units, money.units);
+        }
+
+        int scale = Math.max(this.scale, money.scale);
+        long left = rescale(this.units, scale - this.scale);
+        long right = rescale(money.units, scale - money.scale);
+        if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+            return toBigDecimal().compareTo(money.toBigDecimal());
+        }
+        return Long.compare(left, right);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(this.units, this.scale);
+    }
+
+    /* Whether toString prints it without an exponent */
+    public boolean isPlain() {
+        return this.scale >= 0 && adjustedExponent() >= -6;
+    }
+
+    /* Multiplies by a power of ten, Long.MIN_VALUE when the result leaves the long range */
+    private static long rescale(long units, int digits) {
+
+        if (digits >= POWERS_OF_TEN.length) {
+            return units == 0 ? 0 : Long.MIN_VALUE;
+        }
+        long factor = POWERS_OF_TEN[digits];
+        long result = units * factor;
+        if (units != result / factor || result == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return result;
+    }
+
+    private int adjustedExponent() {
+
+        long magnitude = Math.abs(this.units);
+        int precision = 1;
+        while (precision < POWERS_OF_TEN.length && magnitude >= POWERS_OF_TEN[precision]) {
+            precision++;
+        }
+        return precision - 1 - this.scale;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return units == money.units && scale == money.scale;
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * Long.hashCode(units) + scale;
+    }
+
+    @Override
+    public String toString() {
+
+        if (this.scale == 0) {
+            return Long.toString(this.units);
+        }
+        if (!isPlain() || this.units == Long.MIN_VALUE) {
+            return toBigDecimal().toString();
+        }
+
+        String digits = Long.toString(Math.abs(this.units));
+        StringBuilder text = new StringBuilder(digits.length() + this.scale + 3);
+        if (this.units < 0) {
+            text.append('-');
+        }
+        if (digits.length() > this.scale) {
+
+            text.append(digits, 0, digits.length() - this.scale).append('.')
+                    .append(digits, digits.length() - this.scale, digits.length());
+        }
+        else {
+
+            text.append("0.");
+            for (int i = digits.length(); i < this.scale; i++) {
+                text.append('0');
+            }
+            text.append(digits);
+        }
+        return text.toString();
+    }
+}
@@ -1,20 +1,48 @@
 package com.challenge.authorizer.domain;
 
-import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Objects;
 
+/* The merchant is kept as its MerchantDictionary id, so comparing merchants is comparing ints */
 public class Transaction implements Comparable<Transaction> {
 
-    private final String merchant;
-    private final BigDecimal amount;
+    private final int merchantId;
+    private final Money amount;
     private final Instant time;
+    private final long timeMillis;
 
-    public Transaction(String merchant, BigDecimal amount, Instant time) {
+    public Transaction(String merchant, Money amount, Instant time) {
 
-        this.merchant = merchant;
+        this(MerchantDictionary.getInstance().idOf(merchant), amount, time);
+    }
+
+    public Transaction(int merchantId, Money amount, Instant time) {
+
+        this.merchantId = merchantId;
         this.amount = amount;
         this.time = time;
+        this.timeMillis = time.toEpochMilli();
+    }
+
+    public String getMerchant() {
+        return MerchantDictionary.getInstance().nameOf(merchantId);
+    }
+
+    public int getMerchantId() {
+        return merchantId;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
     }
 
     @Override
@@ -23,8 +51,14 @@ public class Transaction implements Comparable<Transaction> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Transaction that = (Transaction) o;
-        return merchant.equals(that.merchant) &&
-                amount.equals(that.amount);
+        return merchantId == that.merchantId &&
+                Objects.equals(amount, that.amount);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * merchantId + Objects.hashCode(amount);
     }
 
     @Override
@@ -0,0 +1,470 @@
+package com.challenge.authorizer.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+ * Time ordered transactions of an Account, bounded to what the business rules can still look at.
+ *
+ * Transactions are bucketed by epoch millisecond on a timing wheel with TICKS_PER_HORIZON buckets per rule
+ * horizon, each bucket sorted by time. The newest transaction sets a watermark at the rule horizon plus the
+ * allowed lateness before it: anything older is evicted, and transactions arriving later than the watermark
+ * are counted against what is left but not kept. Late transactions inside the watermark go straight to their
+ * bucket, only moving the ones of the same bucket that happened after them, and transactions at the same
+ * millisecond are all kept, in arrival order. The transactions inside the horizon of the newest one are
+ * counted and indexed by (merchant, amount) as they come and go, so both the interval count and the similar
+ * transactions count are O(1) for in order events, and late ones only look at the buckets of their interval.
+ */
+public class TransactionWindow {
+
+    private static final int TICKS_PER_HORIZON = 8;
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+    private final long horizonMillis;
+    private final long retentionMillis;
+    private final long tickMillis;
+
+    /* Bucket of tick t is at t & mask, the watermark keeps every stored tick inside one turn of the wheel */
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private int size;
+
+    /* Lowest tick that may still hold transactions */
+    private long oldestTick;
+
+    private Transaction newest;
+    private long newestMillis;
+
+    /* Transactions at or after this time are the interval of the newest one, counted and indexed */
+    private long intervalFromMillis;
+    private int intervalCount;
+
+    /* Earliest time ever inserted, evicted transactions included */
+    private long earliestMillis;
+
+    /* Transactions on the interval, counted by merchant and amount (see Transaction.equals) */
+    private final Map<Transaction, Count> similarOnInterval;
+
+    public TransactionWindow(long horizonMillis, long allowedLatenessMillis) {
+
+        this.horizonMillis = horizonMillis;
+        this.retentionMillis = horizonMillis + allowedLatenessMillis;
+        this.tickMillis = Math.max(1, horizonMillis / TICKS_PER_HORIZON);
+
+        long ticks = this.retentionMillis / this.tickMillis + 2;
+        int slots = Integer.highestOneBit((int) Math.min(ticks, 1 << 30) - 1) << 1;
+        this.wheel = new Bucket[slots];
+        this.mask = slots - 1;
+
+        this.newestMillis = Long.MIN_VALUE;
+        this.intervalFromMillis = Long.MIN_VALUE;
+        this.earliestMillis = Long.MAX_VALUE;
+        this.similarOnInterval = new HashMap<>();
+    }
+
+    /* Returns the transaction, which is kept unless it arrived after the watermark */
+    public Transaction add(Transaction transaction) {
+
+        long timeMillis = transaction.getTimeMillis();
+        this.earliestMillis = Math.min(this.earliestMillis, timeMillis);
+
+        if (this.size > 0 && timeMillis < watermark()) {
+            return transaction;
+        }
+        if (this.size == 0 || timeMillis >= this.newestMillis) {
+
+            this.newest = transaction;
+            this.newestMillis = timeMillis;
+
+            /* The interval moves first, eviction would drop transactions it still has to unindex */
+            advanceInterval(timeMillis - this.horizonMillis);
+            evictOlderThan(watermark());
+        }
+
+        long tick = tickOf(timeMillis);
+        this.oldestTick = this.size == 0 ? tick : Math.min(this.oldestTick, tick);
+        bucketFor(tick).insert(transaction);
+        this.size++;
+
+        if (timeMillis >= this.intervalFromMillis) {
+            indexSimilar(transaction);
+        }
+        return transaction;
+    }
+
+    /*
+     * Number of transactions up to timeMillis and inside the horizon before it. Follows the rules contract of
+     * only considering an interval once the account has history at least one horizon older than timeMillis.
+     */
+    public int countInterval(long timeMillis) {
+
+        if (this.size == 0 || this.earliestMillis > timeMillis - this.horizonMillis) {
+            return 0;
+        }
+        if (timeMillis >= this.newestMillis) {
+            return this.intervalCount;
+        }
+
+        long fromMillis = timeMillis - this.horizonMillis;
+        int count = 0;
+        for (long tick = firstTick(fromMillis), last = lastTick(timeMillis); tick <= last; tick++) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket != null) {
+                count += bucket.count(fromMillis, timeMillis);
+            }
+        }
+        return count;
+    }
+
+    /* Number of transactions on the interval of the given one that have the same merchant and amount */
+    public int countSimilarInInterval(Transaction transaction) {
+
+        long timeMillis = transaction.getTimeMillis();
+        if (this.size == 0 || this.earliestMillis > timeMillis - this.horizonMillis) {
+            return 0;
+        }
+        if (timeMillis >= this.newestMillis) {
+
+            Count count = this.similarOnInterval.get(transaction);
+            return count == null ? 0 : count.value;
+        }
+
+        /* Late transactions look back on an interval that is not indexed */
+        long fromMillis = timeMillis - this.horizonMillis;
+        int similar = 0;
+        for (long tick = firstTick(fromMillis), last = lastTick(timeMillis); tick <= last; tick++) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = bucket.start; i < bucket.end; i++) {
+
+                long itemMillis = bucket.items[i].getTimeMillis();
+                if (itemMillis > timeMillis) {
+                    break;
+                }
+                if (itemMillis >= fromMillis && transaction.equals(bucket.items[i])) {
+                    similar++;
+                }
+            }
+        }
+        return similar;
+    }
+
+    /* Transactions on the interval of the given one, most recent first */
+    public List<Transaction> interval(Transaction transaction) {
+
+        List<Transaction> interval = new ArrayList<>();
+        long timeMillis = transaction.getTimeMillis();
+        if (this.size == 0 || this.earliestMillis > timeMillis - this.horizonMillis) {
+            return interval;
+        }
+
+        long fromMillis = timeMillis - this.horizonMillis;
+        for (long tick = lastTick(timeMillis), first = firstTick(fromMillis); tick >= first; tick--) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = bucket.end - 1; i >= bucket.start; i--) {
+
+                long itemMillis = bucket.items[i].getTimeMillis();
+                if (itemMillis < fromMillis) {
+                    break;
+                }
+                if (itemMillis <= timeMillis) {
+                    interval.add(bucket.items[i]);
+                }
+            }
+        }
+        return interval;
+    }
+
+    public long getEarliestMillis() {
+        return earliestMillis;
+    }
+
+    /* Transactions still on the window, oldest first */
+    public Transaction[] toArray() {
+
+        Transaction[] transactions = new Transaction[this.size];
+        int copied = 0;
+        for (long tick = this.oldestTick; copied < this.size; tick++) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket != null) {
+
+                System.arraycopy(bucket.items, bucket.start, transactions, copied, bucket.size());
+                copied += bucket.size();
+            }
+        }
+        return transactions;
+    }
+
+    public TransactionWindow copyWindow() {
+
+        TransactionWindow copy = new TransactionWindow(this.horizonMillis, this.retentionMillis - this.horizonMillis);
+        copy.restore(toArray(), this.earliestMillis);
+        return copy;
+    }
+
+    /* Rebuilds a window from transactions taken with toArray and the earliest time it had seen */
+    public void restore(Transaction[] transactions, long earliestMillis) {
+
+        for (Transaction transaction : transactions) {
+            add(transaction);
+        }
+        this.earliestMillis = Math.min(this.earliestMillis, earliestMillis);
+    }
+
+    public Transaction first() {
+
+        if (this.size == 0) {
+            throw new NoSuchElementException();
+        }
+        for (long tick = this.oldestTick; ; tick++) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket != null) {
+                return bucket.items[bucket.start];
+            }
+        }
+    }
+
+    public Transaction last() {
+
+        if (this.size == 0) {
+            throw new NoSuchElementException();
+        }
+        return newest;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TransactionWindow that = (TransactionWindow) o;
+        if (this.size != that.size) return false;
+
+        Transaction[] mine = toArray();
+        Transaction[] theirs = that.toArray();
+        for (int i = 0; i < this.size; i++) {
+
+            if (mine[i].compareTo(theirs[i]) != 0 || !mine[i].equals(theirs[i])) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+
+        int hash = 1;
+        for (Transaction transaction : toArray()) {
+            hash = 31 * hash + Long.hashCode(transaction.getTimeMillis());
+        }
+        return hash;
+    }
+
+    /**** SIMILAR TRANSACTIONS INDEX ****/
+
+    private static final class Count {
+        int value;
+    }
+
+    private void indexSimilar(Transaction transaction) {
+
+        Count count = this.similarOnInterval.get(transaction);
+        if (count == null) {
+
+            count = new Count();
+            this.similarOnInterval.put(transaction, count);
+        }
+        count.value++;
+        this.intervalCount++;
+    }
+
+    private void unindexSimilar(Transaction transaction) {
+
+        Count count = this.similarOnInterval.get(transaction);
+        if (count != null && --count.value == 0) {
+            this.similarOnInterval.remove(transaction);
+        }
+        this.intervalCount--;
+    }
+
+    /* Moves the start of the interval forward, unindexing the transactions left behind */
+    private void advanceInterval(long fromMillis) {
+
+        if (fromMillis <= this.intervalFromMillis) {
+            return;
+        }
+        if (this.size > 0) {
+
+            for (long tick = firstTick(this.intervalFromMillis), last = lastTick(fromMillis - 1); tick <= last; tick++) {
+
+                Bucket bucket = bucketAt(tick);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = bucket.start; i < bucket.end; i++) {
+
+                    long itemMillis = bucket.items[i].getTimeMillis();
+                    if (itemMillis >= fromMillis) {
+                        break;
+                    }
+                    if (itemMillis >= this.intervalFromMillis) {
+                        unindexSimilar(bucket.items[i]);
+                    }
+                }
+            }
+        }
+        this.intervalFromMillis = fromMillis;
+    }
+
+    /**** TIMING WHEEL HANDLING ****/
+
+    private long watermark() {
+        return this.newestMillis - this.retentionMillis;
+    }
+
+    private long tickOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, this.tickMillis);
+    }
+
+    /* Bounds of the stored ticks a time range can be on, at most one turn of the wheel */
+    private long firstTick(long fromMillis) {
+        return Math.max(this.oldestTick, tickOf(fromMillis));
+    }
+
+    private long lastTick(long toMillis) {
+        return Math.min(tickOf(toMillis), this.oldestTick + this.mask);
+    }
+
+    /* Bucket holding the transactions of the tick, null when there are none */
+    private Bucket bucketAt(long tick) {
+
+        Bucket bucket = this.wheel[(int) tick & this.mask];
+        return bucket != null && bucket.tick == tick && bucket.start < bucket.end ? bucket : null;
+    }
+
+    private Bucket bucketFor(long tick) {
+
+        int slot = (int) tick & this.mask;
+        Bucket bucket = this.wheel[slot];
+        if (bucket == null) {
+
+            bucket = new Bucket();
+            this.wheel[slot] = bucket;
+        }
+        /* Evicted before the tick a turn later was reached */
+        bucket.tick = tick;
+        return bucket;
+    }
+
+    private void evictOlderThan(long limitMillis) {
+
+        if (this.size == 0) {
+            return;
+        }
+
+        long limitTick = tickOf(limitMillis);
+        for (long tick = this.oldestTick, last = Math.min(limitTick, this.oldestTick + this.mask); tick <= last; tick++) {
+
+            Bucket bucket = bucketAt(tick);
+            if (bucket != null) {
+                this.size -= bucket.evictOlderThan(tick < limitTick ? Long.MAX_VALUE : limitMillis);
+            }
+        }
+        this.oldestTick = Math.max(this.oldestTick, limitTick);
+    }
+
+    /* Transactions of one tick, sorted by time and then by arrival */
+    private static final class Bucket {
+
+        private long tick;
+        private Transaction[] items = new Transaction[INITIAL_BUCKET_CAPACITY];
+        private int start;
+        private int end;
+
+        private int size() {
+            return end - start;
+        }
+
+        private void insert(Transaction transaction) {
+
+            if (this.end == this.items.length) {
+
+                int size = size();
+                Transaction[] target = size * 2 > this.items.length ? new Transaction[this.items.length * 2] : this.items;
+                System.arraycopy(this.items, this.start, target, 0, size);
+                Arrays.fill(this.items, Math.max(size, this.start), this.end, null);
+                this.items = target;
+                this.start = 0;
+                this.end = size;
+            }
+
+            long timeMillis = transaction.getTimeMillis();
+            int position = this.end;
+            while (position > this.start && this.items[position - 1].getTimeMillis() > timeMillis) {
+
+                this.items[position] = this.items[position - 1];
+                position--;
+            }
+            this.items[position] = transaction;
+            this.end++;
+        }
+
+        private int count(long fromMillis, long toMillis) {
+
+            if (this.items[this.start].getTimeMillis() >= fromMillis && this.items[this.end - 1].getTimeMillis() <= toMillis) {
+                return size();
+            }
+            int count = 0;
+            for (int i = this.start; i < this.end; i++) {
+
+                long itemMillis = this.items[i].getTimeMillis();
+                if (itemMillis > toMillis) {
+                    break;
+                }
+                if (itemMillis >= fromMillis) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /* Returns how many were evicted */
+        private int evictOlderThan(long limitMillis) {
+
+            int evicted = 0;
+            while (this.start < this.end && this.items[this.start].getTimeMillis() < limitMillis) {
+
+                this.items[this.start++] = null;
+                evicted++;
+            }
+            if (this.start == this.end) {
+
+                this.start = 0;
+                this.end = 0;
+            }
+            return evicted;
+        }
+    }
+}
@@ -1,5 +1,13 @@
 package com.challenge.authorizer.enums;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public enum ViolationEnum {
 
     DOUBLED_TRANSACTION("doubled-transaction"),
@@ -9,13 +17,62 @@ public enum ViolationEnum {
     ACCOUNT_NOT_INITIALIZED("account-not-initialized"),
     ACCOUNT_ALREADY_INITIALIZED("account-already-initialized");
 
+    /* Order violations are listed on outputs, the order the rules are checked in */
+    public static final List<ViolationEnum> REPORT_ORDER = Collections.unmodifiableList(Arrays.asList(
+            CARD_NOT_ACTIVE, INSUFFICIENT_LIMIT, HIGH_FREQUENCY_SMALL_INTERVAL, DOUBLED_TRANSACTION,
+            ACCOUNT_NOT_INITIALIZED, ACCOUNT_ALREADY_INITIALIZED));
+
+    private static final Map<String, ViolationEnum> BY_DESCRIPTION = new HashMap<>();
+
+    static {
+        for (ViolationEnum violation : values()) {
+            BY_DESCRIPTION.put(violation.description, violation);
+        }
+    }
+
     private String description;
 
+    /* Description already encoded as a quoted JSON string, ready to be copied to output buffers */
+    private byte[] encodedDescription;
+
     ViolationEnum(String description){
         this.description = description;
+        this.encodedDescription = ("\"" + description + "\"").getBytes(StandardCharsets.US_ASCII);
     }
 
     public String getDescription() {
         return description;
     }
+
+    /* The returned array is shared and must not be modified */
+    public byte[] getEncodedDescription() {
+        return encodedDescription;
+    }
+
+    /* Bit of this violation on a violations bitmask */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int violations) {
+        return (violations & getMask()) != 0;
+    }
+
+    public static ViolationEnum fromDescription(String description) {
+        return BY_DESCRIPTION.get(description);
+    }
+
+    /* Descriptions of the violations on a bitmask, in report order */
+    public static List<String> descriptions(int violations) {
+
+        List<String> descriptions = new ArrayList<>();
+        for (int i = 0; i < REPORT_ORDER.size(); i++) {
+
+            ViolationEnum violation = REPORT_ORDER.get(i);
+            if (violation.isIn(violations)) {
+                descriptions.add(violation.description);
+            }
+        }
+        return descriptions;
+    }
 }
@@ -1,46 +1,76 @@
 package com.challenge.authorizer.events;
 
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
 import com.challenge.authorizer.enums.ViolationEnum;
 import com.challenge.authorizer.models.AccountModel;
-import com.challenge.authorizer.models.InnerAccountModel;
-import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.models.AuthorizationResult;
 import com.challenge.authorizer.state.AccountDataStore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-
 public class AccountCreationEvent extends Event {
 
-    private final Boolean activeCard;
-    private final BigDecimal availableLimit;
+    private long accountId;
+    private Boolean activeCard;
+    private Money availableLimit;
+
+    public AccountCreationEvent(Boolean activeCard, Money availableLimit) {
 
-    public AccountCreationEvent(Boolean activeCard, BigDecimal availableLimit) {
+        this(AccountDataStore.DEFAULT_ACCOUNT_ID, activeCard, availableLimit);
+    }
 
+    public AccountCreationEvent(long accountId, Boolean activeCard, Money availableLimit) {
+
+        set(accountId, activeCard, availableLimit);
+    }
+
+    /* Refills the event, so decoders can reuse one instance for every line */
+    public void set(long accountId, Boolean activeCard, Money availableLimit) {
+
+        this.accountId = accountId;
         this.activeCard = activeCard;
         this.availableLimit = availableLimit;
+        this.setSequence(-1);
+    }
+
+    @Override
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public Boolean getActiveCard() {
+        return activeCard;
+    }
+
+    public Money getAvailableLimit() {
+        return availableLimit;
     }
 
     @Override
-    public OutputModel process() {
+    public boolean process(AuthorizationResult result) {
 
-        Account account = AccountDataStore.getInstance().getAccount();
-        List<String> violations = new ArrayList<>();
+        AccountDataStore store = AccountDataStore.getInstance();
 
-        if(account != null) {
+        synchronized (store.lockFor(this.accountId)) {
 
-            violations.add(ViolationEnum.ACCOUNT_ALREADY_INITIALIZED.getDescription());
-        }
-        else {
+            Account account = store.getAccountForUpdate(this.accountId);
+            if(account != null && account.hasApplied(this.getSequence())) {
 
-            account = new Account(this.activeCard, this.availableLimit);
-            account.handleEvent(this);
-        }
+                return false;
+            }
+            else if(account != null) {
 
-        InnerAccountModel model = new InnerAccountModel(account.getActiveCard(), account.getAvailableLimit());
-        return new OutputModel(model, violations);
+                result.setAccount(account.getActiveCard(), account.getAvailableLimit(),
+                        ViolationEnum.ACCOUNT_ALREADY_INITIALIZED.getMask());
+            }
+            else {
+
+                account = new Account(this.accountId, this.activeCard, this.availableLimit);
+                account.handleEvent(this);
+                result.setAccount(account.getActiveCard(), account.getAvailableLimit(), 0);
+            }
+        }
+        return true;
     }
 }
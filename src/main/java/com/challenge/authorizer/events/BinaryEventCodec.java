@@ -0,0 +1,253 @@
+package com.challenge.authorizer.events;
+
+import com.challenge.authorizer.domain.MerchantDictionary;
+import com.challenge.authorizer.domain.Money;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/*
+ * Fixed layout binary records of the events, big endian:
+ *
+ *   offset  size  field
+ *        0     1  type, ACCOUNT_RECORD or TRANSACTION_RECORD
+ *        1     1  flags, which of the nullable fields are present and whether the card is active
+ *        2     8  account id
+ *       10     8  unscaled amount, the available limit of accounts
+ *       18     4  amount scale
+ *   transactions only:
+ *       22     8  epoch milliseconds
+ *       30     4  nanoseconds of the millisecond
+ *       34     2  merchant length, unsigned
+ *       36     n  merchant, UTF-8
+ *
+ * Both types start with a byte no JSON line starts with, so records and JSON lines can be told apart by
+ * their first byte and share the same input and the same EventStore. Records hold the exact values a JSON
+ * line decodes to, so replaying them gives the same outputs without parsing any text. Encoding instances
+ * write into a reusable buffer and must not be shared between threads.
+ */
+public class BinaryEventCodec {
+
+    public static final byte ACCOUNT_RECORD = 1;
+    public static final byte TRANSACTION_RECORD = 2;
+
+    public static final int ACCOUNT_RECORD_LENGTH = 22;
+    public static final int TRANSACTION_HEADER_LENGTH = 36;
+    public static final int MAX_MERCHANT_LENGTH = 0xFFFF;
+
+    private static final int CARD_PRESENT = 1;
+    private static final int CARD_ACTIVE = 1 << 1;
+    private static final int AMOUNT_PRESENT = 1 << 2;
+    private static final int TIME_PRESENT = 1 << 3;
+    private static final int MERCHANT_PRESENT = 1 << 4;
+
+    private byte[] buffer;
+
+    public BinaryEventCodec() {
+
+        this.buffer = new byte[TRANSACTION_HEADER_LENGTH + 64];
+    }
+
+    /* Whether the bytes hold a binary record instead of a JSON line */
+    public static boolean isRecord(byte[] buffer, int offset, int length) {
+
+        return length > 0 && (buffer[offset] == ACCOUNT_RECORD || buffer[offset] == TRANSACTION_RECORD);
+    }
+
+    /* Length of the fixed part of a record of the given type, -1 for unknown types */
+    public static int headerLength(byte type) {
+
+        if (type == ACCOUNT_RECORD) {
+            return ACCOUNT_RECORD_LENGTH;
+        }
+        return type == TRANSACTION_RECORD ? TRANSACTION_HEADER_LENGTH : -1;
+    }
+
+    /* Length of the whole record starting at offset, given its fixed part */
+    public static int recordLength(byte[] buffer, int offset) {
+
+        if (buffer[offset] == ACCOUNT_RECORD) {
+            return ACCOUNT_RECORD_LENGTH;
+        }
+        return TRANSACTION_HEADER_LENGTH + readUnsignedShort(buffer, offset + 34);
+    }
+
+    /* Epoch milliseconds of a transaction record, Long.MIN_VALUE for anything without a time */
+    public static long timeMillis(byte[] buffer, int offset, int length) {
+
+        if (length < TRANSACTION_HEADER_LENGTH || buffer[offset] != TRANSACTION_RECORD
+                || (buffer[offset + 1] & TIME_PRESENT) == 0) {
+            return Long.MIN_VALUE;
+        }
+        return readLong(buffer, offset + 22);
+    }
+
+    /**** ENCODING ****/
+
+    /* Encodes the event into the reusable buffer, returning the record length */
+    public int encode(Event event) throws IOException {
+
+        if (event instanceof AccountCreationEvent) {
+            return encode((AccountCreationEvent) event);
+        }
+        if (event instanceof TransactionAuthorizationEvent) {
+            return encode((TransactionAuthorizationEvent) event);
+        }
+        throw new IOException("Unknown event type " + event.getClass().getName());
+    }
+
+    /* Bytes of the last encoded record, only valid until the next call to encode */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    private int encode(AccountCreationEvent event) {
+
+        Boolean activeCard = event.getActiveCard();
+        int flags = activeCard == null ? 0 : CARD_PRESENT | (activeCard ? CARD_ACTIVE : 0);
+        writeHeader(ACCOUNT_RECORD, flags, event.getAccountId(), event.getAvailableLimit());
+        return ACCOUNT_RECORD_LENGTH;
+    }
+
+    private int encode(TransactionAuthorizationEvent event) throws IOException {
+
+        byte[] merchant = event.getMerchant() == null ? null : event.getMerchant().getBytes(StandardCharsets.UTF_8);
+        if (merchant != null && merchant.length > MAX_MERCHANT_LENGTH) {
+            throw new IOException("Merchant longer than " + MAX_MERCHANT_LENGTH + " bytes");
+        }
+
+        int merchantLength = merchant == null ? 0 : merchant.length;
+        int length = TRANSACTION_HEADER_LENGTH + merchantLength;
+        if (this.buffer.length < length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(length, this.buffer.length * 2));
+        }
+
+        Instant time = event.getTime();
+        int flags = (time == null ? 0 : TIME_PRESENT) | (merchant == null ? 0 : MERCHANT_PRESENT);
+        writeHeader(TRANSACTION_RECORD, flags, event.getAccountId(), event.getAmount());
+
+        long epochMillis = 0;
+        int nanosOfMilli = 0;
+        if (time != null) {
+
+            try {
+                epochMillis = time.toEpochMilli();
+            }
+            catch (ArithmeticException e) {
+                throw new IOException("Time out of range " + time, e);
+            }
+            nanosOfMilli = time.getNano() % 1000000;
+        }
+        writeLong(this.buffer, 22, epochMillis);
+        writeInt(this.buffer, 30, nanosOfMilli);
+        this.buffer[34] = (byte) (merchantLength >>> 8);
+        this.buffer[35] = (byte) merchantLength;
+        if (merchant != null) {
+            System.arraycopy(merchant, 0, this.buffer, TRANSACTION_HEADER_LENGTH, merchantLength);
+        }
+        return length;
+    }
+
+    private void writeHeader(byte type, int flags, long accountId, Money amount) {
+
+        this.buffer[0] = type;
+        this.buffer[1] = (byte) (flags | (amount == null ? 0 : AMOUNT_PRESENT));
+        writeLong(this.buffer, 2, accountId);
+        writeLong(this.buffer, 10, amount == null ? 0 : amount.getUnits());
+        writeInt(this.buffer, 18, amount == null ? 0 : amount.getScale());
+    }
+
+    /**** DECODING ****/
+
+    /* Refills the given holders when not null, otherwise creates a new event */
+    public static Event decode(byte[] buffer, int offset, int length, AccountCreationEvent accountHolder,
+                               TransactionAuthorizationEvent transactionHolder) throws IOException {
+
+        int headerLength = length > 0 ? headerLength(buffer[offset]) : -1;
+        if (headerLength < 0) {
+            throw new IOException("Not a binary event record");
+        }
+        if (length < headerLength || length != recordLength(buffer, offset)) {
+            throw new IOException("Binary event record of " + length + " bytes has the wrong length");
+        }
+
+        int flags = buffer[offset + 1];
+        long accountId = readLong(buffer, offset + 2);
+        Money amount = (flags & AMOUNT_PRESENT) == 0 ? null
+                : Money.valueOf(readLong(buffer, offset + 10), readInt(buffer, offset + 18));
+
+        if (buffer[offset] == ACCOUNT_RECORD) {
+
+            Boolean activeCard = (flags & CARD_PRESENT) == 0 ? null : (flags & CARD_ACTIVE) != 0;
+            if (accountHolder != null) {
+
+                accountHolder.set(accountId, activeCard, amount);
+                return accountHolder;
+            }
+            return new AccountCreationEvent(accountId, activeCard, amount);
+        }
+
+        Instant time = null;
+        if ((flags & TIME_PRESENT) != 0) {
+
+            long epochMillis = readLong(buffer, offset + 22);
+            int nanosOfMilli = readInt(buffer, offset + 30);
+            if (nanosOfMilli < 0 || nanosOfMilli >= 1000000) {
+                throw new IOException("Invalid nanoseconds of millisecond " + nanosOfMilli);
+            }
+            time = Instant.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                    Math.floorMod(epochMillis, 1000) * 1000000 + nanosOfMilli);
+        }
+        int merchantId = (flags & MERCHANT_PRESENT) == 0 ? MerchantDictionary.NO_MERCHANT : MerchantDictionary.getInstance()
+                .idOf(buffer, offset + TRANSACTION_HEADER_LENGTH, length - TRANSACTION_HEADER_LENGTH);
+
+        TransactionAuthorizationEvent event = transactionHolder != null ? transactionHolder
+                : new TransactionAuthorizationEvent(null, null, null);
+        event.set(accountId, merchantId, amount, time);
+        return event;
+    }
+
+    /**** BYTES ****/
+
+    private static void writeLong(byte[] buffer, int offset, long value) {
+
+        for (int i = 7; i >= 0; i--) {
+
+            buffer[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+
+        for (int i = 3; i >= 0; i--) {
+
+            buffer[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long readLong(byte[] buffer, int offset) {
+
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (buffer[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readUnsignedShort(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+    }
+}
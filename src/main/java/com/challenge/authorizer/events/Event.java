@@ -1,10 +1,32 @@
 package com.challenge.authorizer.events;
 
+import com.challenge.authorizer.models.AuthorizationResult;
 import com.challenge.authorizer.models.OutputModel;
 
 import java.io.Serializable;
 
 public abstract class Event implements Serializable {
 
-    public abstract OutputModel process();
+    /* Position of the event on the EventStore, -1 when it wasn't persisted */
+    private long sequence = -1;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public abstract long getAccountId();
+
+    /* Applies the event and fills the result, false when it was already applied, e.g. while replaying after a snapshot */
+    public abstract boolean process(AuthorizationResult result);
+
+    /* Returns null when the event was already applied to the state */
+    public OutputModel process() {
+
+        AuthorizationResult result = new AuthorizationResult();
+        return process(result) ? result.toOutputModel() : null;
+    }
 }
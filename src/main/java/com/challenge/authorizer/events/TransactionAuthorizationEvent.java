@@ -1,39 +1,67 @@
 package com.challenge.authorizer.events;
 
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.MerchantDictionary;
+import com.challenge.authorizer.domain.Money;
 import com.challenge.authorizer.enums.ViolationEnum;
 import com.challenge.authorizer.models.AccountModel;
-import com.challenge.authorizer.models.InnerAccountModel;
-import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.models.AuthorizationResult;
 import com.challenge.authorizer.models.TransactionModel;
 import com.challenge.authorizer.state.AccountDataStore;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
 
 public class TransactionAuthorizationEvent extends Event {
 
-    public final String merchant;
-    public final BigDecimal amount;
-    public final Instant time;
+    private long accountId;
+    private int merchantId;
+    private Money amount;
+    private Instant time;
 
-    public TransactionAuthorizationEvent(String merchant, BigDecimal amount, Instant time){
+    public TransactionAuthorizationEvent(String merchant, Money amount, Instant time){
 
-        this.merchant = merchant;
+        this(AccountDataStore.DEFAULT_ACCOUNT_ID, merchant, amount, time);
+    }
+
+    public TransactionAuthorizationEvent(long accountId, String merchant, Money amount, Instant time){
+
+        set(accountId, merchant, amount, time);
+    }
+
+    /* Refills the event, so decoders can reuse one instance for every line */
+    public void set(long accountId, String merchant, Money amount, Instant time){
+
+        set(accountId, MerchantDictionary.getInstance().idOf(merchant), amount, time);
+    }
+
+    /* Refills the event with a merchant already on the MerchantDictionary */
+    public void set(long accountId, int merchantId, Money amount, Instant time){
+
+        this.accountId = accountId;
+        this.merchantId = merchantId;
         this.amount = amount;
         this.time = time;
+        this.setSequence(-1);
+    }
+
+    @Override
+    public long getAccountId() {
+        return accountId;
     }
 
     public String getMerchant() {
-        return merchant;
+        return MerchantDictionary.getInstance().nameOf(merchantId);
+    }
+
+    /* Id of the merchant on the MerchantDictionary, looked up once the event is decoded */
+    public int getMerchantId() {
+        return merchantId;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
@@ -42,22 +70,28 @@ public class TransactionAuthorizationEvent extends Event {
     }
 
     @Override
-    public OutputModel process() {
+    public boolean process(AuthorizationResult result) {
 
-        Account account = AccountDataStore.getInstance().getAccount();
-        List<String> violations = new ArrayList<>();
-        InnerAccountModel accountModel = null;
+        AccountDataStore store = AccountDataStore.getInstance();
 
-        if (account == null) {
+        synchronized (store.lockFor(this.accountId)) {
 
-            violations.add(ViolationEnum.ACCOUNT_NOT_INITIALIZED.getDescription());
-        }
-        else {
+            Account account = store.getAccountForUpdate(this.accountId);
+            if (account != null && account.hasApplied(this.getSequence())) {
 
-            violations.addAll(account.handleEvent(this));
-            accountModel = new InnerAccountModel(account.getActiveCard(), account.getAvailableLimit());
-        }
+                return false;
+            }
+            else if (account == null) {
 
-        return new OutputModel(accountModel, violations);
+                result.setNoAccount(ViolationEnum.ACCOUNT_NOT_INITIALIZED.getMask());
+            }
+            else {
+
+                int violations = account.handleEvent(this);
+                store.writeBack(this.accountId, account);
+                result.setAccount(account.getActiveCard(), account.getAvailableLimit(), violations);
+            }
+        }
+        return true;
     }
 }
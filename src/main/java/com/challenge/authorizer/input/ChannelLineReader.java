@@ -0,0 +1,46 @@
+package com.challenge.authorizer.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/* Reads the input into a single direct buffer, refilled once its lines have been handed out */
+final class ChannelLineReader extends LineReader {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean ended;
+
+    ChannelLineReader(ReadableByteChannel channel, int bufferSize) {
+
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    protected ByteBuffer nextChunk() throws IOException {
+
+        if (this.ended) {
+            return null;
+        }
+
+        this.buffer.clear();
+        int read;
+        do {
+            read = this.channel.read(this.buffer);
+        } while (read == 0);
+
+        if (read < 0) {
+
+            this.ended = true;
+            return null;
+        }
+        this.buffer.flip();
+        return this.buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.challenge.authorizer.input;
+
+/* How the input is split in events: JSON lines, or the binary records of the BinaryEventCodec */
+public enum InputFormat {
+
+    JSON,
+    BINARY;
+
+    /* Accepts "json" or "binary" */
+    public static InputFormat parse(String format) {
+
+        switch (format.trim()) {
+            case "json":
+                return JSON;
+            case "binary":
+                return BINARY;
+            default:
+                throw new IllegalArgumentException("Unknown input format: " + format);
+        }
+    }
+}
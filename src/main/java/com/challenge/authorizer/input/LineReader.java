@@ -0,0 +1,156 @@
+package com.challenge.authorizer.input;
+
+import com.challenge.authorizer.events.BinaryEventCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/*
+ * Splits the input in lines at the byte level, without decoding it, handing out each line as a slice of
+ * a reusable array.
+ *
+ * Lines end at '\n', a '\r' right before it is dropped and empty lines are skipped, so the last line
+ * doesn't need a line break. On BINARY input each line is one record of the BinaryEventCodec, framed by
+ * its own length. Implementations only provide the next chunk of input; a line split across chunks is put
+ * back together on the line array. Not thread-safe.
+ */
+public abstract class LineReader implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private byte[] line;
+    private int length;
+
+    private ByteBuffer chunk;
+
+    private InputFormat format = InputFormat.JSON;
+
+    protected LineReader() {
+        this.line = new byte[256];
+    }
+
+    /* Reads through a direct buffer, for stdin and other streams */
+    public static LineReader forChannel(ReadableByteChannel channel) {
+        return forChannel(channel, InputFormat.JSON);
+    }
+
+    public static LineReader forChannel(ReadableByteChannel channel, InputFormat format) {
+        return new ChannelLineReader(channel, DEFAULT_BUFFER_SIZE).withFormat(format);
+    }
+
+    /* Reads a file through memory mappings */
+    public static LineReader open(Path file) throws IOException {
+        return open(file, InputFormat.JSON);
+    }
+
+    public static LineReader open(Path file, InputFormat format) throws IOException {
+        return new MappedLineReader(file, DEFAULT_WINDOW_SIZE).withFormat(format);
+    }
+
+    LineReader withFormat(InputFormat format) {
+
+        this.format = format;
+        return this;
+    }
+
+    /* Moves to the next non empty line, false once the input ends */
+    public boolean readLine() throws IOException {
+
+        this.length = 0;
+        if (this.format == InputFormat.BINARY) {
+            return readRecord();
+        }
+        while (true) {
+
+            if (this.chunk == null || !this.chunk.hasRemaining()) {
+
+                this.chunk = nextChunk();
+                if (this.chunk == null) {
+                    return trimLine();
+                }
+            }
+
+            int limit = this.chunk.limit();
+            int end = this.chunk.position();
+            while (end < limit && this.chunk.get(end) != '\n') {
+                end++;
+            }
+            append(end - this.chunk.position());
+
+            if (end < limit) {
+
+                this.chunk.position(end + 1);
+                if (trimLine()) {
+                    return true;
+                }
+                this.length = 0;
+            }
+        }
+    }
+
+    /* Bytes of the current line, only valid until the next call to readLine */
+    public byte[] getLine() {
+        return line;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /* Next chunk of input positioned at its first byte, null once the input ends */
+    protected abstract ByteBuffer nextChunk() throws IOException;
+
+    private boolean readRecord() throws IOException {
+
+        if (!fill(1)) {
+            return false;
+        }
+        int headerLength = BinaryEventCodec.headerLength(this.line[0]);
+        if (headerLength < 0) {
+            throw new IOException("Unknown binary record type " + this.line[0]);
+        }
+        if (!fill(headerLength) || !fill(BinaryEventCodec.recordLength(this.line, 0))) {
+            throw new IOException("Truncated binary record of " + this.length + " bytes");
+        }
+        return true;
+    }
+
+    /* Appends input to the line until it holds the given length, false when the input ends first */
+    private boolean fill(int length) throws IOException {
+
+        while (this.length < length) {
+
+            if (this.chunk == null || !this.chunk.hasRemaining()) {
+
+                this.chunk = nextChunk();
+                if (this.chunk == null) {
+                    return false;
+                }
+            }
+            append(Math.min(length - this.length, this.chunk.remaining()));
+        }
+        return true;
+    }
+
+    private void append(int bytes) {
+
+        if (this.line.length < this.length + bytes) {
+            this.line = Arrays.copyOf(this.line, Math.max(this.length + bytes, this.line.length * 2));
+        }
+        this.chunk.get(this.line, this.length, bytes);
+        this.length += bytes;
+    }
+
+    private boolean trimLine() {
+
+        if (this.length > 0 && this.line[this.length - 1] == '\r') {
+            this.length--;
+        }
+        return this.length > 0;
+    }
+}
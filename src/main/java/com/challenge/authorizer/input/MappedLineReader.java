@@ -0,0 +1,51 @@
+package com.challenge.authorizer.input;
+
+import com.challenge.authorizer.state.MappedBuffers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Maps the file one window at a time, so files over the 2GB mapping limit are read too */
+final class MappedLineReader extends LineReader {
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private long position;
+    private MappedByteBuffer window;
+
+    MappedLineReader(Path file, int windowSize) throws IOException {
+
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    protected ByteBuffer nextChunk() throws IOException {
+
+        MappedBuffers.unmap(this.window);
+        this.window = null;
+        if (this.position >= this.size) {
+            return null;
+        }
+
+        long length = Math.min(this.windowSize, this.size - this.position);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, length);
+        this.position += length;
+        return this.window;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        MappedBuffers.unmap(this.window);
+        this.window = null;
+        this.channel.close();
+    }
+}
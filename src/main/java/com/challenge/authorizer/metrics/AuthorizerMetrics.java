@@ -0,0 +1,209 @@
+package com.challenge.authorizer.metrics;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+import com.challenge.authorizer.rules.RulePlan;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Latencies of parsing, authorizing and serializing events, error and violation counters, and EventStore
+ * gauges, exposed as MXBeans under the com.challenge.authorizer domain. Latencies of each rule are exposed
+ * too when the RulePlan is timed.
+ *
+ * Every thread processing events records here. Counters are LongAdders and histograms atomic increments,
+ * so recording takes no locks. Throughput is the rate of the histogram counts.
+ */
+public class AuthorizerMetrics implements AuthorizerMetricsMXBean {
+
+    private static final String DOMAIN = "com.challenge.authorizer";
+
+    /* Created up front, so looking it up on every event takes no lock */
+    private static final AuthorizerMetrics INSTANCE = new AuthorizerMetrics();
+
+    private final LatencyHistogram parseLatency;
+    private final LatencyHistogram authorizeLatency;
+    private final LatencyHistogram serializeLatency;
+
+    private final LongAdder parseErrors;
+    private final LongAdder processErrors;
+    private final LongAdder writeErrors;
+    private final LongAdder duplicatesDropped;
+
+    /* By violation ordinal */
+    private final LongAdder[] violations;
+
+    private AuthorizerMetrics() {
+
+        this.parseLatency = new LatencyHistogram();
+        this.authorizeLatency = new LatencyHistogram();
+        this.serializeLatency = new LatencyHistogram();
+        this.parseErrors = new LongAdder();
+        this.processErrors = new LongAdder();
+        this.writeErrors = new LongAdder();
+        this.duplicatesDropped = new LongAdder();
+        this.violations = new LongAdder[ViolationEnum.values().length];
+        for (int i = 0; i < this.violations.length; i++) {
+            this.violations[i] = new LongAdder();
+        }
+    }
+
+    public static AuthorizerMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /* Registers the MXBeans on the platform MBean server, doing nothing for the ones already there */
+    public synchronized void register() {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+
+            register(server, this, "type=Metrics");
+            register(server, this.parseLatency, "type=Latency,stage=parse");
+            register(server, this.authorizeLatency, "type=Latency,stage=authorize");
+            register(server, this.serializeLatency, "type=Latency,stage=serialize");
+
+            RulePlan plan = RulePlan.getDefault();
+            for (int i = 0; plan.isTimed() && i < plan.getRules().size(); i++) {
+                register(server, plan.getLatency(i), "type=Latency,stage=rule,rule="
+                        + plan.getRules().get(i).getViolation().getDescription());
+            }
+        }
+        catch (JMException e) {
+
+            System.err.println("Error while trying to register metrics MBeans. Error: " + e);
+        }
+    }
+
+    private static void register(MBeanServer server, Object mbean, String properties) throws JMException {
+
+        ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    /**** RECORDING ****/
+
+    public LatencyHistogram getParseLatency() {
+        return parseLatency;
+    }
+
+    public LatencyHistogram getAuthorizeLatency() {
+        return authorizeLatency;
+    }
+
+    public LatencyHistogram getSerializeLatency() {
+        return serializeLatency;
+    }
+
+    public void parseError() {
+        this.parseErrors.increment();
+    }
+
+    public void processError() {
+        this.processErrors.increment();
+    }
+
+    public void writeError() {
+        this.writeErrors.increment();
+    }
+
+    public void duplicateDropped() {
+        this.duplicatesDropped.increment();
+    }
+
+    /* Counts each violation on the bitmask */
+    public void recordViolations(int violations) {
+
+        while (violations != 0) {
+
+            this.violations[Integer.numberOfTrailingZeros(violations)].increment();
+            violations &= violations - 1;
+        }
+    }
+
+    /**** MXBEAN ****/
+
+    @Override
+    public long getEventsParsed() {
+        return parseLatency.getCount();
+    }
+
+    @Override
+    public long getEventsAuthorized() {
+        return authorizeLatency.getCount();
+    }
+
+    @Override
+    public long getOutputsWritten() {
+        return serializeLatency.getCount();
+    }
+
+    @Override
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    @Override
+    public long getProcessErrors() {
+        return processErrors.sum();
+    }
+
+    @Override
+    public long getWriteErrors() {
+        return writeErrors.sum();
+    }
+
+    @Override
+    public long getDuplicatesDropped() {
+        return duplicatesDropped.sum();
+    }
+
+    @Override
+    public Map<String, Long> getViolations() {
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ViolationEnum violation : ViolationEnum.REPORT_ORDER) {
+            counts.put(violation.getDescription(), this.violations[violation.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getEventStoreEvents() {
+        return EventStore.getInstance().getEventCount();
+    }
+
+    @Override
+    public long getEventStoreSegments() {
+        return EventStore.getInstance().getSegmentCount();
+    }
+
+    @Override
+    public long getEventStoreLag() {
+        return Math.max(0, EventStore.getInstance().getLastSequence() - AccountDataStore.getInstance().getAppliedSequence());
+    }
+
+    /* Clears the counters and histograms, the gauges keep reading the stores */
+    public void reset() {
+
+        this.parseLatency.reset();
+        this.authorizeLatency.reset();
+        this.serializeLatency.reset();
+        this.parseErrors.reset();
+        this.processErrors.reset();
+        this.writeErrors.reset();
+        this.duplicatesDropped.reset();
+        for (LongAdder violation : this.violations) {
+            violation.reset();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.challenge.authorizer.metrics;
+
+import java.util.Map;
+
+public interface AuthorizerMetricsMXBean {
+
+    long getEventsParsed();
+
+    long getEventsAuthorized();
+
+    long getOutputsWritten();
+
+    long getParseErrors();
+
+    long getProcessErrors();
+
+    long getWriteErrors();
+
+    /* Redelivered events answered from the idempotency cache */
+    long getDuplicatesDropped();
+
+    /* Outputs holding each violation, by description */
+    Map<String, Long> getViolations();
+
+    /* Events kept on the EventStore, from the oldest segment not compacted yet */
+    long getEventStoreEvents();
+
+    long getEventStoreSegments();
+
+    /* Events persisted but not applied to the state yet */
+    long getEventStoreLag();
+}
@@ -0,0 +1,21 @@
+package com.challenge.authorizer.metrics;
+
+/* Latencies in nanoseconds */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+
+    void reset();
+}
@@ -0,0 +1,62 @@
+package com.challenge.authorizer.models;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.enums.ViolationEnum;
+
+/*
+ * Mutable outcome of an event, the account state after it plus its violations as a ViolationEnum bitmask.
+ * One instance is filled and written for every event, so the steady state path doesn't allocate outputs.
+ */
+public class AuthorizationResult {
+
+    private boolean accountPresent;
+    private Boolean activeCard;
+    private Money availableLimit;
+    private int violations;
+
+    public void setAccount(Boolean activeCard, Money availableLimit, int violations) {
+
+        this.accountPresent = true;
+        this.activeCard = activeCard;
+        this.availableLimit = availableLimit;
+        this.violations = violations;
+    }
+
+    public void setNoAccount(int violations) {
+
+        this.accountPresent = false;
+        this.activeCard = null;
+        this.availableLimit = null;
+        this.violations = violations;
+    }
+
+    public void copyFrom(AuthorizationResult other) {
+
+        this.accountPresent = other.accountPresent;
+        this.activeCard = other.activeCard;
+        this.availableLimit = other.availableLimit;
+        this.violations = other.violations;
+    }
+
+    public boolean isAccountPresent() {
+        return accountPresent;
+    }
+
+    public Boolean getActiveCard() {
+        return activeCard;
+    }
+
+    public Money getAvailableLimit() {
+        return availableLimit;
+    }
+
+    public int getViolations() {
+        return violations;
+    }
+
+    public OutputModel toOutputModel() {
+
+        InnerAccountModel account = this.accountPresent ? new InnerAccountModel(this.activeCard, this.availableLimit) : null;
+        return new OutputModel(account, ViolationEnum.descriptions(this.violations));
+    }
+}
@@ -1,23 +1,31 @@
 package com.challenge.authorizer.models;
 
+import com.challenge.authorizer.domain.Money;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class InnerAccountModel implements Serializable {
 
+    /* Input only, outputs are written in the same order as the events so they don't repeat it */
+    @JsonProperty(value = "account-id", access = JsonProperty.Access.WRITE_ONLY)
+    public long accountId;
+
     @JsonProperty("active-card")
     public Boolean activeCard;
 
     @JsonProperty("available-limit")
-    public BigDecimal availableLimit;
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    public Money availableLimit;
 
     public InnerAccountModel(){}
 
-    public InnerAccountModel(Boolean activeCard, BigDecimal availableLimit){
+    public InnerAccountModel(Boolean activeCard, Money availableLimit){
 
         this.activeCard = activeCard;
         this.availableLimit = availableLimit;
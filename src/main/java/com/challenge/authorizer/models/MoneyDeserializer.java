@@ -0,0 +1,27 @@
+package com.challenge.authorizer.models;
+
+import com.challenge.authorizer.domain.Money;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/* Reads JSON numbers into Money, failing on values that don't fit on it */
+public class MoneyDeserializer extends StdDeserializer<Money> {
+
+    public MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+        try {
+            return Money.valueOf(parser.getDecimalValue());
+        }
+        catch (ArithmeticException e) {
+            return (Money) context.handleWeirdNumberValue(Money.class, parser.getNumberValue(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.challenge.authorizer.models;
+
+import com.challenge.authorizer.domain.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/* Writes Money as a JSON number, with the same text a BigDecimal of the same value gets */
+public class MoneySerializer extends StdSerializer<Money> {
+
+    public MoneySerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeNumber(value.toBigDecimal());
+    }
+}
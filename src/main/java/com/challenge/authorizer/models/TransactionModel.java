@@ -1,12 +1,13 @@
 package com.challenge.authorizer.models;
 
+import com.challenge.authorizer.domain.Money;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.Instant;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -20,9 +21,13 @@ public class TransactionModel implements Serializable {
     @JsonIgnoreProperties(ignoreUnknown = true)
     public class InnerTransaction implements Serializable {
 
+        @JsonProperty("account-id")
+        public long accountId;
+
         public String merchant;
 
-        public BigDecimal amount;
+        @JsonDeserialize(using = MoneyDeserializer.class)
+        public Money amount;
 
         public Instant time;
 
@@ -0,0 +1,314 @@
+package com.challenge.authorizer.output;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.enums.ViolationEnum;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.models.InnerAccountModel;
+import com.challenge.authorizer.models.OutputModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/*
+ * Encodes OutputModel objects as JSON lines straight into a reusable byte buffer, producing the same
+ * text Jackson did, and writes the buffer to the underlying stream according to the FlushPolicy.
+ * Not thread-safe.
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private static final byte[] NULL_ACCOUNT = ascii("{\"account\":null,\"violations\":");
+    private static final byte[] ACTIVE_CARD = ascii("{\"account\":{\"active-card\":");
+    private static final byte[] AVAILABLE_LIMIT = ascii(",\"available-limit\":");
+    private static final byte[] VIOLATIONS = ascii("},\"violations\":");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] LINE_SEPARATOR = ascii(System.lineSeparator());
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] SHORT_ESCAPES = new byte[0x20];
+
+    static {
+        SHORT_ESCAPES['\b'] = 'b';
+        SHORT_ESCAPES['\t'] = 't';
+        SHORT_ESCAPES['\n'] = 'n';
+        SHORT_ESCAPES['\f'] = 'f';
+        SHORT_ESCAPES['\r'] = 'r';
+    }
+
+    private final OutputStream out;
+    private final FlushPolicy flushPolicy;
+
+    private byte[] buffer;
+    private int position;
+    private long lastFlushNanos;
+
+    /* Digits of the amount being written, from the least significant */
+    private final byte[] digits = new byte[19];
+
+    public BufferedOutputSink(OutputStream out, FlushPolicy flushPolicy) {
+        this(out, flushPolicy, DEFAULT_CAPACITY);
+    }
+
+    public BufferedOutputSink(OutputStream out, FlushPolicy flushPolicy, int capacity) {
+
+        this.out = out;
+        this.flushPolicy = flushPolicy;
+        this.buffer = new byte[capacity];
+        this.position = 0;
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    @Override
+    public void write(OutputModel output) throws IOException {
+
+        InnerAccountModel account = output.account;
+        if (account == null) {
+            put(NULL_ACCOUNT);
+        }
+        else {
+
+            put(ACTIVE_CARD);
+            putBoolean(account.activeCard);
+            put(AVAILABLE_LIMIT);
+            putMoney(account.availableLimit);
+            put(VIOLATIONS);
+        }
+        putViolations(output.violations);
+        put(LINE_SEPARATOR);
+        flushIfNeeded();
+    }
+
+    @Override
+    public void write(AuthorizationResult result) throws IOException {
+
+        if (!result.isAccountPresent()) {
+            put(NULL_ACCOUNT);
+        }
+        else {
+
+            put(ACTIVE_CARD);
+            putBoolean(result.getActiveCard());
+            put(AVAILABLE_LIMIT);
+            putMoney(result.getAvailableLimit());
+            put(VIOLATIONS);
+        }
+        putViolations(result.getViolations());
+        put(LINE_SEPARATOR);
+        flushIfNeeded();
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        try {
+
+            if (this.position > 0) {
+                this.out.write(this.buffer, 0, this.position);
+            }
+            this.out.flush();
+        }
+        finally {
+
+            /* Bytes that failed to be written are dropped, so one bad flush doesn't poison the next ones */
+            this.position = 0;
+            this.lastFlushNanos = System.nanoTime();
+        }
+    }
+
+    private void flushIfNeeded() throws IOException {
+
+        if (flushPolicy.shouldFlush(this.position, this.lastFlushNanos)) {
+            flush();
+        }
+    }
+
+    /**** ENCODING ****/
+
+    private void putViolations(int violations) throws IOException {
+
+        putByte('[');
+        boolean first = true;
+        for (int i = 0; i < ViolationEnum.REPORT_ORDER.size(); i++) {
+
+            ViolationEnum violation = ViolationEnum.REPORT_ORDER.get(i);
+            if (violation.isIn(violations)) {
+
+                if (!first) {
+                    putByte(',');
+                }
+                put(violation.getEncodedDescription());
+                first = false;
+            }
+        }
+        putByte(']');
+        putByte('}');
+    }
+
+    private void putViolations(List<String> violations) throws IOException {
+
+        if (violations == null) {
+            put(NULL);
+            putByte('}');
+            return;
+        }
+
+        putByte('[');
+        for (int i = 0; i < violations.size(); i++) {
+
+            if (i > 0) {
+                putByte(',');
+            }
+
+            String description = violations.get(i);
+            ViolationEnum violation = ViolationEnum.fromDescription(description);
+            if (violation != null) {
+                put(violation.getEncodedDescription());
+            }
+            else {
+                putString(description);
+            }
+        }
+        putByte(']');
+        putByte('}');
+    }
+
+    private void putBoolean(Boolean value) throws IOException {
+
+        if (value == null) {
+            put(NULL);
+        }
+        else {
+            put(value ? TRUE : FALSE);
+        }
+    }
+
+    private void putMoney(Money value) throws IOException {
+
+        if (value == null) {
+            put(NULL);
+            return;
+        }
+        if (!value.isPlain() || value.getUnits() == Long.MIN_VALUE) {
+
+            /* Exponent notation, Money.toString only produces ASCII characters */
+            put(ascii(value.toString()));
+            return;
+        }
+
+        long units = value.getUnits();
+        int scale = value.getScale();
+        ensureCapacity(this.digits.length + scale + 3);
+        if (units < 0) {
+
+            this.buffer[this.position++] = '-';
+            units = -units;
+        }
+
+        int count = 0;
+        do {
+            this.digits[count++] = (byte) ('0' + units % 10);
+            units /= 10;
+        } while (units != 0);
+
+        if (count > scale) {
+
+            for (int i = count - 1; i >= scale; i--) {
+                this.buffer[this.position++] = this.digits[i];
+            }
+            if (scale > 0) {
+                this.buffer[this.position++] = '.';
+            }
+        }
+        else {
+
+            this.buffer[this.position++] = '0';
+            this.buffer[this.position++] = '.';
+            for (int i = count; i < scale; i++) {
+                this.buffer[this.position++] = '0';
+            }
+        }
+        for (int i = Math.min(count, scale) - 1; i >= 0; i--) {
+            this.buffer[this.position++] = this.digits[i];
+        }
+    }
+
+    private void putString(String value) throws IOException {
+
+        if (value == null) {
+            put(NULL);
+            return;
+        }
+
+        putByte('"');
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+
+                putByte('\\');
+                putByte(c);
+            }
+            else if (c < 0x20 && SHORT_ESCAPES[c] != 0) {
+
+                putByte('\\');
+                putByte(SHORT_ESCAPES[c]);
+            }
+            else if (c < 0x20) {
+
+                ensureCapacity(6);
+                this.buffer[this.position++] = '\\';
+                this.buffer[this.position++] = 'u';
+                this.buffer[this.position++] = '0';
+                this.buffer[this.position++] = '0';
+                this.buffer[this.position++] = HEX[c >> 4];
+                this.buffer[this.position++] = HEX[c & 0xF];
+            }
+            else if (c < 0x80) {
+                putByte(c);
+            }
+            else {
+
+                /* Non ASCII text is rare in violations, let the JDK handle surrogates */
+                int end = i + 1;
+                while (end < value.length() && value.charAt(end) >= 0x80) {
+                    end++;
+                }
+                put(value.substring(i, end).getBytes(StandardCharsets.UTF_8));
+                i = end - 1;
+            }
+        }
+        putByte('"');
+    }
+
+    private void put(byte[] bytes) throws IOException {
+
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    private void putByte(int b) throws IOException {
+
+        ensureCapacity(1);
+        this.buffer[this.position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+
+        if (this.position + length > this.buffer.length) {
+
+            flush();
+            if (length > this.buffer.length) {
+                this.buffer = new byte[length];
+            }
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,20 @@
+package com.challenge.authorizer.output;
+
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.models.OutputModel;
+
+/* Sink for replays that only rebuild state, like recovering after a restart */
+public class DiscardingOutputSink implements OutputSink {
+
+    @Override
+    public void write(OutputModel output) {
+    }
+
+    @Override
+    public void write(AuthorizationResult result) {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,86 @@
+package com.challenge.authorizer.output;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Decides when a BufferedOutputSink hands its buffered bytes to the underlying stream.
+ * Regardless of the policy, the sink also flushes when its buffer is full and when flush() is called.
+ * Time based flushing is evaluated on each write, so the tail of a stream is only written on flush().
+ */
+public final class FlushPolicy {
+
+    private enum Mode { EVERY_EVENT, SIZE, TIME, END_OF_STREAM }
+
+    private final Mode mode;
+    private final long threshold;
+
+    private FlushPolicy(Mode mode, long threshold) {
+
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    public static FlushPolicy everyEvent() {
+        return new FlushPolicy(Mode.EVERY_EVENT, 0);
+    }
+
+    public static FlushPolicy bySize(int bufferedBytes) {
+
+        if (bufferedBytes <= 0) {
+            throw new IllegalArgumentException("Flush size must be positive: " + bufferedBytes);
+        }
+        return new FlushPolicy(Mode.SIZE, bufferedBytes);
+    }
+
+    public static FlushPolicy byTime(long intervalMillis) {
+
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive: " + intervalMillis);
+        }
+        return new FlushPolicy(Mode.TIME, TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+    }
+
+    public static FlushPolicy atEndOfStream() {
+        return new FlushPolicy(Mode.END_OF_STREAM, 0);
+    }
+
+    /* Accepts "event", "end", "size:<bytes>" or "time:<millis>" */
+    public static FlushPolicy parse(String policy) {
+
+        String[] parts = policy.trim().split(":", 2);
+        switch (parts[0]) {
+            case "event":
+                return everyEvent();
+            case "end":
+                return atEndOfStream();
+            case "size":
+                return bySize(Integer.parseInt(argument(parts, policy)));
+            case "time":
+                return byTime(Long.parseLong(argument(parts, policy)));
+            default:
+                throw new IllegalArgumentException("Unknown flush policy: " + policy);
+        }
+    }
+
+    private static String argument(String[] parts, String policy) {
+
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Missing value for flush policy: " + policy);
+        }
+        return parts[1].trim();
+    }
+
+    boolean shouldFlush(int bufferedBytes, long lastFlushNanos) {
+
+        switch (mode) {
+            case EVERY_EVENT:
+                return true;
+            case SIZE:
+                return bufferedBytes >= threshold;
+            case TIME:
+                return System.nanoTime() - lastFlushNanos >= threshold;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.challenge.authorizer.output;
+
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.models.OutputModel;
+
+import java.io.IOException;
+
+public interface OutputSink {
+
+    void write(OutputModel output) throws IOException;
+
+    /* Sinks able to encode results directly override this, so no OutputModel is built */
+    default void write(AuthorizationResult result) throws IOException {
+        write(result.toOutputModel());
+    }
+
+    void flush() throws IOException;
+}
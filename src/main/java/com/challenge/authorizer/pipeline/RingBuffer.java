@@ -0,0 +1,109 @@
+package com.challenge.authorizer.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * Bounded queue between exactly one producer thread and one consumer thread, over slots allocated up front.
+ *
+ * Slots are mutable and handed out in place: the producer claims the next free slot, fills it and
+ * publishes it, the consumer takes it, reads it and releases it back. Each side only writes its own
+ * cursor and caches the last value it read from the other one, so there are no locks and the shared
+ * cursors are only read when the cached value runs out. Halting wakes both sides up, which then get
+ * null instead of a slot.
+ */
+public final class RingBuffer<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+
+    /* Written by the producer, next sequence to be taken is below it */
+    private final AtomicLong published;
+    /* Written by the consumer, sequences below it can be claimed again */
+    private final AtomicLong released;
+
+    private long claimSequence;
+    private long cachedReleased;
+
+    private long takeSequence;
+    private long cachedPublished;
+
+    private volatile boolean halted;
+
+    public RingBuffer(int capacity, Supplier<T> factory, WaitStrategy waitStrategy) {
+
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+
+        this.slots = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = factory.get();
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.published = new AtomicLong();
+        this.released = new AtomicLong();
+    }
+
+    /* Producer side, waits for a free slot, null once halted */
+    public T claim() {
+
+        int attempt = 0;
+        while (this.claimSequence - this.cachedReleased >= this.slots.length) {
+
+            this.cachedReleased = this.released.get();
+            if (this.claimSequence - this.cachedReleased < this.slots.length) {
+                break;
+            }
+            if (this.halted) {
+                return null;
+            }
+            this.waitStrategy.idle(attempt++);
+        }
+        return slot(this.claimSequence);
+    }
+
+    /* Producer side, makes the claimed slot visible to the consumer */
+    public void publish() {
+        this.published.lazySet(++this.claimSequence);
+    }
+
+    /* Consumer side, waits for a published slot, null once halted */
+    public T take() {
+
+        int attempt = 0;
+        while (this.takeSequence >= this.cachedPublished) {
+
+            this.cachedPublished = this.published.get();
+            if (this.takeSequence < this.cachedPublished) {
+                break;
+            }
+            if (this.halted) {
+                return null;
+            }
+            this.waitStrategy.idle(attempt++);
+        }
+        return slot(this.takeSequence);
+    }
+
+    /* Consumer side, gives the taken slot back to the producer */
+    public void release() {
+        this.released.lazySet(++this.takeSequence);
+    }
+
+    /* Stops both sides, used when the other side of the ring is gone */
+    public void halt() {
+        this.halted = true;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slot(long sequence) {
+        return (T) this.slots[(int) sequence & this.mask];
+    }
+}
@@ -0,0 +1,79 @@
+package com.challenge.authorizer.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Decides how a RingBuffer side waits while the ring is full, for producers, or empty, for consumers.
+ * Busy spinning gives the lowest latency but keeps a core busy per waiting stage, yielding lets other
+ * threads run, and parking backs off to short sleeps once spinning and yielding didn't help.
+ */
+public final class WaitStrategy {
+
+    private enum Mode { BUSY_SPIN, YIELD, PARK }
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+
+    private final Mode mode;
+    private final long parkNanos;
+
+    private WaitStrategy(Mode mode, long parkNanos) {
+
+        this.mode = mode;
+        this.parkNanos = parkNanos;
+    }
+
+    public static WaitStrategy busySpin() {
+        return new WaitStrategy(Mode.BUSY_SPIN, 0);
+    }
+
+    public static WaitStrategy yielding() {
+        return new WaitStrategy(Mode.YIELD, 0);
+    }
+
+    public static WaitStrategy parking(long parkMicros) {
+
+        if (parkMicros <= 0) {
+            throw new IllegalArgumentException("Park time must be positive: " + parkMicros);
+        }
+        return new WaitStrategy(Mode.PARK, TimeUnit.MICROSECONDS.toNanos(parkMicros));
+    }
+
+    /* Accepts "spin", "yield", "park" or "park:<micros>" */
+    public static WaitStrategy parse(String strategy) {
+
+        String[] parts = strategy.trim().split(":", 2);
+        switch (parts[0]) {
+            case "spin":
+                return busySpin();
+            case "yield":
+                return yielding();
+            case "park":
+                return parking(parts.length < 2 ? 50 : Long.parseLong(parts[1].trim()));
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + strategy);
+        }
+    }
+
+    /* Waits once, attempt counts the previous waits for the same slot */
+    void idle(int attempt) {
+
+        switch (mode) {
+            case BUSY_SPIN:
+                return;
+            case YIELD:
+                if (attempt >= SPINS) {
+                    Thread.yield();
+                }
+                return;
+            default:
+                if (attempt >= SPINS + YIELDS) {
+                    LockSupport.parkNanos(parkNanos);
+                }
+                else if (attempt >= SPINS) {
+                    Thread.yield();
+                }
+        }
+    }
+}
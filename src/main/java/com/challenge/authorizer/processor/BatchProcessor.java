@@ -0,0 +1,172 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.events.BinaryEventCodec;
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.metrics.AuthorizerMetrics;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.state.AccountDataStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Authorizes a JSON array of events in one pass, returning their outputs in the same order.
+ *
+ * Events are persisted in array order, then grouped by account, each group applied while holding its
+ * account lock once. Events of different accounts never depend on each other and each group keeps the
+ * array order, so outputs are the ones processing the events one by one gives. The applied sequence only
+ * moves once the whole batch is applied, so a snapshot never counts an event that is still to be applied.
+ * Redelivered events, by idempotency key, aren't parsed nor persisted: they get the output of the first
+ * delivery, from the cache or from earlier in the same batch. Not thread-safe, like the EventStore it writes to.
+ */
+public class BatchProcessor {
+
+    private final EventDecoder decoder;
+    private final BinaryEventCodec codec;
+
+    /* Null when redelivered events aren't dropped */
+    private IdempotencyCache idempotencyCache;
+
+    public BatchProcessor() {
+
+        this.decoder = new EventDecoder();
+        this.codec = new BinaryEventCodec();
+        this.idempotencyCache = IdempotencyCache.getInstance();
+    }
+
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    /* Outputs of the events, with null for events without one. Throws without applying anything when it's not an array */
+    public List<OutputModel> process(byte[] buffer, int offset, int length) throws IOException {
+
+        int[] bounds = this.decoder.splitArray(buffer, offset, length);
+        int count = bounds.length / 2;
+
+        Event[] events = new Event[count];
+        OutputModel[] outputs = new OutputModel[count];
+        List<Integer> order = new ArrayList<>(count);
+        long lastSequence = -1;
+
+        // Events repeating a key of the batch get the output of the first event with it, once applied
+        String[] keys = new String[count];
+        Map<String, Integer> firstWithKey = new HashMap<>();
+        int[] duplicateOf = new int[count];
+        Arrays.fill(duplicateOf, -1);
+
+        for (int i = 0; i < count; i++) {
+
+            if (this.idempotencyCache != null) {
+
+                keys[i] = this.decoder.readIdempotencyKey(buffer, bounds[2 * i], bounds[2 * i + 1]);
+                if (keys[i] != null && isDuplicate(keys[i], i, firstWithKey, duplicateOf, outputs)) {
+                    continue;
+                }
+            }
+
+            events[i] = EventProcessor.parseEvent(this.decoder, buffer, bounds[2 * i], bounds[2 * i + 1], null, null);
+
+            // Persist event on Event Store for future reprocessing
+            long sequence = EventProcessor.persist(this.codec, buffer, bounds[2 * i], bounds[2 * i + 1], events[i]);
+            lastSequence = Math.max(lastSequence, sequence);
+            if (events[i] != null) {
+
+                events[i].setSequence(sequence);
+                order.add(i);
+            }
+        }
+
+        // Stable, so each account keeps the array order
+        order.sort(Comparator.comparingLong(i -> events[i].getAccountId()));
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        int group = 0;
+        while (group < order.size()) {
+
+            long accountId = events[order.get(group)].getAccountId();
+            int end = group;
+            while (end < order.size() && events[order.get(end)].getAccountId() == accountId) {
+                end++;
+            }
+
+            // Events take the same lock again, which is free for its owner
+            synchronized (store.lockFor(accountId)) {
+
+                for (int i = group; i < end; i++) {
+
+                    int index = order.get(i);
+                    AuthorizationResult result = new AuthorizationResult();
+                    if (apply(events[index], result)) {
+
+                        outputs[index] = result.toOutputModel();
+                        if (keys[index] != null) {
+                            this.idempotencyCache.put(keys[index], result);
+                        }
+                    }
+                }
+            }
+            group = end;
+        }
+
+        if (lastSequence >= 0) {
+            store.setAppliedSequence(lastSequence);
+        }
+        for (int i = 0; i < count; i++) {
+            if (duplicateOf[i] >= 0) {
+                outputs[i] = outputs[duplicateOf[i]];
+            }
+        }
+        return count == 0 ? Collections.emptyList() : Arrays.asList(outputs);
+    }
+
+    /* Whether the key was seen before, filling the output right away when it's cached */
+    private boolean isDuplicate(String key, int index, Map<String, Integer> firstWithKey, int[] duplicateOf,
+                                OutputModel[] outputs) {
+
+        AuthorizationResult cached = this.idempotencyCache.get(key);
+        Integer first = cached == null ? firstWithKey.putIfAbsent(key, index) : null;
+        if (cached == null && first == null) {
+            return false;
+        }
+
+        AuthorizerMetrics.getInstance().duplicateDropped();
+        if (cached != null) {
+            outputs[index] = cached.toOutputModel();
+        }
+        else {
+            duplicateOf[index] = first;
+        }
+        return true;
+    }
+
+    /* Returns whether the event had an output */
+    private static boolean apply(Event event, AuthorizationResult result) {
+
+        AuthorizerMetrics metrics = AuthorizerMetrics.getInstance();
+        long start = System.nanoTime();
+        try {
+
+            if (!event.process(result)) {
+                return false;
+            }
+        } catch (ArithmeticException e) {
+
+            metrics.processError();
+            System.err.println("Error while trying to process event. Error: " + e);
+            return false;
+        }
+        finally {
+            metrics.getAuthorizeLatency().record(System.nanoTime() - start);
+        }
+        metrics.recordViolations(result.getViolations());
+        return true;
+    }
+}
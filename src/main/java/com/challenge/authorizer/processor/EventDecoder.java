@@ -0,0 +1,797 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.MerchantDictionary;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.state.AccountDataStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/*
+ * Single pass decoder for the JSON lines accepted on the input stream.
+ *
+ * It works directly over the raw bytes of a line, decides the event type from the first known
+ * field name and reads amounts and times into primitives, so no intermediate tree or model
+ * objects are built. Binary records of the BinaryEventCodec are told apart by their first byte and decoded
+ * without any text parsing. Instances keep the cursor as state and must not be shared between threads.
+ * A reusing decoder refills the same event instances on every call, so a returned event is only
+ * valid until the next one is decoded.
+ */
+public class EventDecoder {
+
+    private static final byte[] ACCOUNT = ascii("account");
+    private static final byte[] TRANSACTION = ascii("transaction");
+    private static final byte[] ACCOUNT_ID = ascii("account-id");
+    private static final byte[] ACTIVE_CARD = ascii("active-card");
+    private static final byte[] AVAILABLE_LIMIT = ascii("available-limit");
+    private static final byte[] MERCHANT = ascii("merchant");
+    private static final byte[] AMOUNT = ascii("amount");
+    private static final byte[] TIME = ascii("time");
+    private static final byte[] IDEMPOTENCY_KEY = ascii("idempotency-key");
+
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final int[] NANO_SCALE = {0, 100000000, 10000000, 1000000, 100000, 10000, 1000, 100, 10, 1};
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+
+    /* Field name bounds of the last name read, inside buffer */
+    private int nameStart;
+    private int nameEnd;
+
+    /* Holders refilled by a reusing decoder, null otherwise */
+    private final AccountCreationEvent accountCreationEvent;
+    private final TransactionAuthorizationEvent transactionAuthorizationEvent;
+
+    /* Holders filled by the current call, null to create new events */
+    private AccountCreationEvent accountHolder;
+    private TransactionAuthorizationEvent transactionHolder;
+
+    public EventDecoder() {
+
+        this(false);
+    }
+
+    public EventDecoder(boolean reuseEvents) {
+
+        this.accountCreationEvent = reuseEvents ? new AccountCreationEvent(null, null) : null;
+        this.transactionAuthorizationEvent = reuseEvents ? new TransactionAuthorizationEvent(null, null, null) : null;
+    }
+
+    public Event decode(byte[] buffer, int offset, int length) throws IOException {
+
+        return decode(buffer, offset, length, this.accountCreationEvent, this.transactionAuthorizationEvent);
+    }
+
+    /* Refills the given holders instead of the decoder's own, so callers can keep several decoded events at once */
+    public Event decode(byte[] buffer, int offset, int length, AccountCreationEvent accountHolder,
+                        TransactionAuthorizationEvent transactionHolder) throws IOException {
+
+        if (BinaryEventCodec.isRecord(buffer, offset, length)) {
+            return BinaryEventCodec.decode(buffer, offset, length, accountHolder, transactionHolder);
+        }
+
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+        this.accountHolder = accountHolder;
+        this.transactionHolder = transactionHolder;
+
+        try {
+
+            expect('{');
+            if (nextTokenIs('}')) {
+                return null;
+            }
+
+            do {
+
+                readFieldName();
+                if (fieldNameIs(ACCOUNT)) {
+                    return decodeAccount();
+                }
+                else if (fieldNameIs(TRANSACTION)) {
+                    return decodeTransaction();
+                }
+                skipValue();
+            }
+            while (nextFieldFollows());
+
+            return null;
+        }
+        finally {
+
+            this.buffer = null;
+            this.accountHolder = null;
+            this.transactionHolder = null;
+        }
+    }
+
+    /* Top level idempotency-key of a JSON line, read without decoding the event, null when it has none */
+    public String readIdempotencyKey(byte[] buffer, int offset, int length) {
+
+        if (BinaryEventCodec.isRecord(buffer, offset, length)) {
+            return null;
+        }
+
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+
+        try {
+
+            expect('{');
+            if (nextTokenIs('}')) {
+                return null;
+            }
+
+            do {
+
+                readFieldName();
+                if (fieldNameIs(IDEMPOTENCY_KEY)) {
+                    return readString();
+                }
+                skipValue();
+            }
+            while (nextFieldFollows());
+
+            return null;
+        }
+        catch (IOException e) {
+
+            // Malformed lines are reported when decoded
+            return null;
+        }
+        finally {
+            this.buffer = null;
+        }
+    }
+
+    /* Bounds of the elements of a JSON array, as offset and length pairs, without decoding them */
+    public int[] splitArray(byte[] buffer, int offset, int length) throws IOException {
+
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+
+        try {
+
+            int[] bounds = new int[32];
+            int count = 0;
+
+            expect('[');
+            if (!nextTokenIs(']')) {
+
+                do {
+
+                    skipWhitespace();
+                    int start = this.position;
+                    skipValue();
+                    if (count == bounds.length) {
+                        bounds = Arrays.copyOf(bounds, count * 2);
+                    }
+                    bounds[count++] = start;
+                    bounds[count++] = this.position - start;
+                }
+                while (nextTokenIs(','));
+                expect(']');
+            }
+
+            skipWhitespace();
+            if (this.position != this.limit) {
+                throw unexpected(current(), this.position);
+            }
+            return Arrays.copyOf(bounds, count);
+        }
+        finally {
+            this.buffer = null;
+        }
+    }
+
+    private Event decodeAccount() throws IOException {
+
+        long accountId = AccountDataStore.DEFAULT_ACCOUNT_ID;
+        Boolean activeCard = null;
+        Money availableLimit = null;
+
+        expect('{');
+        if (!nextTokenIs('}')) {
+
+            do {
+
+                readFieldName();
+                if (fieldNameIs(ACCOUNT_ID)) {
+                    accountId = readLong();
+                }
+                else if (fieldNameIs(ACTIVE_CARD)) {
+                    activeCard = readBoolean();
+                }
+                else if (fieldNameIs(AVAILABLE_LIMIT)) {
+                    availableLimit = readMoney();
+                }
+                else {
+                    skipValue();
+                }
+            }
+            while (nextFieldFollows());
+        }
+        if (this.accountHolder != null) {
+
+            this.accountHolder.set(accountId, activeCard, availableLimit);
+            return this.accountHolder;
+        }
+        return new AccountCreationEvent(accountId, activeCard, availableLimit);
+    }
+
+    private Event decodeTransaction() throws IOException {
+
+        long accountId = AccountDataStore.DEFAULT_ACCOUNT_ID;
+        int merchantId = MerchantDictionary.NO_MERCHANT;
+        Money amount = null;
+        Instant time = null;
+
+        expect('{');
+        if (!nextTokenIs('}')) {
+
+            do {
+
+                readFieldName();
+                if (fieldNameIs(ACCOUNT_ID)) {
+                    accountId = readLong();
+                }
+                else if (fieldNameIs(MERCHANT)) {
+                    merchantId = readMerchantId();
+                }
+                else if (fieldNameIs(AMOUNT)) {
+                    amount = readMoney();
+                }
+                else if (fieldNameIs(TIME)) {
+                    time = readInstant();
+                }
+                else {
+                    skipValue();
+                }
+            }
+            while (nextFieldFollows());
+        }
+        if (this.transactionHolder != null) {
+
+            this.transactionHolder.set(accountId, merchantId, amount, time);
+            return this.transactionHolder;
+        }
+        TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(null, null, null);
+        event.set(accountId, merchantId, amount, time);
+        return event;
+    }
+
+    /**** TOKENS ****/
+
+    private void readFieldName() throws IOException {
+
+        expect('"');
+        this.nameStart = this.position;
+        while (current() != '"') {
+
+            if (this.buffer[this.position] == '\\') {
+                this.position++;
+            }
+            this.position++;
+        }
+        this.nameEnd = this.position++;
+        expect(':');
+    }
+
+    private boolean fieldNameIs(byte[] name) {
+
+        if (this.nameEnd - this.nameStart != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+
+            if (this.buffer[this.nameStart + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nextFieldFollows() throws IOException {
+
+        skipWhitespace();
+        byte next = current();
+        this.position++;
+        if (next == ',') {
+            return true;
+        }
+        if (next == '}') {
+            return false;
+        }
+        throw unexpected(next, this.position - 1);
+    }
+
+    private Boolean readBoolean() throws IOException {
+
+        skipWhitespace();
+        if (readLiteral("true")) {
+            return Boolean.TRUE;
+        }
+        if (readLiteral("false")) {
+            return Boolean.FALSE;
+        }
+        if (readLiteral("null")) {
+            return null;
+        }
+        throw unexpected(current(), this.position);
+    }
+
+    private long readLong() throws IOException {
+
+        skipWhitespace();
+        int start = this.position;
+        boolean negative = current() == '-';
+        if (negative) {
+            this.position++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (this.position < this.limit && this.buffer[this.position] >= '0' && this.buffer[this.position] <= '9'
+                && digits < 18) {
+
+            value = value * 10 + (this.buffer[this.position++] - '0');
+            digits++;
+        }
+
+        if (digits > 0 && (this.position == this.limit || isNumberEnd(this.buffer[this.position]))) {
+            return negative ? -value : value;
+        }
+
+        /* Quoted, null, fractional or very long numbers */
+        this.position = start;
+        Money decimal = readMoney();
+        try {
+            return decimal == null ? AccountDataStore.DEFAULT_ACCOUNT_ID : decimal.toBigDecimal().longValueExact();
+        }
+        catch (ArithmeticException e) {
+            throw new IOException("Invalid integer at position " + start, e);
+        }
+    }
+
+    private static boolean isNumberEnd(byte c) {
+        return c == ',' || c == '}' || c == ']' || isWhitespace(c);
+    }
+
+    private Money readMoney() throws IOException {
+
+        skipWhitespace();
+        if (current() == '"') {
+            return parseDecimalFallback(readString());
+        }
+        if (readLiteral("null")) {
+            return null;
+        }
+
+        int start = this.position;
+        boolean negative = false;
+        if (current() == '-') {
+            negative = true;
+            this.position++;
+        }
+
+        long unscaled = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        boolean overflow = false;
+
+        while (this.position < this.limit) {
+
+            byte c = this.buffer[this.position];
+            if (c >= '0' && c <= '9') {
+
+                if (unscaled > (Long.MAX_VALUE - 9) / 10) {
+                    overflow = true;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            }
+            else if (c == '.' && !fraction) {
+                fraction = true;
+            }
+            else {
+                break;
+            }
+            this.position++;
+        }
+
+        if (digits == 0) {
+            throw unexpected(current(), this.position);
+        }
+
+        if (this.position < this.limit && (current() == 'e' || current() == 'E')) {
+
+            this.position++;
+            boolean negativeExponent = false;
+            if (current() == '+' || current() == '-') {
+                negativeExponent = this.buffer[this.position++] == '-';
+            }
+
+            int exponent = 0;
+            int exponentDigits = 0;
+            while (this.position < this.limit && this.buffer[this.position] >= '0' && this.buffer[this.position] <= '9') {
+
+                if (exponent > 100000) {
+                    overflow = true;
+                }
+                exponent = exponent * 10 + (this.buffer[this.position++] - '0');
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                throw unexpected(current(), this.position);
+            }
+            scale += negativeExponent ? exponent : -exponent;
+        }
+
+        /* Numbers that do not fit on a long are rare enough to take the slow path */
+        if (overflow) {
+            return parseDecimalFallback(new String(this.buffer, start, this.position - start, StandardCharsets.US_ASCII));
+        }
+        return Money.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private Money parseDecimalFallback(String number) throws IOException {
+
+        try {
+            return Money.parse(number.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid number '" + number + "'", e);
+        }
+        catch (ArithmeticException e) {
+            throw new IOException("Number out of range '" + number + "'", e);
+        }
+    }
+
+    private Instant readInstant() throws IOException {
+
+        skipWhitespace();
+        if (readLiteral("null")) {
+            return null;
+        }
+
+        expect('"');
+        int start = this.position;
+        Instant instant = parseIsoInstant(start);
+        if (instant != null) {
+            return instant;
+        }
+
+        /* Anything outside of the plain "yyyy-MM-ddTHH:mm:ss[.fraction]Z" layout goes through java.time */
+        this.position = start - 1;
+        String text = readString();
+        try {
+            return Instant.parse(text);
+        }
+        catch (DateTimeParseException e) {
+            throw new IOException("Invalid time '" + text + "'", e);
+        }
+    }
+
+    private Instant parseIsoInstant(int start) {
+
+        if (this.limit - start < 21
+                || this.buffer[start + 4] != '-' || this.buffer[start + 7] != '-' || this.buffer[start + 10] != 'T'
+                || this.buffer[start + 13] != ':' || this.buffer[start + 16] != ':') {
+            return null;
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = digits(start + 17, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        int cursor = start + 19;
+        int nanos = 0;
+        if (this.buffer[cursor] == '.') {
+
+            int fractionStart = ++cursor;
+            while (cursor < this.limit && cursor - fractionStart < 9
+                    && this.buffer[cursor] >= '0' && this.buffer[cursor] <= '9') {
+
+                nanos = nanos * 10 + (this.buffer[cursor++] - '0');
+            }
+            int fractionDigits = cursor - fractionStart;
+            if (fractionDigits == 0) {
+                return null;
+            }
+            nanos *= NANO_SCALE[fractionDigits];
+        }
+
+        if (cursor + 1 >= this.limit || this.buffer[cursor] != 'Z' || this.buffer[cursor + 1] != '"') {
+            return null;
+        }
+        this.position = cursor + 2;
+
+        long epochSecond = epochDay(year, month, day) * 86400L + hour * 3600L + minute * 60L + second;
+        return Instant.ofEpochSecond(epochSecond, nanos);
+    }
+
+    private String readString() throws IOException {
+
+        skipWhitespace();
+        if (readLiteral("null")) {
+            return null;
+        }
+
+        expect('"');
+        int start = this.position;
+        while (current() != '"') {
+
+            if (this.buffer[this.position] == '\\') {
+                return readEscapedString(start);
+            }
+            this.position++;
+        }
+        return new String(this.buffer, start, this.position++ - start, StandardCharsets.UTF_8);
+    }
+
+    /* Merchants without escapes are looked up by their bytes, known ones without building a String */
+    private int readMerchantId() throws IOException {
+
+        skipWhitespace();
+        if (readLiteral("null")) {
+            return MerchantDictionary.NO_MERCHANT;
+        }
+
+        expect('"');
+        int start = this.position;
+        while (current() != '"') {
+
+            if (this.buffer[this.position] == '\\') {
+                return MerchantDictionary.getInstance().idOf(readEscapedString(start));
+            }
+            this.position++;
+        }
+        return MerchantDictionary.getInstance().idOf(this.buffer, start, this.position++ - start);
+    }
+
+    private String readEscapedString(int start) throws IOException {
+
+        StringBuilder builder = new StringBuilder();
+        int segmentStart = start;
+
+        while (current() != '"') {
+
+            if (this.buffer[this.position] != '\\') {
+                this.position++;
+                continue;
+            }
+
+            builder.append(new String(this.buffer, segmentStart, this.position - segmentStart, StandardCharsets.UTF_8));
+            this.position++;
+            byte escaped = current();
+            this.position++;
+            switch (escaped) {
+                case '"': builder.append('"'); break;
+                case '\\': builder.append('\\'); break;
+                case '/': builder.append('/'); break;
+                case 'b': builder.append('\b'); break;
+                case 'f': builder.append('\f'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                case 't': builder.append('\t'); break;
+                case 'u': builder.append(readUnicodeEscape()); break;
+                default: throw unexpected(escaped, this.position - 1);
+            }
+            segmentStart = this.position;
+        }
+
+        builder.append(new String(this.buffer, segmentStart, this.position++ - segmentStart, StandardCharsets.UTF_8));
+        return builder.toString();
+    }
+
+    private char readUnicodeEscape() throws IOException {
+
+        if (this.limit - this.position < 4) {
+            throw new IOException("Unexpected end of event at position " + this.limit);
+        }
+
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+
+            int digit = Character.digit(this.buffer[this.position], 16);
+            if (digit < 0) {
+                throw unexpected(this.buffer[this.position], this.position);
+            }
+            value = (value << 4) | digit;
+            this.position++;
+        }
+        return (char) value;
+    }
+
+    private void skipValue() throws IOException {
+
+        skipWhitespace();
+        byte first = current();
+
+        if (first == '"') {
+            skipString();
+        }
+        else if (first == '{' || first == '[') {
+
+            int depth = 0;
+            do {
+
+                byte c = current();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                }
+                else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                this.position++;
+            }
+            while (depth > 0);
+        }
+        else {
+
+            int start = this.position;
+            while (this.position < this.limit) {
+
+                byte c = this.buffer[this.position];
+                if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    break;
+                }
+                this.position++;
+            }
+            if (this.position == start) {
+                throw unexpected(first, start);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+
+        this.position++;
+        while (current() != '"') {
+
+            if (this.buffer[this.position] == '\\') {
+                this.position++;
+            }
+            this.position++;
+        }
+        this.position++;
+    }
+
+    /**** CURSOR HELPERS ****/
+
+    private byte current() throws IOException {
+
+        if (this.position >= this.limit) {
+            throw new IOException("Unexpected end of event at position " + this.position);
+        }
+        return this.buffer[this.position];
+    }
+
+    private void expect(char expected) throws IOException {
+
+        skipWhitespace();
+        byte c = current();
+        if (c != expected) {
+            throw unexpected(c, this.position);
+        }
+        this.position++;
+    }
+
+    private boolean nextTokenIs(char expected) throws IOException {
+
+        skipWhitespace();
+        if (current() == expected) {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean readLiteral(String literal) {
+
+        int length = literal.length();
+        if (this.limit - this.position < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+
+            if (this.buffer[this.position + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        this.position += length;
+        return true;
+    }
+
+    private void skipWhitespace() {
+
+        while (this.position < this.limit && isWhitespace(this.buffer[this.position])) {
+            this.position++;
+        }
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private int digits(int start, int count) {
+
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+
+            byte c = this.buffer[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static IOException unexpected(byte c, int position) {
+        return new IOException("Unexpected character '" + (char) c + "' at position " + position);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**** CALENDAR ****/
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+
+        switch (month) {
+            case 2: return isLeapYear(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    /* Same arithmetic as LocalDate.toEpochDay, restricted to non negative years */
+    private static long epochDay(long year, long month, long day) {
+
+        long total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
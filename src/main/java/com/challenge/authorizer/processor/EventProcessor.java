@@ -1,83 +1,239 @@
 package com.challenge.authorizer.processor;
 
 import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
 import com.challenge.authorizer.events.Event;
 import com.challenge.authorizer.events.TransactionAuthorizationEvent;
-import com.challenge.authorizer.models.AccountModel;
-import com.challenge.authorizer.models.OutputModel;
-import com.challenge.authorizer.models.TransactionModel;
+import com.challenge.authorizer.metrics.AuthorizerMetrics;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.output.OutputSink;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventRecord;
 import com.challenge.authorizer.state.EventStore;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.json.JSONObject;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class EventProcessor {
 
-    private ObjectMapper mapper;
+    private EventDecoder decoder;
+    private BinaryEventCodec codec;
+    private OutputSink sink;
+
+    /* Null when redelivered events aren't dropped */
+    private IdempotencyCache idempotencyCache;
+
+    /* Filled by every event and written right away, like the events the decoder hands out */
+    private final AuthorizationResult result;
 
     public EventProcessor(){
 
-        this.mapper = new ObjectMapper();
+        this(new BufferedOutputSink(System.out, FlushPolicy.everyEvent()));
+    }
+
+    public EventProcessor(OutputSink sink){
+
+        this.decoder = new EventDecoder(true);
+        this.codec = new BinaryEventCodec();
+        this.sink = sink;
+        this.result = new AuthorizationResult();
+        this.idempotencyCache = IdempotencyCache.getInstance();
+    }
+
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
     }
 
     public Event parseEventString(String eventString){
 
-        try {
+        byte[] eventBytes = eventString.getBytes(StandardCharsets.UTF_8);
+        return parseEvent(eventBytes, 0, eventBytes.length);
+    }
 
-            JSONObject jsonFromString = new JSONObject(eventString);
+    /* The returned event is reused, it's only valid until the next call */
+    public Event parseEvent(byte[] buffer, int offset, int length){
 
-            // Assuming that input parsing errors will not happen, one of the nodes will be present
-            if(jsonFromString.has("account")) {
+        return parseEvent(this.decoder, buffer, offset, length, null, null);
+    }
 
-                AccountModel accountModel = mapper.readValue(eventString, AccountModel.class);
-                return new AccountCreationEvent(accountModel.account.activeCard, accountModel.account.availableLimit);
-            }
-            else if(jsonFromString.has("transaction")) {
+    /* Decodes into the holders when given, otherwise into the decoder's own events */
+    static Event parseEvent(EventDecoder decoder, byte[] buffer, int offset, int length,
+                            AccountCreationEvent accountHolder, TransactionAuthorizationEvent transactionHolder){
+
+        AuthorizerMetrics metrics = AuthorizerMetrics.getInstance();
+        long start = System.nanoTime();
+        try {
 
-                TransactionModel transactionModel = mapper.readValue(eventString, TransactionModel.class);
-                return new TransactionAuthorizationEvent(transactionModel.transaction.merchant,
-                        transactionModel.transaction.amount, transactionModel.transaction.time);
+            // Lines without an account or transaction node are decoded as null
+            if(accountHolder != null) {
+                return decoder.decode(buffer, offset, length, accountHolder, transactionHolder);
             }
+            return decoder.decode(buffer, offset, length);
         }
         catch (IOException e){
 
+            metrics.parseError();
             System.err.println("Error while trying to parse JSON string from stream. Error: " + e);
         }
+        finally {
+            metrics.getParseLatency().record(System.nanoTime() - start);
+        }
         return null;
     }
 
     public void process(String eventString, boolean reprocessing) {
 
+        byte[] eventBytes = eventString.getBytes(StandardCharsets.UTF_8);
+        process(eventBytes, 0, eventBytes.length, reprocessing);
+    }
+
+    /* The bytes are only read during the call, so they can come from a reused buffer */
+    public void process(byte[] buffer, int offset, int length, boolean reprocessing) {
+
+        // Redelivered events get their first output again, without being decoded or persisted twice
+        String idempotencyKey = null;
+        if(this.idempotencyCache != null && !reprocessing) {
+
+            idempotencyKey = this.decoder.readIdempotencyKey(buffer, offset, length);
+            AuthorizationResult previous = idempotencyKey == null ? null : this.idempotencyCache.get(idempotencyKey);
+            if(previous != null) {
+
+                AuthorizerMetrics.getInstance().duplicateDropped();
+                write(this.sink, previous);
+                return;
+            }
+        }
+
+        Event event = parseEvent(buffer, offset, length);
+
         // Persist event on Event Store for future reprocessing
+        long sequence = -1;
         if(!reprocessing) {
-            EventStore.getInstance().write(eventString);
+            sequence = persist(this.codec, buffer, offset, length, event);
         }
-        Event event = parseEventString(eventString);
+        if(this.write(event, sequence) && idempotencyKey != null) {
+            this.idempotencyCache.put(idempotencyKey, this.result);
+        }
+    }
 
-        if(event != null) {
+    /* Events are stored as binary records, so replaying them parses no text. Anything else is stored as it came */
+    static long persist(BinaryEventCodec codec, byte[] buffer, int offset, int length, Event event) {
 
-            OutputModel output = event.process();
+        if(event != null && !BinaryEventCodec.isRecord(buffer, offset, length)) {
 
             try {
 
-                System.out.println(mapper.writeValueAsString(output));
-            } catch (JsonProcessingException e) {
+                int recordLength = codec.encode(event);
+                return EventStore.getInstance().write(codec.getBuffer(), 0, recordLength);
+            } catch (IOException e) {
 
-                System.err.println("Error while trying to write JSON output string. Error: " + e);
+                // Values the records can't hold, the line is replayed from its text
             }
         }
+        return EventStore.getInstance().write(buffer, offset, length);
+    }
+
+    /* Returns whether the event had an output */
+    private boolean write(Event event, long sequence) {
+
+        if(event == null) {
+            markApplied(sequence);
+        }
+        else if(authorize(event, sequence, this.result)) {
+
+            write(this.sink, this.result);
+            return true;
+        }
+        return false;
+    }
+
+    /* Applies the event and fills the result, false when there is nothing to write */
+    static boolean authorize(Event event, long sequence, AuthorizationResult result) {
+
+        AuthorizerMetrics metrics = AuthorizerMetrics.getInstance();
+        event.setSequence(sequence);
+        boolean applied;
+        long start = System.nanoTime();
+        try {
+
+            applied = event.process(result);
+        } catch (ArithmeticException e) {
+
+            metrics.processError();
+            System.err.println("Error while trying to process event. Error: " + e);
+            return false;
+        }
+        finally {
+            metrics.getAuthorizeLatency().record(System.nanoTime() - start);
+        }
+        if(applied) {
+            metrics.recordViolations(result.getViolations());
+        }
+        markApplied(sequence);
+
+        // Events already applied before a snapshot have no output
+        return applied;
+    }
+
+    /* Lines that aren't events count as applied too, there is nothing left to do for them */
+    static void markApplied(long sequence) {
+
+        if(sequence >= 0) {
+            AccountDataStore.getInstance().setAppliedSequence(sequence);
+        }
+    }
+
+    static void write(OutputSink sink, AuthorizationResult result) {
+
+        AuthorizerMetrics metrics = AuthorizerMetrics.getInstance();
+        long start = System.nanoTime();
+        try {
+
+            sink.write(result);
+        } catch (IOException e) {
+
+            metrics.writeError();
+            System.err.println("Error while trying to write JSON output string. Error: " + e);
+        }
+        finally {
+            metrics.getSerializeLatency().record(System.nanoTime() - start);
+        }
+    }
+
+    public void flush() {
+
+        flush(this.sink);
+    }
+
+    static void flush(OutputSink sink) {
+
+        try {
+
+            sink.flush();
+        } catch (IOException e) {
+
+            AuthorizerMetrics.getInstance().writeError();
+            System.err.println("Error while trying to write JSON output string. Error: " + e);
+        }
     }
 
     public void reprocess(){
 
-        String eventString = EventStore.getInstance().nextEvent();
+        reprocess(Long.MAX_VALUE);
+    }
+
+    /* Replays the events from the read cursor up to the one before the given sequence */
+    public void reprocess(long untilSequence){
+
+        EventRecord record = new EventRecord();
 
-        while (eventString != null){
+        while (EventStore.getInstance().getReadSequence() < untilSequence && EventStore.getInstance().nextEvent(record)){
 
-            this.process(eventString, true);
-            eventString = EventStore.getInstance().nextEvent();
+            Event event = parseEvent(record.getBytes(), 0, record.getLength());
+            this.write(event, record.getSequence());
         }
+        this.flush();
     }
 }
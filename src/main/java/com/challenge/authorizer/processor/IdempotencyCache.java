@@ -0,0 +1,114 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.models.AuthorizationResult;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * Outputs of the events seen with an idempotency key, so a redelivered event gets the same output again
+ * without being decoded, persisted or authorized twice.
+ *
+ * Keys expire a fixed time after they were first seen, and past the maximum size the oldest keys are
+ * evicted first. As every key lives for the same time, insertion order is also expiry order, so both
+ * evictions only look at the head of the map.
+ *
+ * Upstream may redeliver on another connection or through another ingestion path, so the process keeps
+ * a single cache shared by all of them, guarded by its monitor.
+ */
+public class IdempotencyCache {
+
+    private static IdempotencyCache instance;
+    private static boolean configured;
+
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyCache(int maxKeys, long ttlMillis) {
+
+        this(maxKeys, ttlMillis, System::nanoTime);
+    }
+
+    IdempotencyCache(int maxKeys, long ttlMillis, LongSupplier clock) {
+
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttlMillis * 1000000L;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /* Cache of the process, set up with the authorizer.dedup.* system properties, null when deduplication is off */
+    public static synchronized IdempotencyCache getInstance() {
+
+        if (!configured) {
+
+            instance = fromProperties();
+            configured = true;
+        }
+        return instance;
+    }
+
+    private static IdempotencyCache fromProperties() {
+
+        long ttlSeconds = Long.getLong("authorizer.dedup.ttl-seconds", 0L);
+        if (ttlSeconds <= 0) {
+            return null;
+        }
+        return new IdempotencyCache(Integer.getInteger("authorizer.dedup.max-keys", 100000), ttlSeconds * 1000);
+    }
+
+    /* Output of the event first seen with the key, null when the key is unknown or expired. Never changed once cached */
+    public synchronized AuthorizationResult get(String key) {
+
+        evictExpired(this.clock.getAsLong());
+        Entry entry = this.entries.get(key);
+        return entry == null ? null : entry.result;
+    }
+
+    /* Keeps a copy of the output, the result given is usually refilled by the next event */
+    public synchronized void put(String key, AuthorizationResult result) {
+
+        long now = this.clock.getAsLong();
+        evictExpired(now);
+
+        Entry entry = new Entry(now + this.ttlNanos);
+        entry.result.copyFrom(result);
+        this.entries.remove(key);
+        this.entries.put(key, entry);
+
+        Iterator<Entry> oldest = this.entries.values().iterator();
+        while (this.entries.size() > this.maxKeys) {
+
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+
+        Iterator<Map.Entry<String, Entry>> oldest = this.entries.entrySet().iterator();
+        while (oldest.hasNext() && oldest.next().getValue().expiresAt - now <= 0) {
+            oldest.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        private final long expiresAt;
+        private final AuthorizationResult result;
+
+        private Entry(long expiresAt) {
+
+            this.expiresAt = expiresAt;
+            this.result = new AuthorizationResult();
+        }
+    }
+}
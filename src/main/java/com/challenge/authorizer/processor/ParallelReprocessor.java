@@ -0,0 +1,278 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.output.OutputSink;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventRecord;
+import com.challenge.authorizer.state.EventStore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Replays the EventStore on a fork-join pool, one batch of events at a time.
+ *
+ * The events of a batch are decoded in parallel chunks, then split in partitions by account id, and each
+ * partition applies its events in input order on its own task. Events on one account always fall on the
+ * same partition, so they keep their order, while accounts on different partitions only meet on the
+ * AccountDataStore lock stripes. Results are kept at their input position and written in order once the
+ * whole batch is applied, so the output matches the sequential replay.
+ */
+public class ParallelReprocessor {
+
+    private static final int DEFAULT_BATCH_SIZE = 1 << 14;
+    private static final int DECODE_CHUNK_SIZE = 512;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final OutputSink sink;
+    private final ForkJoinPool pool;
+    private final int partitions;
+    private final int batchSize;
+
+    /* Batch buffers, reused between batches */
+    private final byte[][] payloads;
+    private final int[] lengths;
+    private final long[] sequences;
+    private final Event[] events;
+    private final AuthorizationResult[] results;
+    private final boolean[] applied;
+
+    /* Per partition linked lists over the batch positions, in input order */
+    private final int[] partitionHeads;
+    private final int[] partitionTails;
+    private final int[] nextInPartition;
+
+    public ParallelReprocessor(OutputSink sink, ForkJoinPool pool) {
+
+        this(sink, pool, DEFAULT_BATCH_SIZE);
+    }
+
+    public ParallelReprocessor(OutputSink sink, ForkJoinPool pool, int batchSize) {
+
+        this.sink = sink;
+        this.pool = pool;
+        this.partitions = pool.getParallelism() * PARTITIONS_PER_THREAD;
+        this.batchSize = batchSize;
+
+        this.payloads = new byte[batchSize][];
+        this.lengths = new int[batchSize];
+        this.sequences = new long[batchSize];
+        this.events = new Event[batchSize];
+        this.results = new AuthorizationResult[batchSize];
+        this.applied = new boolean[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            this.results[i] = new AuthorizationResult();
+        }
+
+        this.partitionHeads = new int[this.partitions];
+        this.partitionTails = new int[this.partitions];
+        this.nextInPartition = new int[batchSize];
+    }
+
+    public ReprocessReport reprocess() {
+
+        long start = System.nanoTime();
+        long workNanos = 0;
+        long replayed = 0;
+
+        EventRecord record = new EventRecord();
+        while (true) {
+
+            long readStart = System.nanoTime();
+            int count = readBatch(record);
+            workNanos += System.nanoTime() - readStart;
+            if (count == 0) {
+                break;
+            }
+
+            workNanos += this.pool.invoke(new DecodeTask(0, count));
+
+            long partitionStart = System.nanoTime();
+            partition(count);
+            workNanos += System.nanoTime() - partitionStart;
+
+            workNanos += this.pool.invoke(new ApplyTask(0, this.partitions));
+
+            long writeStart = System.nanoTime();
+            writeBatch(count);
+            workNanos += System.nanoTime() - writeStart;
+            replayed += count;
+        }
+
+        long flushStart = System.nanoTime();
+        flush();
+        workNanos += System.nanoTime() - flushStart;
+
+        return new ReprocessReport(replayed, this.partitions, System.nanoTime() - start, workNanos);
+    }
+
+    private int readBatch(EventRecord record) {
+
+        int count = 0;
+        while (count < this.batchSize && EventStore.getInstance().nextEvent(record)) {
+
+            byte[] payload = this.payloads[count];
+            if (payload == null || payload.length < record.getLength()) {
+                payload = this.payloads[count] = new byte[Math.max(record.getLength(), 256)];
+            }
+            System.arraycopy(record.getBytes(), 0, payload, 0, record.getLength());
+            this.lengths[count] = record.getLength();
+            this.sequences[count] = record.getSequence();
+            count++;
+        }
+        return count;
+    }
+
+    private void partition(int count) {
+
+        Arrays.fill(this.partitionHeads, -1);
+        for (int i = 0; i < count; i++) {
+
+            Event event = this.events[i];
+            if (event == null) {
+                continue;
+            }
+
+            int partition = partitionOf(event.getAccountId());
+            this.nextInPartition[i] = -1;
+            if (this.partitionHeads[partition] < 0) {
+                this.partitionHeads[partition] = i;
+            }
+            else {
+                this.nextInPartition[this.partitionTails[partition]] = i;
+            }
+            this.partitionTails[partition] = i;
+        }
+    }
+
+    private int partitionOf(long accountId) {
+
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % this.partitions);
+    }
+
+    private void writeBatch(int count) {
+
+        for (int i = 0; i < count; i++) {
+
+            boolean applied = this.applied[i];
+            this.events[i] = null;
+            this.applied[i] = false;
+
+            // Events already applied before a snapshot have no output
+            if (!applied) {
+                continue;
+            }
+            try {
+
+                this.sink.write(this.results[i]);
+            } catch (IOException e) {
+
+                System.err.println("Error while trying to write JSON output string. Error: " + e);
+            }
+        }
+        AccountDataStore.getInstance().setAppliedSequence(this.sequences[count - 1]);
+    }
+
+    private void flush() {
+
+        try {
+
+            this.sink.flush();
+        } catch (IOException e) {
+
+            System.err.println("Error while trying to write JSON output string. Error: " + e);
+        }
+    }
+
+    /* Decodes a range of the batch, returning the time spent on it */
+    private class DecodeTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        DecodeTask(int from, int to) {
+
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+
+            if (to - from > DECODE_CHUNK_SIZE) {
+
+                int middle = (from + to) >>> 1;
+                DecodeTask left = new DecodeTask(from, middle);
+                left.fork();
+                long right = new DecodeTask(middle, to).compute();
+                return right + left.join();
+            }
+
+            long start = System.nanoTime();
+            EventDecoder decoder = new EventDecoder();
+            for (int i = from; i < to; i++) {
+
+                try {
+
+                    Event event = decoder.decode(payloads[i], 0, lengths[i]);
+                    if (event != null) {
+                        event.setSequence(sequences[i]);
+                    }
+                    events[i] = event;
+                }
+                catch (IOException e) {
+
+                    System.err.println("Error while trying to parse JSON string from stream. Error: " + e);
+                }
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
+    /* Applies the events of a range of partitions, returning the time spent on it */
+    private class ApplyTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ApplyTask(int from, int to) {
+
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+
+            if (to - from > 1) {
+
+                int middle = (from + to) >>> 1;
+                ApplyTask left = new ApplyTask(from, middle);
+                left.fork();
+                long right = new ApplyTask(middle, to).compute();
+                return right + left.join();
+            }
+
+            long start = System.nanoTime();
+            for (int i = partitionHeads[from]; i >= 0; i = nextInPartition[i]) {
+
+                try {
+
+                    applied[i] = events[i].process(results[i]);
+                } catch (ArithmeticException e) {
+
+                    System.err.println("Error while trying to process event. Error: " + e);
+                }
+            }
+            return System.nanoTime() - start;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.input.LineReader;
+import com.challenge.authorizer.metrics.AuthorizerMetrics;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.output.OutputSink;
+import com.challenge.authorizer.pipeline.RingBuffer;
+import com.challenge.authorizer.pipeline.WaitStrategy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Processes the input on four stages, each on its own thread: reading lines, persisting and parsing them,
+ * authorizing the events against the AccountDataStore and writing the outputs.
+ *
+ * Stages hand their work over on single producer single consumer RingBuffers, so reading and parsing the
+ * next events overlaps with the rules of the current one. Every stage handles one event at a time in input
+ * order, which keeps the EventStore sequences, the state changes and the outputs exactly as the EventProcessor
+ * produces them. The end of the input travels down the rings as a last slot marked as the end.
+ *
+ * Redelivered events are found on the parse stage, before being parsed or persisted, and answered with the
+ * output of their first delivery on the authorize stage, which caches outputs as it produces them.
+ */
+public class PipelinedProcessor {
+
+    private final OutputSink sink;
+    private final EventDecoder decoder;
+    private final BinaryEventCodec codec;
+
+    private final RingBuffer<LineSlot> lines;
+    private final RingBuffer<EventSlot> events;
+    private final RingBuffer<ResultSlot> results;
+
+    /* Null when redelivered events aren't dropped */
+    private IdempotencyCache idempotencyCache;
+
+    /* Keys seen by the parse stage whose output isn't cached yet */
+    private final Set<String> pendingKeys;
+
+    public PipelinedProcessor(OutputSink sink, int ringSize, WaitStrategy waitStrategy) {
+
+        this.sink = sink;
+        this.decoder = new EventDecoder();
+        this.codec = new BinaryEventCodec();
+        this.lines = new RingBuffer<>(ringSize, LineSlot::new, waitStrategy);
+        this.events = new RingBuffer<>(ringSize, EventSlot::new, waitStrategy);
+        this.results = new RingBuffer<>(ringSize, ResultSlot::new, waitStrategy);
+        this.idempotencyCache = IdempotencyCache.getInstance();
+        this.pendingKeys = ConcurrentHashMap.newKeySet();
+    }
+
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+    }
+
+    /* Processes every line until the input ends, returns once the outputs are flushed. Runs only once */
+    public void process(LineReader reader) {
+
+        Thread[] stages = {
+                start("read", () -> read(reader)),
+                start("parse", this::parse),
+                start("authorize", this::authorize)
+        };
+        runStage("write", this::write);
+
+        for (Thread stage : stages) {
+            try {
+
+                stage.join();
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                halt();
+                return;
+            }
+        }
+    }
+
+    /**** STAGES ****/
+
+    private void read(LineReader reader) {
+
+        while (true) {
+
+            boolean more;
+            try {
+
+                more = reader.readLine();
+            } catch (IOException e) {
+
+                System.err.println("Error while trying to read input stream. Error: " + e);
+                more = false;
+            }
+
+            LineSlot slot = this.lines.claim();
+            if (slot == null) {
+                return;
+            }
+            slot.end = !more;
+            if (more) {
+                slot.set(reader.getLine(), reader.getLength());
+            }
+            this.lines.publish();
+
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    private void parse() {
+
+        while (true) {
+
+            LineSlot line = this.lines.take();
+            EventSlot slot = line == null ? null : this.events.claim();
+            if (slot == null) {
+                return;
+            }
+
+            boolean end = line.end;
+            slot.end = end;
+            if (!end) {
+
+                slot.idempotencyKey = this.idempotencyCache == null ? null
+                        : this.decoder.readIdempotencyKey(line.bytes, 0, line.length);
+                slot.duplicate = slot.idempotencyKey != null && seen(slot.idempotencyKey);
+                if (slot.duplicate) {
+                    slot.event = null;
+                }
+                else {
+
+                    slot.event = EventProcessor.parseEvent(this.decoder, line.bytes, 0, line.length,
+                            slot.accountHolder, slot.transactionHolder);
+
+                    // Persist event on Event Store for future reprocessing
+                    slot.sequence = EventProcessor.persist(this.codec, line.bytes, 0, line.length, slot.event);
+                }
+            }
+            this.lines.release();
+            this.events.publish();
+
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    private void authorize() {
+
+        while (true) {
+
+            EventSlot event = this.events.take();
+            ResultSlot slot = event == null ? null : this.results.claim();
+            if (slot == null) {
+                return;
+            }
+
+            boolean end = event.end;
+            slot.end = end;
+            if (!end && event.duplicate) {
+                slot.write = answerDuplicate(event.idempotencyKey, slot.result);
+            }
+            else {
+
+                slot.write = !end && event.event != null && EventProcessor.authorize(event.event, event.sequence, slot.result);
+                if (!end && event.event == null) {
+                    EventProcessor.markApplied(event.sequence);
+                }
+                if (!end && event.idempotencyKey != null) {
+
+                    if (slot.write) {
+                        this.idempotencyCache.put(event.idempotencyKey, slot.result);
+                    }
+                    this.pendingKeys.remove(event.idempotencyKey);
+                }
+            }
+            this.events.release();
+            this.results.publish();
+
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    private void write() {
+
+        while (true) {
+
+            ResultSlot slot = this.results.take();
+            if (slot == null) {
+                return;
+            }
+
+            boolean end = slot.end;
+            if (slot.write) {
+                EventProcessor.write(this.sink, slot.result);
+            }
+            this.results.release();
+
+            if (end) {
+                EventProcessor.flush(this.sink);
+                return;
+            }
+        }
+    }
+
+    /**** REDELIVERIES ****/
+
+    /* Whether an event with the key was seen, checking pending keys first as they are only dropped once cached */
+    private boolean seen(String key) {
+
+        if (this.pendingKeys.contains(key) || this.idempotencyCache.get(key) != null) {
+            return true;
+        }
+        this.pendingKeys.add(key);
+        return false;
+    }
+
+    /* The first delivery was authorized before, being earlier on the rings */
+    private boolean answerDuplicate(String key, AuthorizationResult result) {
+
+        AuthorizationResult first = this.idempotencyCache.get(key);
+        if (first == null) {
+            return false;
+        }
+        AuthorizerMetrics.getInstance().duplicateDropped();
+        result.copyFrom(first);
+        return true;
+    }
+
+    /**** THREADS ****/
+
+    private Thread start(String name, Runnable stage) {
+
+        Thread thread = new Thread(() -> runStage(name, stage), "authorizer-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /* A failed stage would leave the others waiting on it forever, so it stops them all */
+    private void runStage(String name, Runnable stage) {
+
+        try {
+
+            stage.run();
+        } catch (RuntimeException | Error e) {
+
+            System.err.println("Error on the " + name + " stage of the pipeline. Error: " + e);
+            halt();
+        }
+    }
+
+    private void halt() {
+
+        this.lines.halt();
+        this.events.halt();
+        this.results.halt();
+    }
+
+    /**** SLOTS ****/
+
+    private static final class LineSlot {
+
+        private byte[] bytes = new byte[256];
+        private int length;
+        private boolean end;
+
+        private void set(byte[] line, int length) {
+
+            if (this.bytes.length < length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(length, this.bytes.length * 2));
+            }
+            System.arraycopy(line, 0, this.bytes, 0, length);
+            this.length = length;
+        }
+    }
+
+    private static final class EventSlot {
+
+        private final AccountCreationEvent accountHolder = new AccountCreationEvent(null, null);
+        private final TransactionAuthorizationEvent transactionHolder = new TransactionAuthorizationEvent(null, null, null);
+        private Event event;
+        private long sequence;
+        private String idempotencyKey;
+        private boolean duplicate;
+        private boolean end;
+    }
+
+    private static final class ResultSlot {
+
+        private final AuthorizationResult result = new AuthorizationResult();
+        private boolean write;
+        private boolean end;
+    }
+}
@@ -0,0 +1,53 @@
+package com.challenge.authorizer.processor;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Timings of a parallel replay. The work time adds up what every thread spent reading, decoding, applying
+ * and writing events, and the utilization is the work time over the elapsed time, the average number of busy
+ * threads. It is not a speedup over the sequential replay: contention on the lock stripes and cache misses
+ * make the same events take longer on parallel threads than on one.
+ */
+public class ReprocessReport {
+
+    private final long events;
+    private final int partitions;
+    private final long elapsedNanos;
+    private final long workNanos;
+
+    public ReprocessReport(long events, int partitions, long elapsedNanos, long workNanos) {
+
+        this.events = events;
+        this.partitions = partitions;
+        this.elapsedNanos = elapsedNanos;
+        this.workNanos = workNanos;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getWorkNanos() {
+        return workNanos;
+    }
+
+    public double getUtilization() {
+        return elapsedNanos == 0 ? 1.0 : (double) workNanos / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("Reprocessed %d events on %d partitions in %d ms (%d ms of work), %.2f threads busy on average",
+                events, partitions, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                TimeUnit.NANOSECONDS.toMillis(workNanos), getUtilization());
+    }
+}
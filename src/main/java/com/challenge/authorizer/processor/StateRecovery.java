@@ -0,0 +1,115 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.output.DiscardingOutputSink;
+import com.challenge.authorizer.output.OutputSink;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import com.challenge.authorizer.state.SnapshotStore;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Rebuilds the AccountDataStore from the latest snapshot plus the events persisted after it, or only from
+ * the events after the ones applied to accounts kept on a mapped account file. Outputs of replayed events
+ * were already written by the run that persisted them, so they are discarded.
+ *
+ * Incident replays start from a given sequence or event time instead: the accounts are rebuilt as they
+ * were before that point, from the latest snapshot before it plus the events in between, and only the
+ * outputs from that point on are written. Accounts kept on a mapped file are left as they are, replays
+ * rebuild theirs on the heap.
+ */
+public class StateRecovery {
+
+    private final SnapshotStore snapshots;
+    private final int parallelism;
+
+    public StateRecovery(SnapshotStore snapshots) {
+
+        this(snapshots, 1);
+    }
+
+    /* A parallelism above one replays on a fork-join pool, partitioned by account */
+    public StateRecovery(SnapshotStore snapshots, int parallelism) {
+
+        this.snapshots = snapshots;
+        this.parallelism = parallelism;
+    }
+
+    /* Returns the number of events replayed, failing when the EventStore doesn't hold the events the accounts are at */
+    public long recover() throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        long replayFrom;
+        long persisted = store.getPersistedAppliedSequence();
+        if (persisted >= 0) {
+
+            /* Accounts kept on the mapped account file, only the events after them are replayed */
+            store.setAppliedSequence(persisted);
+            replayFrom = persisted + 1;
+        }
+        else {
+
+            store.resetState();
+            replayFrom = this.snapshots.restoreLatest(store);
+        }
+
+        /* Accounts ahead of the log would take its next events as applied already */
+        long nextSequence = EventStore.getInstance().getNextSequence();
+        if (replayFrom > nextSequence) {
+            throw new IllegalStateException("Accounts were recovered up to sequence " + (replayFrom - 1)
+                    + " but the EventStore ends before " + nextSequence + ", it is not the log they were built from");
+        }
+        EventStore.getInstance().seek(replayFrom);
+
+        if (this.parallelism > 1) {
+
+            ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+            try {
+
+                ReprocessReport report = new ParallelReprocessor(new DiscardingOutputSink(), pool).reprocess();
+                System.err.println(report);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+        else {
+            new EventProcessor(new DiscardingOutputSink()).reprocess();
+        }
+        return EventStore.getInstance().getNextSequence() - replayFrom;
+    }
+
+    /* Replays the events from the first one at or after the given time, returning the sequence replayed from */
+    public long replayFrom(Instant time, OutputSink sink) throws IOException {
+
+        return replayFrom(EventStore.getInstance().seekToTime(time), sink);
+    }
+
+    /* Replays the events from the given sequence on, writing their outputs to the sink */
+    public long replayFrom(long sequence, OutputSink sink) throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        if (store.isDurable()) {
+
+            /* The mapped accounts are the state of the last run, replays rebuild their own on the heap */
+            System.err.println("Replaying on heap accounts, the mapped account file is left as it is");
+            store.useTransientTable();
+        }
+        store.resetState();
+
+        EventStore events = EventStore.getInstance();
+        long restoredFrom = this.snapshots.restoreBefore(store, sequence);
+        events.seek(restoredFrom);
+        if (events.getReadSequence() > restoredFrom) {
+            System.err.println("Events from " + restoredFrom + " to " + events.getReadSequence()
+                    + " were compacted, accounts are rebuilt without them");
+        }
+        new EventProcessor(new DiscardingOutputSink()).reprocess(sequence);
+
+        events.seek(sequence);
+        new EventProcessor(sink).reprocess();
+        return sequence;
+    }
+}
@@ -0,0 +1,21 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+
+public class CardNotActiveRule implements Rule {
+
+    @Override
+    public ViolationEnum getViolation() {
+        return ViolationEnum.CARD_NOT_ACTIVE;
+    }
+
+    @Override
+    public int getInputs() {
+        return RuleInput.CARD.getMask();
+    }
+
+    @Override
+    public boolean isViolated(RuleContext context) {
+        return context.getAccount().checkCardNotActiveViolation();
+    }
+}
@@ -0,0 +1,21 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+
+public class DoubledTransactionRule implements Rule {
+
+    @Override
+    public ViolationEnum getViolation() {
+        return ViolationEnum.DOUBLED_TRANSACTION;
+    }
+
+    @Override
+    public int getInputs() {
+        return RuleInput.SIMILAR_TRANSACTIONS.getMask();
+    }
+
+    @Override
+    public boolean isViolated(RuleContext context) {
+        return context.getAccount().checkDoubledTransaction(context.getSimilarTransactionsOnInterval());
+    }
+}
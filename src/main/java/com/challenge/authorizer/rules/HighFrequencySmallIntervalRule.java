@@ -0,0 +1,21 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+
+public class HighFrequencySmallIntervalRule implements Rule {
+
+    @Override
+    public ViolationEnum getViolation() {
+        return ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL;
+    }
+
+    @Override
+    public int getInputs() {
+        return RuleInput.INTERVAL.getMask();
+    }
+
+    @Override
+    public boolean isViolated(RuleContext context) {
+        return context.getAccount().checkHighFrequencySmallIntervalViolation(context.getTransactionsOnInterval());
+    }
+}
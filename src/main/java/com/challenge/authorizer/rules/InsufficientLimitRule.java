@@ -0,0 +1,21 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+
+public class InsufficientLimitRule implements Rule {
+
+    @Override
+    public ViolationEnum getViolation() {
+        return ViolationEnum.INSUFFICIENT_LIMIT;
+    }
+
+    @Override
+    public int getInputs() {
+        return RuleInput.LIMIT.getMask();
+    }
+
+    @Override
+    public boolean isViolated(RuleContext context) {
+        return context.getAccount().checkInsufficientLimitViolation(context.getEvent());
+    }
+}
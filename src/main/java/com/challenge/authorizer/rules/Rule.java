@@ -0,0 +1,23 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.enums.ViolationEnum;
+
+/*
+ * Business rule checked on every transaction of an account. Rules read what they need from the RuleContext,
+ * which computes each input at most once per transaction and only when a rule asks for it.
+ */
+public interface Rule {
+
+    /* Violation reported when the rule doesn't hold */
+    ViolationEnum getViolation();
+
+    /* Inputs read by the rule, as a bitmask of RuleInput masks */
+    int getInputs();
+
+    boolean isViolated(RuleContext context);
+
+    /* Relative cost of checking the rule, the RulePlan checks the cheapest ones first */
+    default int getCost() {
+        return RuleInput.costOf(getInputs());
+    }
+}
@@ -0,0 +1,67 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+
+/*
+ * Inputs of the rules for one transaction. Window counts are computed on first use and kept for the other
+ * rules of the same transaction. Instances are reused by the RulePlan, one per thread.
+ */
+public final class RuleContext {
+
+    private static final int NOT_COMPUTED = -1;
+
+    private Account account;
+    private TransactionAuthorizationEvent event;
+    private Transaction transaction;
+
+    private int transactionsOnInterval;
+    private int similarTransactionsOnInterval;
+
+    public RuleContext() {
+    }
+
+    public RuleContext(Account account, TransactionAuthorizationEvent event, Transaction transaction) {
+
+        reset(account, event, transaction);
+    }
+
+    void reset(Account account, TransactionAuthorizationEvent event, Transaction transaction) {
+
+        this.account = account;
+        this.event = event;
+        this.transaction = transaction;
+        this.transactionsOnInterval = NOT_COMPUTED;
+        this.similarTransactionsOnInterval = NOT_COMPUTED;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public TransactionAuthorizationEvent getEvent() {
+        return event;
+    }
+
+    /* The transaction as inserted on the account window */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public int getTransactionsOnInterval() {
+
+        if (this.transactionsOnInterval == NOT_COMPUTED) {
+            this.transactionsOnInterval = this.account.getTransactions().countInterval(this.transaction.getTimeMillis());
+        }
+        return this.transactionsOnInterval;
+    }
+
+    public int getSimilarTransactionsOnInterval() {
+
+        if (this.similarTransactionsOnInterval == NOT_COMPUTED) {
+            this.similarTransactionsOnInterval = this.account.getTransactions().countSimilarInInterval(this.transaction);
+        }
+        return this.similarTransactionsOnInterval;
+    }
+}
@@ -0,0 +1,37 @@
+package com.challenge.authorizer.rules;
+
+/* Inputs of the rules, with the relative cost of computing them */
+public enum RuleInput {
+
+    CARD(0),
+    LIMIT(1),
+    SIMILAR_TRANSACTIONS(2),
+    INTERVAL(4);
+
+    private final int cost;
+
+    RuleInput(int cost) {
+        this.cost = cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    /* Summed cost of the inputs on a bitmask */
+    public static int costOf(int inputs) {
+
+        int cost = 0;
+        for (RuleInput input : values()) {
+
+            if ((inputs & input.getMask()) != 0) {
+                cost += input.cost;
+            }
+        }
+        return cost;
+    }
+}
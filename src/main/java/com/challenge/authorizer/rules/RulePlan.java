@@ -0,0 +1,129 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.metrics.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Order the rules of a transaction are checked in, compiled once from a list of rules.
+ *
+ * Rules are sorted by the cost of their inputs, ties keeping the given order, and inputs are only computed
+ * when the first rule reading them runs. By default every rule is checked, as every violation is reported.
+ * When stopping at the first violation, the rules after it, and the inputs only they read, are skipped, so
+ * the output holds the cheapest violation instead of all of them. Timed plans record each rule latency.
+ */
+public final class RulePlan {
+
+    private static final RulePlan DEFAULT = compile(defaultRules(),
+            Boolean.getBoolean("authorizer.rules.stop-at-first-violation"),
+            Boolean.getBoolean("authorizer.rules.timing"));
+
+    private static final ThreadLocal<RuleContext> CONTEXT = ThreadLocal.withInitial(RuleContext::new);
+
+    private final Rule[] rules;
+    private final int[] masks;
+    private final boolean stopAtFirstViolation;
+
+    /* By position on the plan, null when the plan isn't timed */
+    private final LatencyHistogram[] latencies;
+
+    private RulePlan(Rule[] rules, boolean stopAtFirstViolation, boolean timed) {
+
+        this.rules = rules;
+        this.masks = new int[rules.length];
+        this.latencies = timed ? new LatencyHistogram[rules.length] : null;
+        for (int i = 0; i < rules.length; i++) {
+
+            this.masks[i] = rules[i].getViolation().getMask();
+            if (timed) {
+                this.latencies[i] = new LatencyHistogram();
+            }
+        }
+        this.stopAtFirstViolation = stopAtFirstViolation;
+    }
+
+    public static RulePlan compile(List<Rule> rules, boolean stopAtFirstViolation, boolean timed) {
+
+        Rule[] ordered = rules.toArray(new Rule[0]);
+        Arrays.sort(ordered, Comparator.comparingInt(Rule::getCost));
+        return new RulePlan(ordered, stopAtFirstViolation, timed);
+    }
+
+    /* Plan used by accounts, set up with the authorizer.rules.* system properties */
+    public static RulePlan getDefault() {
+        return DEFAULT;
+    }
+
+    /* The business rules, in report order */
+    public static List<Rule> defaultRules() {
+
+        return Arrays.asList(new CardNotActiveRule(), new InsufficientLimitRule(),
+                new HighFrequencySmallIntervalRule(), new DoubledTransactionRule());
+    }
+
+    /* Returns the violations as a bitmask of ViolationEnum masks */
+    public int evaluate(Account account, TransactionAuthorizationEvent event, Transaction transaction) {
+
+        RuleContext context = CONTEXT.get();
+        context.reset(account, event, transaction);
+        try {
+
+            return evaluate(context);
+        }
+        finally {
+            context.reset(null, null, null);
+        }
+    }
+
+    public int evaluate(RuleContext context) {
+
+        int violations = 0;
+        for (int i = 0; i < this.rules.length; i++) {
+
+            boolean violated;
+            if (this.latencies == null) {
+
+                violated = this.rules[i].isViolated(context);
+            }
+            else {
+
+                long start = System.nanoTime();
+                violated = this.rules[i].isViolated(context);
+                this.latencies[i].record(System.nanoTime() - start);
+            }
+
+            if (violated) {
+
+                violations |= this.masks[i];
+                if (this.stopAtFirstViolation) {
+                    break;
+                }
+            }
+        }
+        return violations;
+    }
+
+    /* Rules in the order they are checked */
+    public List<Rule> getRules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    public boolean isStopAtFirstViolation() {
+        return stopAtFirstViolation;
+    }
+
+    public boolean isTimed() {
+        return latencies != null;
+    }
+
+    /* Latency of the rule at the given position on the plan, null when the plan isn't timed */
+    public LatencyHistogram getLatency(int position) {
+        return latencies == null ? null : latencies[position];
+    }
+}
@@ -0,0 +1,136 @@
+package com.challenge.authorizer.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/*
+ * Long running mode that takes the same newline delimited events as stdin over TCP connections, replying
+ * each output line on the connection its event came from.
+ *
+ * Every connection is served by a single thread on a Selector, so events from all clients are applied one
+ * at a time in the order they are read, exactly like lines on stdin, against the same AccountDataStore and
+ * EventStore, which stay warm between requests.
+ */
+public class AuthorizerServer implements Closeable {
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+
+    private volatile boolean running;
+
+    public AuthorizerServer(InetSocketAddress address) throws IOException {
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        this.running = true;
+    }
+
+    /* Port the server listens on, useful when bound to port 0 */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /* Serves connections on the calling thread until the server is closed */
+    public void serve() throws IOException {
+
+        try {
+
+            while (this.running) {
+
+                this.selector.select();
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    }
+                    else {
+                        handle(key);
+                    }
+                }
+            }
+        }
+        finally {
+
+            for (SelectionKey key : this.selector.keys()) {
+                key.channel().close();
+            }
+            this.selector.close();
+        }
+    }
+
+    /* Stops serve(), it's safe to call from any thread */
+    @Override
+    public void close() {
+
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+
+        SocketChannel channel = this.serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(this.selector, SelectionKey.OP_READ, new Connection(channel));
+    }
+
+    private void handle(SelectionKey key) {
+
+        Connection connection = (Connection) key.attachment();
+        try {
+
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (connection.hasPendingOutput()) {
+                connection.write();
+            }
+
+            if (connection.isFinished()) {
+                disconnect(key, connection);
+            }
+            else {
+                key.interestOps(connection.interestOps());
+            }
+        }
+        catch (IOException e) {
+
+            System.err.println("Error while trying to serve connection. Error: " + e);
+            disconnect(key, connection);
+        }
+    }
+
+    private void disconnect(SelectionKey key, Connection connection) {
+
+        key.cancel();
+        try {
+
+            connection.getChannel().close();
+        }
+        catch (IOException e) {
+
+            System.err.println("Error while trying to close connection. Error: " + e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.challenge.authorizer.server;
+
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.processor.EventProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/*
+ * State of a client connection on the AuthorizerServer.
+ *
+ * Input is split in lines straight on the read buffer, every complete line is processed as soon as it
+ * arrives and its output is queued for the connection, so a client can send many events before reading
+ * any reply. A partial line waits on the buffer for the rest of it. Reading stops while too many outputs
+ * are waiting to be sent, which keeps a client that doesn't read from growing the queue without bound.
+ */
+final class Connection {
+
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+    private static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+
+    private final SocketChannel channel;
+    private final EventProcessor processor;
+
+    /* Both in write mode: received bytes not yet processed, outputs not yet sent */
+    private ByteBuffer input;
+    private ByteBuffer output;
+
+    /* Bytes at the start of input already known to hold no line break */
+    private int scanned;
+    private boolean inputEnded;
+
+    Connection(SocketChannel channel) {
+
+        this.channel = channel;
+        this.input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.output = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.processor = new EventProcessor(
+                new BufferedOutputSink(new PendingOutput(), FlushPolicy.atEndOfStream(), INITIAL_BUFFER_SIZE));
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /* Reads what is available and processes every complete line */
+    void read() throws IOException {
+
+        if (!this.input.hasRemaining()) {
+
+            if (this.input.capacity() >= MAX_LINE_LENGTH) {
+                throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+            }
+            this.input = grow(this.input, this.input.capacity() * 2);
+        }
+
+        if (this.channel.read(this.input) < 0) {
+
+            // The last line doesn't need a line break
+            this.inputEnded = true;
+            this.input.put((byte) '\n');
+        }
+        processLines();
+    }
+
+    /* Sends as much of the queued outputs as the socket takes */
+    void write() throws IOException {
+
+        this.output.flip();
+        this.channel.write(this.output);
+        this.output.compact();
+    }
+
+    boolean hasPendingOutput() {
+        return this.output.position() > 0;
+    }
+
+    /* The client closed its side and got every reply */
+    boolean isFinished() {
+        return this.inputEnded && !hasPendingOutput();
+    }
+
+    int interestOps() {
+
+        int ops = 0;
+        if (!this.inputEnded && this.output.position() < MAX_PENDING_OUTPUT) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (hasPendingOutput()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        return ops;
+    }
+
+    private void processLines() {
+
+        byte[] bytes = this.input.array();
+        int end = this.input.position();
+        int start = 0;
+
+        for (int i = this.scanned; i < end; i++) {
+
+            if (bytes[i] == '\n') {
+
+                int length = i - start;
+                if (length > 0 && bytes[start + length - 1] == '\r') {
+                    length--;
+                }
+                if (length > 0) {
+                    this.processor.process(bytes, start, length, false);
+                }
+                start = i + 1;
+            }
+        }
+        this.processor.flush();
+
+        this.input.flip();
+        this.input.position(start);
+        this.input.compact();
+        this.scanned = end - start;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    /* Where the processor's sink hands its bytes over */
+    private final class PendingOutput extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+
+            if (output.remaining() < length) {
+                output = grow(output, Math.max(output.position() + length, output.capacity() * 2));
+            }
+            output.put(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.challenge.authorizer.server;
+
+import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.processor.BatchProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * HTTP endpoint on the JDK server that takes a JSON array of events on POST /authorizations and answers
+ * the array of their outputs, null where an event has none, e.g. when it couldn't be parsed.
+ *
+ * Requests are handled one at a time on the server's dispatcher thread, each batch in one pass through a
+ * BatchProcessor, so the cost of a request is shared by all of its events.
+ */
+public class HttpBatchServer implements Closeable {
+
+    public static final String PATH = "/authorizations";
+
+    private final HttpServer server;
+    private final BatchProcessor processor;
+    private final ObjectMapper mapper;
+    private final CountDownLatch stopped;
+
+    public HttpBatchServer(InetSocketAddress address) throws IOException {
+
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(PATH, this::handle);
+        this.processor = new BatchProcessor();
+        this.mapper = new ObjectMapper();
+        this.stopped = new CountDownLatch(1);
+    }
+
+    /* Port the server listens on, useful when bound to port 0 */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /* Serves requests until the server is closed */
+    public void serve() {
+
+        this.server.start();
+        try {
+
+            this.stopped.await();
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            close();
+        }
+    }
+
+    /* Stops serve(), it's safe to call from any thread */
+    @Override
+    public void close() {
+
+        this.server.stop(0);
+        this.stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        try {
+
+            if (!"POST".equals(exchange.getRequestMethod())) {
+
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "text/plain", "Only POST is supported".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            byte[] body = readBody(exchange.getRequestBody());
+            List<OutputModel> outputs;
+            try {
+
+                outputs = this.processor.process(body, 0, body.length);
+            } catch (IOException e) {
+
+                respond(exchange, 400, "text/plain", ("Expected a JSON array of events: " + e.getMessage())
+                        .getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            respond(exchange, 200, "application/json", this.mapper.writeValueAsBytes(outputs));
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+            body.write(chunk, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,16 +1,100 @@
 package com.challenge.authorizer.state;
 
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.AccountSnapshot;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/*
+ * Accounts by id, kept on the table picked with authorizer.accounts.store: heap (the default) keeps Account
+ * objects on a map, direct and mapped keep fixed layout records off the heap, mapped on a file that holds
+ * the accounts and the applied sequence across restarts.
+ */
 public class AccountDataStore {
 
+    /* Account used by events that don't carry an account id */
+    public static final long DEFAULT_ACCOUNT_ID = 0L;
+
+    private static final String STORE_PROPERTY = "authorizer.accounts.store";
+    private static final String FILE_PROPERTY = "authorizer.accounts.file";
+    private static final String CAPACITY_PROPERTY = "authorizer.accounts.capacity";
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int LOCK_STRIPE_BITS = 10;
+    private static final int LOCK_STRIPES = 1 << LOCK_STRIPE_BITS;
+
     private static AccountDataStore instance;
 
-    private Account account;
+    /* Only replaced before events are applied, see useTransientTable */
+    private volatile AccountTable accounts;
+
+    /* Events on the same account are serialized on one of these, events on other stripes never wait */
+    private final Object[] locks;
+
+    /* Every persisted event up to this sequence has been applied */
+    private volatile long appliedSequence = -1;
 
     private AccountDataStore(){
 
-        this.account = null;
+        this(createTable());
+    }
+
+    AccountDataStore(AccountTable accounts){
+
+        this.accounts = accounts;
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+        this.appliedSequence = accounts.getPersistedAppliedSequence();
+    }
+
+    private static AccountTable createTable() {
+
+        String store = System.getProperty(STORE_PROPERTY, "heap");
+        int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+        Path file = StoreDirectories.resolve(FILE_PROPERTY, "accounts.dat");
+
+        try {
+
+            switch (store) {
+                case "heap":
+                    return new HeapAccountTable();
+                case "direct":
+                    return OffHeapAccountTable.direct(capacity);
+                case "mapped":
+                    StoreDirectories.lockFile(file);
+                    return OffHeapAccountTable.mapped(file, capacity);
+                default:
+                    throw new IllegalArgumentException("Unknown account store " + store + ", expected heap, direct or mapped");
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not open account store at " + file, e);
+        }
+    }
+
+    /* Whether the accounts outlive the process, kept on a mapped file */
+    public boolean isDurable() {
+        return this.accounts.isDurable();
+    }
+
+    /*
+     * Moves the store onto an empty heap table, leaving a durable table and its file as they are. For runs
+     * that rebuild accounts of their own, such as incident replays, before any event is applied.
+     */
+    public void useTransientTable() {
+
+        replaceTable(new HeapAccountTable());
+    }
+
+    synchronized void replaceTable(AccountTable accounts) {
+
+        this.accounts = accounts;
+        this.appliedSequence = accounts.getPersistedAppliedSequence();
     }
 
     public static synchronized AccountDataStore getInstance() {
@@ -23,18 +107,108 @@ public class AccountDataStore {
 
     public Account getAccount() {
 
-        if(this.account != null) {
-            return this.account.copyAccount();
+        return getAccount(DEFAULT_ACCOUNT_ID);
+    }
+
+    /* Copy taken under the account lock, its transactions are its own */
+    public Account getAccount(long accountId) {
+
+        synchronized (lockFor(accountId)) {
+
+            return this.accounts.copy(accountId);
+        }
+    }
+
+    /* State published by the last event applied to the account, read without taking its lock */
+    public AccountSnapshot getSnapshot() {
+
+        return getSnapshot(DEFAULT_ACCOUNT_ID);
+    }
+
+    public AccountSnapshot getSnapshot(long accountId) {
+
+        if(this.accounts.publishesSnapshots()) {
+            return this.accounts.snapshot(accountId);
+        }
+        synchronized (lockFor(accountId)) {
+            return this.accounts.snapshot(accountId);
         }
-        return account;
+    }
+
+    /* The account to read and change while holding lockFor(accountId), handed back with writeBack once changed */
+    public Account getAccountForUpdate(long accountId) {
+
+        return this.accounts.getForUpdate(accountId);
+    }
+
+    /* Stores the changes made to an account taken with getAccountForUpdate, still holding its lock */
+    public void writeBack(long accountId, Account account) {
+
+        this.accounts.writeBack(accountId, account);
     }
 
     public void setAccount(Account account) {
-        this.account = account;
+
+        setAccount(DEFAULT_ACCOUNT_ID, account);
+    }
+
+    public void setAccount(long accountId, Account account) {
+
+        if(account != null) {
+            this.accounts.put(accountId, account);
+        }
+        else {
+            this.accounts.remove(accountId);
+        }
+    }
+
+    /* Lock to hold while reading, checking and writing back the state of an account */
+    public Object lockFor(long accountId) {
+
+        /* Fibonacci hashing spreads sequential ids over all the stripes */
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return this.locks[(int) (hash >>> (64 - LOCK_STRIPE_BITS))];
+    }
+
+    /* Copies of every account, each one taken under its lock, so events keep flowing while they are visited */
+    public void forEachAccountCopy(Consumer<Account> consumer) {
+
+        this.accounts.forEachId(accountId -> {
+
+            Account copy;
+            synchronized (lockFor(accountId)) {
+                copy = this.accounts.copy(accountId);
+            }
+            if (copy != null) {
+                consumer.accept(copy);
+            }
+        });
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public void setAppliedSequence(long appliedSequence) {
+
+        this.appliedSequence = appliedSequence;
+        this.accounts.persistAppliedSequence(appliedSequence);
+    }
+
+    /* Applied sequence the accounts were kept at by the previous run, -1 when they weren't kept */
+    public long getPersistedAppliedSequence() {
+        return this.accounts.getPersistedAppliedSequence();
+    }
+
+    public int size() {
+
+        return this.accounts.size();
     }
 
     public void resetState() {
 
-        setAccount(null);
+        this.accounts.clear();
+        this.appliedSequence = -1;
+        this.accounts.persistAppliedSequence(-1);
     }
 }
@@ -0,0 +1,47 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.AccountSnapshot;
+
+import java.util.function.LongConsumer;
+
+/*
+ * Storage behind the AccountDataStore. The store serializes the calls on one account through its lock
+ * stripes, so tables only need to keep their own structure safe between accounts.
+ */
+interface AccountTable {
+
+    /* The account to change while holding its lock, writeBack must be called once it changed */
+    Account getForUpdate(long accountId);
+
+    /* Account whose transactions aren't shared with the stored one */
+    Account copy(long accountId);
+
+    /* Latest state of the account, lock-free when the table publishes snapshots */
+    AccountSnapshot snapshot(long accountId);
+
+    /* Whether snapshots can be read without holding the account lock */
+    boolean publishesSnapshots();
+
+    void put(long accountId, Account account);
+
+    /* Stores the changes made to an account returned by getForUpdate */
+    void writeBack(long accountId, Account account);
+
+    void remove(long accountId);
+
+    /* Visits the ids of the accounts stored when called, without holding any table lock while visiting */
+    void forEachId(LongConsumer consumer);
+
+    int size();
+
+    void clear();
+
+    /* Whether the accounts outlive the process */
+    boolean isDurable();
+
+    /* Applied sequence kept with the accounts, -1 when the table doesn't outlive the process or holds none */
+    long getPersistedAppliedSequence();
+
+    void persistAppliedSequence(long appliedSequence);
+}
@@ -0,0 +1,346 @@
+package com.challenge.authorizer.state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * Sealed EventLog segment compressed in blocks of whole records, laid out as:
+ *
+ *   blocks   each block deflated on its own, holding the same records a raw segment holds
+ *   index    per block, the sequence of its first record, its offset, compressed and uncompressed lengths
+ *   footer   offset of the index, number of blocks and a magic number
+ *
+ * The index is sparse, one entry per block, so a reader seeks by inflating only the block holding the
+ * target sequence. Readers inflate the following blocks on a background thread, a few blocks ahead of
+ * the consumer.
+ */
+final class CompressedSegment {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x5A4C4F47;
+    private static final int HEADER_BYTES = 4;
+    private static final int ENTRY_BYTES = 24;
+    private static final int FOOTER_BYTES = 16;
+    private static final int READAHEAD_BLOCKS = 4;
+
+    private CompressedSegment() {}
+
+    /* Compresses the records of a raw segment into target, which only appears once complete */
+    static void compress(Path raw, long firstSequence, Path target) throws IOException {
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        MappedByteBuffer source;
+        try (FileChannel channel = FileChannel.open(raw, StandardOpenOption.READ)) {
+            source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer index = ByteBuffer.allocate(ENTRY_BYTES * 64);
+            byte[] block = new byte[BLOCK_SIZE];
+            byte[] compressed = new byte[BLOCK_SIZE];
+            int blockLength = 0;
+            int blocks = 0;
+            long blockSequence = firstSequence;
+            long sequence = firstSequence;
+            long offset = 0;
+
+            int position = 0;
+            while (true) {
+
+                int header = position + HEADER_BYTES <= source.limit() ? source.getInt(position) : 0;
+                int recordLength = header == 0 ? 0 : HEADER_BYTES + header - 1;
+
+                /* Records are never split, a block holds at least one whatever its size */
+                if (blockLength > 0 && (header == 0 || blockLength + recordLength > BLOCK_SIZE)) {
+
+                    int compressedLength = deflate(deflater, block, blockLength, compressed);
+                    if (compressedLength > compressed.length) {
+
+                        compressed = new byte[compressedLength];
+                        deflate(deflater, block, blockLength, compressed);
+                    }
+                    writeFully(out, ByteBuffer.wrap(compressed, 0, compressedLength));
+
+                    if (index.remaining() < ENTRY_BYTES) {
+                        index = ByteBuffer.allocate(index.capacity() * 2).put((ByteBuffer) index.flip());
+                    }
+                    index.putLong(blockSequence).putLong(offset).putInt(compressedLength).putInt(blockLength);
+                    offset += compressedLength;
+                    blocks++;
+                    blockLength = 0;
+                    blockSequence = sequence;
+                }
+                if (header == 0) {
+                    break;
+                }
+
+                if (block.length < recordLength) {
+                    block = Arrays.copyOf(block, recordLength);
+                }
+                ByteBuffer record = source.duplicate();
+                record.position(position);
+                record.get(block, blockLength, recordLength);
+                blockLength += recordLength;
+                position += recordLength;
+                sequence++;
+            }
+
+            index.flip();
+            writeFully(out, index);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            footer.putLong(offset).putInt(blocks).putInt(MAGIC).flip();
+            writeFully(out, footer);
+            out.force(true);
+        }
+        finally {
+
+            deflater.end();
+            MappedBuffers.unmap(source);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /* Returns the compressed length, which is larger than the target when it didn't fit */
+    private static int deflate(Deflater deflater, byte[] block, int length, byte[] target) {
+
+        deflater.reset();
+        deflater.setInput(block, 0, length);
+        deflater.finish();
+        int written = deflater.deflate(target);
+        if (deflater.finished()) {
+            return written;
+        }
+
+        int total = written;
+        byte[] spill = new byte[BLOCK_SIZE];
+        while (!deflater.finished()) {
+            total += deflater.deflate(spill);
+        }
+        return total;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Compressed segment ended before the data it indexes");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**** READING ****/
+
+    /* Reads records from the block holding a given sequence on, inflating blocks ahead on the executor */
+    static final class Reader implements Closeable {
+
+        private static final Block END = new Block(null, 0, null);
+
+        private final FileChannel channel;
+        private final long startSequence;
+        private final BlockingQueue<Block> blocks;
+        private final Future<?> readahead;
+
+        private Block block;
+        private int position;
+
+        Reader(Path file, long sequence, ExecutorService executor) throws IOException {
+
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+
+                long size = this.channel.size();
+                if (size < FOOTER_BYTES) {
+                    throw new IOException("Compressed segment " + file + " has no footer");
+                }
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+                readFully(this.channel, footer, size - FOOTER_BYTES);
+                long indexOffset = footer.getLong();
+                int count = footer.getInt();
+                if (footer.getInt() != MAGIC || indexOffset + (long) count * ENTRY_BYTES != size - FOOTER_BYTES) {
+                    throw new IOException("Compressed segment " + file + " is corrupted");
+                }
+
+                ByteBuffer index = ByteBuffer.allocate(count * ENTRY_BYTES);
+                readFully(this.channel, index, indexOffset);
+                int first = findBlock(index, count, sequence);
+                this.startSequence = first < count ? index.getLong(first * ENTRY_BYTES) : sequence;
+
+                this.blocks = new ArrayBlockingQueue<>(READAHEAD_BLOCKS);
+                this.readahead = executor.submit(() -> inflate(index, first, count));
+            }
+            catch (IOException | RuntimeException e) {
+
+                this.channel.close();
+                throw e;
+            }
+        }
+
+        /* Sequence of the first record the reader returns */
+        long getStartSequence() {
+            return startSequence;
+        }
+
+        /* Copies the next record into the given record, false once the segment ends */
+        boolean next(EventRecord record, long sequence) throws IOException {
+
+            while (true) {
+
+                if (this.block == null) {
+
+                    try {
+
+                        this.block = this.blocks.take();
+                    } catch (InterruptedException e) {
+
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while reading a compressed segment", e);
+                    }
+                    if (this.block.failure != null) {
+
+                        /* Keeps failing on the next calls */
+                        Block failed = this.block;
+                        this.blocks.offer(failed);
+                        this.block = null;
+                        throw new IOException("Could not inflate compressed segment", failed.failure);
+                    }
+                    this.position = 0;
+                }
+                if (this.block == END) {
+
+                    /* Stays at the end for the next calls */
+                    this.blocks.offer(END);
+                    this.block = null;
+                    return false;
+                }
+
+                if (this.position + HEADER_BYTES <= this.block.length) {
+
+                    byte[] data = this.block.data;
+                    int header = ((data[this.position] & 0xFF) << 24) | ((data[this.position + 1] & 0xFF) << 16)
+                            | ((data[this.position + 2] & 0xFF) << 8) | (data[this.position + 3] & 0xFF);
+                    int length = header - 1;
+                    record.set(data, this.position + HEADER_BYTES, length, sequence);
+                    this.position += HEADER_BYTES + length;
+                    return true;
+                }
+                this.block = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            this.readahead.cancel(true);
+            this.blocks.clear();
+            this.channel.close();
+        }
+
+        /* Last block starting at or before the sequence */
+        private static int findBlock(ByteBuffer index, int count, long sequence) {
+
+            int low = 0;
+            int high = count - 1;
+            int found = 0;
+            while (low <= high) {
+
+                int middle = (low + high) >>> 1;
+                if (index.getLong(middle * ENTRY_BYTES) <= sequence) {
+
+                    found = middle;
+                    low = middle + 1;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+
+        private void inflate(ByteBuffer index, int first, int count) {
+
+            Inflater inflater = new Inflater();
+            try {
+
+                for (int i = first; i < count; i++) {
+
+                    long offset = index.getLong(i * ENTRY_BYTES + 8);
+                    int compressedLength = index.getInt(i * ENTRY_BYTES + 16);
+                    int length = index.getInt(i * ENTRY_BYTES + 20);
+
+                    ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+                    readFully(this.channel, compressed, offset);
+                    byte[] data = new byte[length];
+                    inflater.reset();
+                    inflater.setInput(compressed.array(), 0, compressedLength);
+                    int inflated = 0;
+                    while (inflated < length && !inflater.finished()) {
+
+                        int read = inflater.inflate(data, inflated, length - inflated);
+                        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            throw new DataFormatException("Block " + i + " ended before its length");
+                        }
+                        inflated += read;
+                    }
+                    this.blocks.put(new Block(data, length, null));
+                }
+                this.blocks.put(END);
+            }
+            catch (InterruptedException e) {
+
+                // Closed by the consumer
+            }
+            catch (IOException | DataFormatException e) {
+
+                this.blocks.clear();
+                this.blocks.offer(new Block(null, 0, e));
+            }
+            finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static final class Block {
+
+        private final byte[] data;
+        private final int length;
+        private final Exception failure;
+
+        private Block(byte[] data, int length, Exception failure) {
+
+            this.data = data;
+            this.length = length;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,728 @@
+package com.challenge.authorizer.state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Append only log of raw events, split in fixed size segment files that are written and read through
+ * memory mappings.
+ *
+ * Each record is an int header holding the payload length plus one, followed by the payload. Segments are
+ * preallocated, so a zero header marks the end of the written data. Segment files are named after the
+ * sequence number of their first record, which lets the log reopen without reading sealed segments.
+ * Only the segment being written and the one being read are mapped at any time. Not thread-safe.
+ *
+ * When compressing, sealed segments are rewritten as CompressedSegments on a background thread as soon as
+ * the log rolls past them, and the raw file is deleted once the compressed one is complete. Reads of
+ * compressed segments seek through their block index and inflate ahead of the cursor.
+ *
+ * Every INDEX_INTERVAL events, a sparse index records the position of the event on its segment and the
+ * latest event time before it. Since that time never decreases along the log, seeking to a time is a
+ * binary search followed by a scan of less than an interval. The index is kept on its own file, and an
+ * index lost or behind the log is rebuilt from the events when the log reopens.
+ */
+public class EventLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPRESSED_SUFFIX = ".zlog";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String INDEX_FILE = "events.idx";
+    private static final int HEADER_BYTES = 4;
+    private static final int INDEX_INTERVAL = 1024;
+    private static final int INDEX_ENTRY_BYTES = 20;
+
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(daemon("event-log-compressor"));
+    private static final ExecutorService READAHEAD = Executors.newCachedThreadPool(daemon("event-log-readahead"));
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean compressSealed;
+    private final TimeExtractor timeExtractor;
+
+    /* First sequence number of each segment, in log order */
+    private final List<Long> segments;
+
+    /* Segments whose compressed file is complete, and the ones still being compressed */
+    private final Set<Long> compressed;
+    private final Map<Long, Future<?>> compressing;
+
+    private MappedByteBuffer writeBuffer;
+    private long nextSequence;
+
+    private MappedByteBuffer readBuffer;
+    private CompressedSegment.Reader readCompressed;
+    private int readSegment;
+    private long readSequence;
+
+    /* Sparse index, sequences of the entries, their position on the segment, -1 when unknown, and the latest time before them */
+    private long[] indexSequences;
+    private int[] indexPositions;
+    private long[] indexTimes;
+    private int indexSize;
+    private long latestTime;
+    private FileChannel indexChannel;
+    private final ByteBuffer indexEntry;
+
+    /* Time of an event, Long.MIN_VALUE when it has none */
+    public interface TimeExtractor {
+
+        long timeOf(byte[] event, int offset, int length);
+    }
+
+    public EventLog(Path directory, int segmentSize) throws IOException {
+        this(directory, segmentSize, false);
+    }
+
+    public EventLog(Path directory, int segmentSize, boolean compressSealed) throws IOException {
+        this(directory, segmentSize, compressSealed, null);
+    }
+
+    /* Without a time extractor, the log can still seek by sequence but not by time */
+    public EventLog(Path directory, int segmentSize, boolean compressSealed, TimeExtractor timeExtractor)
+            throws IOException {
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.compressSealed = compressSealed;
+        this.timeExtractor = timeExtractor;
+        this.segments = new ArrayList<>();
+        this.compressed = new HashSet<>();
+        this.compressing = new HashMap<>();
+        this.indexSequences = new long[64];
+        this.indexPositions = new int[64];
+        this.indexTimes = new long[64];
+        this.latestTime = Long.MIN_VALUE;
+        this.indexEntry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+
+        Files.createDirectories(directory);
+        Set<Long> raw = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+
+            for (Path file : files) {
+
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+
+                    /* Left by a compression that didn't complete, the raw segment is still there */
+                    Files.deleteIfExists(file);
+                }
+                else if (name.endsWith(COMPRESSED_SUFFIX)) {
+                    this.compressed.add(Long.parseLong(name.substring(0, name.length() - COMPRESSED_SUFFIX.length())));
+                }
+                else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    raw.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+
+        /* A raw file next to a compressed one is left by a compression whose cleanup didn't happen */
+        for (Long segment : this.compressed) {
+            if (raw.remove(segment)) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        this.segments.addAll(raw);
+        this.segments.addAll(this.compressed);
+        Collections.sort(this.segments);
+
+        if (this.segments.isEmpty()) {
+
+            openSegment(0L);
+            openIndex();
+        }
+        else {
+
+            reopenLastSegment();
+            openIndex();
+            if (compressSealed) {
+                for (int i = 0; i < this.segments.size() - 1; i++) {
+                    if (!this.compressed.contains(this.segments.get(i))) {
+                        compress(this.segments.get(i));
+                    }
+                }
+            }
+        }
+        rewind();
+    }
+
+    /* Appends an event and returns its sequence number */
+    public long append(byte[] event, int offset, int length) throws IOException {
+
+        if (length > this.segmentSize - HEADER_BYTES) {
+            throw new IOException("Event of " + length + " bytes doesn't fit on a log segment of " + this.segmentSize);
+        }
+        if (this.writeBuffer.remaining() < HEADER_BYTES + length) {
+            roll();
+        }
+
+        /* Header goes last, so a record is only visible once its payload is complete */
+        int position = this.writeBuffer.position();
+        this.writeBuffer.position(position + HEADER_BYTES);
+        this.writeBuffer.put(event, offset, length);
+        this.writeBuffer.putInt(position, length + 1);
+
+        long sequence = this.nextSequence++;
+        if (sequence % INDEX_INTERVAL == 0) {
+            writeIndexEntry(sequence, position);
+        }
+        if (this.timeExtractor != null) {
+            this.latestTime = Math.max(this.latestTime, this.timeExtractor.timeOf(event, offset, length));
+        }
+        return sequence;
+    }
+
+    /* Copies the event under the read cursor into the record and moves past it, false once the cursor reaches the end */
+    public boolean readNext(EventRecord record) throws IOException {
+
+        while (true) {
+
+            if (this.readBuffer == null && this.readCompressed == null) {
+                openReadSegment(this.readSequence);
+            }
+
+            if (this.readCompressed != null) {
+
+                if (this.readCompressed.next(record, this.readSequence)) {
+
+                    this.readSequence++;
+                    return true;
+                }
+
+                /* Compressed segments are always sealed, there is a next one */
+                closeReadCompressed();
+                this.readSegment++;
+                continue;
+            }
+
+            int position = this.readBuffer.position();
+            int header = position + HEADER_BYTES <= this.readBuffer.limit() ? this.readBuffer.getInt(position) : 0;
+            if (header != 0) {
+
+                int length = header - 1;
+                record.set(this.readBuffer, position + HEADER_BYTES, length, this.readSequence++);
+                this.readBuffer.position(position + HEADER_BYTES + length);
+                return true;
+            }
+
+            if (this.readSegment == this.segments.size() - 1) {
+                return false;
+            }
+            MappedBuffers.unmap(this.readBuffer);
+            this.readBuffer = null;
+            this.readSegment++;
+        }
+    }
+
+    public void rewind() {
+
+        MappedBuffers.unmap(this.readBuffer);
+        this.readBuffer = null;
+        closeReadCompressed();
+        this.readSegment = 0;
+        this.readSequence = this.segments.get(0);
+    }
+
+    /* Moves the read cursor to the event with the given sequence, or to the first event kept when it was compacted */
+    public void seek(long sequence) throws IOException {
+
+        rewind();
+        int segment = Collections.binarySearch(this.segments, sequence);
+        this.readSegment = segment >= 0 ? segment : Math.max(0, -segment - 2);
+        this.readSequence = this.segments.get(this.readSegment);
+
+        /* Compressed segments start reading at the block holding the sequence, raw ones at the closest index entry */
+        openReadSegment(sequence);
+        int entry = findIndexEntry(sequence);
+        if (this.readBuffer != null && entry >= 0 && this.indexSequences[entry] > this.readSequence
+                && this.indexPositions[entry] >= 0) {
+
+            this.readBuffer.position(this.indexPositions[entry]);
+            this.readSequence = this.indexSequences[entry];
+        }
+
+        EventRecord skipped = new EventRecord();
+        while (this.readSequence < sequence && readNext(skipped)) {
+            // Moving forward inside the segment
+        }
+    }
+
+    /* Moves the read cursor to the first event, in log order, with a time at or after the given one and returns its sequence */
+    public long seekToTime(long time) throws IOException {
+
+        if (this.timeExtractor == null) {
+            throw new IllegalStateException("Event log has no time extractor");
+        }
+
+        /* Last entry with only earlier events before it, the event looked for is before the next entry */
+        int low = 0;
+        int high = this.indexSize - 1;
+        int found = -1;
+        while (low <= high) {
+
+            int middle = (low + high) >>> 1;
+            if (this.indexTimes[middle] < time) {
+
+                found = middle;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        seek(found >= 0 ? this.indexSequences[found] : getFirstSequence());
+
+        EventRecord record = new EventRecord();
+        while (readNext(record)) {
+
+            if (this.timeExtractor.timeOf(record.getBytes(), 0, record.getLength()) >= time) {
+
+                seek(record.getSequence());
+                return record.getSequence();
+            }
+        }
+        return this.readSequence;
+    }
+
+    /* Deletes the sealed segments holding only events before the given sequence */
+    public void deleteSegmentsBefore(long sequence) throws IOException {
+
+        int deleted = 0;
+        while (deleted < this.segments.size() - 1 && this.segments.get(deleted + 1) <= sequence) {
+            deleted++;
+        }
+        if (deleted == 0) {
+            return;
+        }
+
+        boolean readingDeleted = this.readSegment < deleted;
+        if (readingDeleted) {
+
+            MappedBuffers.unmap(this.readBuffer);
+            this.readBuffer = null;
+            closeReadCompressed();
+        }
+        for (int i = 0; i < deleted; i++) {
+            deleteSegment(this.segments.get(i));
+        }
+        this.segments.subList(0, deleted).clear();
+
+        if (readingDeleted) {
+
+            this.readSegment = 0;
+            this.readSequence = this.segments.get(0);
+        }
+        else {
+            this.readSegment -= deleted;
+        }
+
+        int kept = findIndexEntry(getFirstSequence() - 1) + 1;
+        if (kept > 0) {
+
+            System.arraycopy(this.indexSequences, kept, this.indexSequences, 0, this.indexSize - kept);
+            System.arraycopy(this.indexPositions, kept, this.indexPositions, 0, this.indexSize - kept);
+            System.arraycopy(this.indexTimes, kept, this.indexTimes, 0, this.indexSize - kept);
+            this.indexSize -= kept;
+            rewriteIndex();
+        }
+    }
+
+    /* Sequence number of the oldest event kept */
+    public long getFirstSequence() {
+        return segments.get(0);
+    }
+
+    /* Sequence number the next appended event will get */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /* Sequence number of the next event the read cursor will return */
+    public long getReadSequence() {
+        return readSequence;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /* Number of segments whose compressed file is complete */
+    public int getCompressedSegmentCount() {
+
+        collectCompressed();
+        return compressed.size();
+    }
+
+    /* Waits for the background compression of sealed segments */
+    public void awaitCompression() {
+
+        for (Future<?> pending : this.compressing.values()) {
+            await(pending);
+        }
+        collectCompressed();
+    }
+
+    /* Flushes written events to disk */
+    public void force() {
+        this.writeBuffer.force();
+    }
+
+    /* Deletes every segment and starts an empty log */
+    public void clear() throws IOException {
+
+        close();
+        for (Long segment : this.segments) {
+            deleteSegment(segment);
+        }
+        this.segments.clear();
+        this.indexSize = 0;
+        this.latestTime = Long.MIN_VALUE;
+        openSegment(0L);
+        openIndex();
+        rewind();
+    }
+
+    @Override
+    public void close() {
+
+        if (this.writeBuffer != null) {
+
+            this.writeBuffer.force();
+            MappedBuffers.unmap(this.writeBuffer);
+            this.writeBuffer = null;
+        }
+        MappedBuffers.unmap(this.readBuffer);
+        this.readBuffer = null;
+        closeReadCompressed();
+        awaitCompression();
+
+        if (this.indexChannel != null) {
+
+            try {
+                this.indexChannel.close();
+            }
+            catch (IOException e) {
+                System.err.println("Could not close event log index. Error: " + e);
+            }
+            this.indexChannel = null;
+        }
+    }
+
+    /**** SEGMENTS HANDLING ****/
+
+    private void roll() throws IOException {
+
+        this.writeBuffer.force();
+        MappedBuffers.unmap(this.writeBuffer);
+        long sealed = this.segments.get(this.segments.size() - 1);
+        openSegment(this.nextSequence);
+
+        collectCompressed();
+        if (this.compressSealed) {
+            compress(sealed);
+        }
+    }
+
+    /* Opens the segment under the read cursor, compressed ones from the block holding the sequence */
+    private void openReadSegment(long sequence) throws IOException {
+
+        long firstSequence = this.segments.get(this.readSegment);
+        collectCompressed();
+        if (this.compressed.contains(firstSequence)) {
+
+            this.readCompressed = new CompressedSegment.Reader(compressedPath(firstSequence), sequence, READAHEAD);
+            this.readSequence = this.readCompressed.getStartSequence();
+        }
+        else {
+            this.readBuffer = map(firstSequence, FileChannel.MapMode.READ_ONLY);
+        }
+    }
+
+    private void closeReadCompressed() {
+
+        if (this.readCompressed != null) {
+
+            try {
+                this.readCompressed.close();
+            }
+            catch (IOException e) {
+                System.err.println("Could not close compressed segment. Error: " + e);
+            }
+            this.readCompressed = null;
+        }
+    }
+
+    private void compress(long firstSequence) {
+
+        Path raw = segmentPath(firstSequence);
+        Path target = compressedPath(firstSequence);
+        this.compressing.put(firstSequence, COMPRESSOR.submit(() -> {
+            CompressedSegment.compress(raw, firstSequence, target);
+            return null;
+        }));
+    }
+
+    /* Switches the segments whose compression completed to their compressed file */
+    private void collectCompressed() {
+
+        Iterator<Map.Entry<Long, Future<?>>> pending = this.compressing.entrySet().iterator();
+        while (pending.hasNext()) {
+
+            Map.Entry<Long, Future<?>> entry = pending.next();
+            long firstSequence = entry.getKey();
+            boolean beingRead = this.readBuffer != null && this.segments.get(this.readSegment) == firstSequence;
+            if (!entry.getValue().isDone() || beingRead) {
+                continue;
+            }
+
+            pending.remove();
+            if (await(entry.getValue())) {
+
+                this.compressed.add(firstSequence);
+                try {
+                    Files.deleteIfExists(segmentPath(firstSequence));
+                }
+                catch (IOException e) {
+                    System.err.println("Could not delete compressed segment " + firstSequence + ". Error: " + e);
+                }
+            }
+        }
+    }
+
+    /* Returns whether the compression completed, a failed one leaves the raw segment in use */
+    private static boolean await(Future<?> pending) {
+
+        try {
+
+            pending.get();
+            return true;
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+
+            System.err.println("Could not compress log segment. Error: " + e.getCause());
+            return false;
+        }
+    }
+
+    private void deleteSegment(long firstSequence) throws IOException {
+
+        Future<?> pending = this.compressing.remove(firstSequence);
+        if (pending != null) {
+            await(pending);
+        }
+        this.compressed.remove(firstSequence);
+        Files.deleteIfExists(segmentPath(firstSequence));
+        Files.deleteIfExists(compressedPath(firstSequence));
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+
+        this.segments.add(firstSequence);
+        this.writeBuffer = map(firstSequence, FileChannel.MapMode.READ_WRITE);
+        this.nextSequence = firstSequence;
+    }
+
+    private void reopenLastSegment() throws IOException {
+
+        long firstSequence = this.segments.get(this.segments.size() - 1);
+        this.writeBuffer = map(firstSequence, FileChannel.MapMode.READ_WRITE);
+        this.nextSequence = firstSequence;
+
+        int position = 0;
+        while (position + HEADER_BYTES <= this.writeBuffer.limit()) {
+
+            int header = this.writeBuffer.getInt(position);
+            if (header == 0) {
+                break;
+            }
+            position += HEADER_BYTES + header - 1;
+            this.nextSequence++;
+        }
+        this.writeBuffer.position(position);
+    }
+
+    private MappedByteBuffer map(long firstSequence, FileChannel.MapMode mode) throws IOException {
+
+        Path path = segmentPath(firstSequence);
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_WRITE
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+
+        /* The mapping stays valid after the channel is closed */
+        try (FileChannel channel = FileChannel.open(path, options)) {
+
+            long size = mode == FileChannel.MapMode.READ_WRITE ? Math.max(channel.size(), this.segmentSize) : channel.size();
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    /**** INDEX HANDLING ****/
+
+    /* Loads the entries of the events kept, then indexes the events after the last one */
+    private void openIndex() throws IOException {
+
+        this.indexChannel = FileChannel.open(this.directory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long entries = this.indexChannel.size() / INDEX_ENTRY_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(entries * INDEX_ENTRY_BYTES, 1 << 20));
+        long position = 0;
+        boolean stale = entries * INDEX_ENTRY_BYTES != this.indexChannel.size();
+        this.indexSize = 0;
+        while (position < entries * INDEX_ENTRY_BYTES) {
+
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), entries * INDEX_ENTRY_BYTES - position));
+            while (buffer.hasRemaining() && this.indexChannel.read(buffer, position + buffer.position()) >= 0) {
+                // Reading the whole chunk
+            }
+            buffer.flip();
+            position += buffer.limit();
+
+            while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+
+                long sequence = buffer.getLong();
+                int entryPosition = buffer.getInt();
+                long time = buffer.getLong();
+                boolean ordered = this.indexSize == 0 || sequence > this.indexSequences[this.indexSize - 1];
+                if (sequence < getFirstSequence() || sequence >= this.nextSequence || !ordered) {
+
+                    stale = true;
+                    continue;
+                }
+                addIndexEntry(sequence, entryPosition, time);
+            }
+        }
+        if (stale) {
+            rewriteIndex();
+        }
+        this.indexChannel.position(this.indexSize * (long) INDEX_ENTRY_BYTES);
+
+        /* Events appended after the last entry, or every event when the index is new */
+        long from = this.indexSize > 0 ? this.indexSequences[this.indexSize - 1] : getFirstSequence();
+        this.latestTime = this.indexSize > 0 ? this.indexTimes[this.indexSize - 1] : Long.MIN_VALUE;
+        if (from < this.nextSequence) {
+
+            seek(from);
+            EventRecord record = new EventRecord();
+            while (readNext(record)) {
+
+                long sequence = record.getSequence();
+                if (sequence % INDEX_INTERVAL == 0 && (this.indexSize == 0 || sequence > this.indexSequences[this.indexSize - 1])) {
+
+                    int recordPosition = this.readBuffer == null ? -1
+                            : this.readBuffer.position() - HEADER_BYTES - record.getLength();
+                    writeIndexEntry(sequence, recordPosition);
+                }
+                if (this.timeExtractor != null) {
+                    this.latestTime = Math.max(this.latestTime,
+                            this.timeExtractor.timeOf(record.getBytes(), 0, record.getLength()));
+                }
+            }
+        }
+    }
+
+    private void writeIndexEntry(long sequence, int position) throws IOException {
+
+        addIndexEntry(sequence, position, this.latestTime);
+        this.indexEntry.clear();
+        this.indexEntry.putLong(sequence).putInt(position).putLong(this.latestTime).flip();
+        while (this.indexEntry.hasRemaining()) {
+            this.indexChannel.write(this.indexEntry);
+        }
+    }
+
+    private void addIndexEntry(long sequence, int position, long time) {
+
+        if (this.indexSize == this.indexSequences.length) {
+
+            this.indexSequences = Arrays.copyOf(this.indexSequences, this.indexSize * 2);
+            this.indexPositions = Arrays.copyOf(this.indexPositions, this.indexSize * 2);
+            this.indexTimes = Arrays.copyOf(this.indexTimes, this.indexSize * 2);
+        }
+        this.indexSequences[this.indexSize] = sequence;
+        this.indexPositions[this.indexSize] = position;
+        this.indexTimes[this.indexSize] = time;
+        this.indexSize++;
+    }
+
+    /* Replaces the index file with the entries in memory */
+    private void rewriteIndex() throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(this.indexSize * INDEX_ENTRY_BYTES);
+        for (int i = 0; i < this.indexSize; i++) {
+            buffer.putLong(this.indexSequences[i]).putInt(this.indexPositions[i]).putLong(this.indexTimes[i]);
+        }
+        buffer.flip();
+
+        this.indexChannel.truncate(0);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += this.indexChannel.write(buffer, position);
+        }
+        this.indexChannel.position(position);
+    }
+
+    /* Last entry at or before the sequence, -1 when there is none */
+    private int findIndexEntry(long sequence) {
+
+        int low = 0;
+        int high = this.indexSize - 1;
+        int found = -1;
+        while (low <= high) {
+
+            int middle = (low + high) >>> 1;
+            if (this.indexSequences[middle] <= sequence) {
+
+                found = middle;
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return this.directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private Path compressedPath(long firstSequence) {
+        return this.directory.resolve(String.format("%020d%s", firstSequence, COMPRESSED_SUFFIX));
+    }
+
+    private static ThreadFactory daemon(String name) {
+
+        return runnable -> {
+
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
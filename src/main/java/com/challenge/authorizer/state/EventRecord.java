@@ -0,0 +1,56 @@
+package com.challenge.authorizer.state;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/* Reusable holder for an event read from the EventStore, so replaying doesn't allocate per event */
+public class EventRecord {
+
+    private byte[] bytes;
+    private int length;
+    private long sequence;
+
+    public EventRecord() {
+        this.bytes = new byte[256];
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String asString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    void set(ByteBuffer source, int position, int length, long sequence) {
+
+        if (this.bytes.length < length) {
+            this.bytes = new byte[Math.max(length, this.bytes.length * 2)];
+        }
+
+        ByteBuffer view = source.duplicate();
+        view.position(position);
+        view.get(this.bytes, 0, length);
+        this.length = length;
+        this.sequence = sequence;
+    }
+
+    void set(byte[] source, int position, int length, long sequence) {
+
+        if (this.bytes.length < length) {
+            this.bytes = new byte[Math.max(length, this.bytes.length * 2)];
+        }
+
+        System.arraycopy(source, position, this.bytes, 0, length);
+        this.length = length;
+        this.sequence = sequence;
+    }
+}
@@ -1,26 +1,83 @@
 package com.challenge.authorizer.state;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
+import com.challenge.authorizer.events.BinaryEventCodec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class EventStore {
 
+    private static final String DIRECTORY_PROPERTY = "authorizer.eventstore.dir";
+    private static final String SEGMENT_SIZE_PROPERTY = "authorizer.eventstore.segment-size";
+    private static final String COMPRESS_PROPERTY = "authorizer.eventstore.compress";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
     private static EventStore instance;
 
-    private Queue events;
+    private EventLog events;
+
+    /* Set by snapshot threads, applied by the thread using the store on its next call */
+    private volatile long compactBefore = -1;
+
+    /* Used by the String based API only */
+    private final EventRecord record;
+
+    /* Copies of the log figures for readers on other threads, the log itself belongs to the thread using the store */
+    private final AtomicLong publishedNextSequence = new AtomicLong();
+    private volatile long publishedFirstSequence;
+    private volatile int publishedSegments;
 
     private EventStore(){
-        this.events = new LinkedList();
+
+        Path directory = StoreDirectories.resolve(DIRECTORY_PROPERTY, "events");
+        int segmentSize = Integer.getInteger(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_SIZE);
+        boolean compressSealed = Boolean.parseBoolean(System.getProperty(COMPRESS_PROPERTY, "true"));
+
+        try {
+
+            StoreDirectories.lockDirectory(directory);
+            this.events = new EventLog(directory, segmentSize, compressSealed, BinaryEventCodec::timeMillis);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not open Event Store at " + directory, e);
+        }
+        this.record = new EventRecord();
+        publishStats();
     }
 
-    public void write(String event){
+    /* Returns the sequence of the persisted event, -1 when it couldn't be persisted */
+    public long write(String event){
 
         if(event != null){
 
-            this.events.add(event);
+            byte[] eventBytes = event.getBytes(StandardCharsets.UTF_8);
+            return write(eventBytes, 0, eventBytes.length);
         }
+        return -1;
+    }
+
+    public long write(byte[] event, int offset, int length){
+
+        try {
+
+            compactIfRequested();
+            long sequence = this.events.append(event, offset, length);
+            publishStats();
+            return sequence;
+        }
+        catch (IOException e) {
+
+            System.err.println("Error while trying to write event on Event Store. Error: " + e);
+        }
+        return -1;
+    }
+
+    /* Whether the events outlive the process, only when their directory is configured */
+    public static boolean isDurable(){
+        return StoreDirectories.isConfigured(DIRECTORY_PROPERTY);
     }
 
     public static synchronized EventStore getInstance() {
@@ -33,13 +90,120 @@ public class EventStore {
 
     public String nextEvent(){
 
-        if(!events.isEmpty()) {
-            return (String) events.remove();
+        if(nextEvent(this.record)) {
+            return this.record.asString();
         }
         return null;
     }
 
+    /* Streams the next event into a reusable record, false when there are no more events to read */
+    public boolean nextEvent(EventRecord record){
+
+        try {
+
+            compactIfRequested();
+            return this.events.readNext(record);
+        }
+        catch (IOException e) {
+
+            System.err.println("Error while trying to read event from Event Store. Error: " + e);
+        }
+        return false;
+    }
+
+    /* Moves the read cursor back to the first event */
+    public void rewind(){
+        this.events.rewind();
+    }
+
+    /* Moves the read cursor to the event with the given sequence */
+    public void seek(long sequence){
+
+        try {
+
+            this.events.seek(sequence);
+        }
+        catch (IOException e) {
+
+            throw new UncheckedIOException("Could not seek Event Store to " + sequence, e);
+        }
+    }
+
+    /* Moves the read cursor to the first event persisted with a time at or after the given one, returning its sequence */
+    public long seekToTime(Instant time){
+
+        try {
+
+            return this.events.seekToTime(time.toEpochMilli());
+        }
+        catch (IOException e) {
+
+            throw new UncheckedIOException("Could not seek Event Store to " + time, e);
+        }
+    }
+
+    /* Sequence of the next event the read cursor will return */
+    public long getReadSequence(){
+        return this.events.getReadSequence();
+    }
+
+    public long getNextSequence(){
+        return this.events.getNextSequence();
+    }
+
+    /* Asks for the segments before the sequence to be deleted, it's safe to call from any thread */
+    public void requestCompaction(long sequence){
+        this.compactBefore = sequence;
+    }
+
+    private void compactIfRequested() throws IOException {
+
+        long sequence = this.compactBefore;
+        if (sequence >= 0) {
+
+            this.compactBefore = -1;
+            this.events.deleteSegmentsBefore(sequence);
+            publishStats();
+        }
+    }
+
+    private void publishStats() {
+
+        this.publishedNextSequence.lazySet(this.events.getNextSequence());
+        if (this.publishedSegments != this.events.getSegmentCount()) {
+
+            this.publishedFirstSequence = this.events.getFirstSequence();
+            this.publishedSegments = this.events.getSegmentCount();
+        }
+    }
+
+    /* Events kept, safe to call from any thread */
+    public long getEventCount(){
+        return this.publishedNextSequence.get() - this.publishedFirstSequence;
+    }
+
+    /* Safe to call from any thread */
+    public int getSegmentCount(){
+        return this.publishedSegments;
+    }
+
+    /* Sequence of the last persisted event, -1 when there is none, safe to call from any thread */
+    public long getLastSequence(){
+        return this.publishedNextSequence.get() - 1;
+    }
+
     public void emptyEventStore(){
-        this.events = new LinkedList();
+
+        try {
+
+            this.compactBefore = -1;
+            this.events.clear();
+            this.publishedSegments = 0;
+            publishStats();
+        }
+        catch (IOException e) {
+
+            throw new UncheckedIOException("Could not empty Event Store", e);
+        }
     }
 }
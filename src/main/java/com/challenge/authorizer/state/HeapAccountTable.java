@@ -0,0 +1,89 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.AccountSnapshot;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/* Accounts as objects on a concurrent map, changed in place, each publishing its own snapshots */
+final class HeapAccountTable implements AccountTable {
+
+    private final ConcurrentHashMap<Long, Account> accounts;
+
+    HeapAccountTable() {
+        this.accounts = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Account getForUpdate(long accountId) {
+        return accounts.get(accountId);
+    }
+
+    @Override
+    public Account copy(long accountId) {
+
+        Account account = this.accounts.get(accountId);
+        return account == null ? null : account.deepCopyAccount();
+    }
+
+    @Override
+    public AccountSnapshot snapshot(long accountId) {
+
+        Account account = this.accounts.get(accountId);
+        return account == null ? null : account.getSnapshot();
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return true;
+    }
+
+    @Override
+    public void put(long accountId, Account account) {
+        this.accounts.put(accountId, account);
+    }
+
+    @Override
+    public void writeBack(long accountId, Account account) {
+        // Changed in place
+    }
+
+    @Override
+    public void remove(long accountId) {
+        this.accounts.remove(accountId);
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+
+        for (Long accountId : this.accounts.keySet()) {
+            consumer.accept(accountId);
+        }
+    }
+
+    @Override
+    public int size() {
+        return accounts.size();
+    }
+
+    @Override
+    public void clear() {
+        this.accounts.clear();
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    @Override
+    public long getPersistedAppliedSequence() {
+        return -1;
+    }
+
+    @Override
+    public void persistAppliedSequence(long appliedSequence) {
+        // Doesn't outlive the process
+    }
+}
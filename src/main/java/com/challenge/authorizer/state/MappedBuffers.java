@@ -0,0 +1,50 @@
+package com.challenge.authorizer.state;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+
+/*
+ * Releases file mappings eagerly instead of waiting for the buffer to be garbage collected, which would
+ * otherwise keep every segment ever touched mapped. Falls back to doing nothing when the JDK doesn't allow it.
+ */
+public final class MappedBuffers {
+
+    private MappedBuffers() {}
+
+    public static void unmap(MappedByteBuffer buffer) {
+
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+
+            /* Java 9+ */
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        }
+        catch (NoSuchMethodException e) {
+
+            /* Java 8 */
+            try {
+
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+            catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Left to the garbage collector
+            }
+        }
+        catch (ReflectiveOperationException | RuntimeException ignored) {
+            // Left to the garbage collector
+        }
+    }
+}
@@ -0,0 +1,768 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.AccountSnapshot;
+import com.challenge.authorizer.domain.MerchantDictionary;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.domain.TransactionWindow;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/*
+ * Accounts as fixed layout records outside the heap, on direct buffers or on a memory mapped file, found
+ * through an open addressing index on the account id, so the heap doesn't grow with the number of accounts.
+ *
+ * Records hold the card, limit, last applied sequence and a ring with the latest WINDOW_SLOTS transactions
+ * of the window. The few accounts whose window holds more keep the whole window on the heap as well, and
+ * after a restart they only get the ring back. Accounts are decoded into new Account objects to be read or
+ * changed, and encoded back once changed. Merchants are stored with ids of their own, whose names are kept
+ * on a file next to a mapped table, so the records stay valid across restarts.
+ *
+ * Records of one account are only accessed under its AccountDataStore lock. The table structure is guarded
+ * by a read write lock: lookups share it, while inserts, removals and growing the table take it alone.
+ */
+final class OffHeapAccountTable implements AccountTable, Closeable {
+
+    static final int WINDOW_SLOTS = 8;
+
+    private static final int MAGIC = 0x41434354;
+    private static final int VERSION = 1;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CHUNK_BITS = 16;
+
+    /* Header layout */
+    private static final int HEADER_BYTES = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE = 12;
+    private static final int HEADER_OCCUPIED = 16;
+    private static final int HEADER_APPLIED_SEQUENCE = 24;
+
+    /* Record layout */
+    private static final int ACCOUNT_ID = 0;
+    private static final int FLAGS = 8;
+    private static final int LIMIT_SCALE = 12;
+    private static final int LIMIT_UNITS = 16;
+    private static final int LAST_SEQUENCE = 24;
+    private static final int EARLIEST_MILLIS = 32;
+    private static final int WINDOW_COUNT = 40;
+    private static final int WINDOW = 48;
+    private static final int SLOT_BYTES = 28;
+    static final int RECORD_BYTES = WINDOW + WINDOW_SLOTS * SLOT_BYTES;
+
+    /* Window slot layout */
+    private static final int SLOT_MERCHANT = 0;
+    private static final int SLOT_AMOUNT_SCALE = 4;
+    private static final int SLOT_AMOUNT_UNITS = 8;
+    private static final int SLOT_EPOCH_SECOND = 16;
+    private static final int SLOT_NANO = 24;
+    private static final int NULL_SCALE = Integer.MIN_VALUE;
+
+    private static final int USED = 1;
+    private static final int TOMBSTONE = 1 << 1;
+    private static final int CARD_PRESENT = 1 << 2;
+    private static final int CARD_ACTIVE = 1 << 3;
+    private static final int LIMIT_PRESENT = 1 << 4;
+    private static final int OVERFLOW = 1 << 5;
+
+    /* Null for direct buffers */
+    private final Path file;
+    private final Path merchantsFile;
+    private final int initialCapacity;
+
+    private final ReentrantReadWriteLock structure;
+    private final ConcurrentHashMap<Long, Transaction[]> overflow;
+
+    private ByteBuffer header;
+    private ByteBuffer[] chunks;
+    private int capacityBits;
+    private int chunkBits;
+
+    /* Live records, and live plus removed ones, which probes still walk over */
+    private int size;
+    private int occupied;
+
+    /* Stored merchant ids to MerchantDictionary ids and back, replaced by larger copies when full */
+    private volatile int[] storedMerchants;
+    private volatile int[] dictionaryMerchants;
+    private int merchantCount;
+    private DataOutputStream merchantsOut;
+
+    private OffHeapAccountTable(Path file, int initialCapacity) {
+
+        this.file = file;
+        this.merchantsFile = file == null ? null : file.resolveSibling(file.getFileName() + ".merchants");
+        this.initialCapacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1);
+        this.structure = new ReentrantReadWriteLock();
+        this.overflow = new ConcurrentHashMap<>();
+    }
+
+    /* Table on direct buffers, empty on every start */
+    static OffHeapAccountTable direct(int initialCapacity) throws IOException {
+
+        OffHeapAccountTable table = new OffHeapAccountTable(null, initialCapacity);
+        table.reset();
+        return table;
+    }
+
+    /* Table on a mapped file, holding the accounts left on it by the previous run */
+    static OffHeapAccountTable mapped(Path file, int initialCapacity) throws IOException {
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        OffHeapAccountTable table = new OffHeapAccountTable(file, initialCapacity);
+        if (!table.reopen()) {
+            table.reset();
+        }
+        return table;
+    }
+
+    /**** ACCOUNTS ****/
+
+    @Override
+    public Account getForUpdate(long accountId) {
+
+        this.structure.readLock().lock();
+        try {
+
+            int slot = find(accountId);
+            return slot < 0 ? null : decode(slot);
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+    }
+
+    /* Decoded accounts are copies already */
+    @Override
+    public Account copy(long accountId) {
+        return getForUpdate(accountId);
+    }
+
+    @Override
+    public AccountSnapshot snapshot(long accountId) {
+
+        this.structure.readLock().lock();
+        try {
+
+            int slot = find(accountId);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer chunk = chunk(slot);
+            int at = offset(slot);
+            int flags = chunk.getInt(at + FLAGS);
+            return new AccountSnapshot(accountId, activeCard(flags), limit(chunk, at, flags),
+                    chunk.getLong(at + LAST_SEQUENCE));
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return false;
+    }
+
+    @Override
+    public void put(long accountId, Account account) {
+
+        this.structure.readLock().lock();
+        try {
+
+            int slot = find(accountId);
+            if (slot >= 0) {
+
+                encode(slot, account);
+                return;
+            }
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+
+        this.structure.writeLock().lock();
+        try {
+
+            int slot = find(accountId);
+            encode(slot >= 0 ? slot : insert(accountId), account);
+        }
+        finally {
+            this.structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void writeBack(long accountId, Account account) {
+        put(accountId, account);
+    }
+
+    @Override
+    public void remove(long accountId) {
+
+        this.structure.writeLock().lock();
+        try {
+
+            int slot = find(accountId);
+            if (slot >= 0) {
+
+                chunk(slot).putInt(offset(slot) + FLAGS, TOMBSTONE);
+                this.overflow.remove(accountId);
+                this.size--;
+                this.header.putInt(HEADER_SIZE, this.size);
+            }
+        }
+        finally {
+            this.structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+
+        long[] ids;
+        this.structure.readLock().lock();
+        try {
+
+            ids = new long[this.size];
+            int found = 0;
+            for (int slot = 0; slot < 1 << this.capacityBits && found < ids.length; slot++) {
+
+                if ((chunk(slot).getInt(offset(slot) + FLAGS) & USED) != 0) {
+                    ids[found++] = chunk(slot).getLong(offset(slot) + ACCOUNT_ID);
+                }
+            }
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+
+        /* Visited without the table lock, the consumer takes account locks */
+        for (long accountId : ids) {
+            consumer.accept(accountId);
+        }
+    }
+
+    @Override
+    public int size() {
+
+        this.structure.readLock().lock();
+        try {
+            return size;
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        this.structure.writeLock().lock();
+        try {
+            reset();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not clear account table", e);
+        }
+        finally {
+            this.structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isDurable() {
+        return file != null;
+    }
+
+    /* The header is replaced when the table grows, so it's read and written under the table lock too */
+    @Override
+    public long getPersistedAppliedSequence() {
+
+        if (this.file == null) {
+            return -1;
+        }
+        this.structure.readLock().lock();
+        try {
+            return this.header.getLong(HEADER_APPLIED_SEQUENCE);
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void persistAppliedSequence(long appliedSequence) {
+
+        if (this.file == null) {
+            return;
+        }
+        this.structure.readLock().lock();
+        try {
+            this.header.putLong(HEADER_APPLIED_SEQUENCE, appliedSequence);
+        }
+        finally {
+            this.structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        this.structure.writeLock().lock();
+        try {
+
+            release(this.header, this.chunks);
+            this.header = null;
+            this.chunks = null;
+            if (this.merchantsOut != null) {
+
+                this.merchantsOut.close();
+                this.merchantsOut = null;
+            }
+        }
+        finally {
+            this.structure.writeLock().unlock();
+        }
+    }
+
+    /**** INDEX ****/
+
+    /* Slot of the live record of the account, -1 when there is none */
+    private int find(long accountId) {
+
+        int mask = (1 << this.capacityBits) - 1;
+        int slot = home(accountId, this.capacityBits);
+        for (int probes = 0; probes <= mask; probes++) {
+
+            int flags = chunk(slot).getInt(offset(slot) + FLAGS);
+            if (flags == 0) {
+                return -1;
+            }
+            if ((flags & USED) != 0 && chunk(slot).getLong(offset(slot) + ACCOUNT_ID) == accountId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /* Takes a free slot for an account known not to be there, holding the write lock */
+    private int insert(long accountId) throws UncheckedIOException {
+
+        if ((this.occupied + 1) * 2L > 1L << this.capacityBits) {
+
+            try {
+                grow();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Could not grow account table", e);
+            }
+        }
+
+        int mask = (1 << this.capacityBits) - 1;
+        int slot = home(accountId, this.capacityBits);
+        int flags;
+        while (((flags = chunk(slot).getInt(offset(slot) + FLAGS)) & USED) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (flags == 0) {
+
+            this.occupied++;
+            this.header.putInt(HEADER_OCCUPIED, this.occupied);
+        }
+        chunk(slot).putLong(offset(slot) + ACCOUNT_ID, accountId);
+        chunk(slot).putInt(offset(slot) + FLAGS, USED);
+        this.size++;
+        this.header.putInt(HEADER_SIZE, this.size);
+        return slot;
+    }
+
+    /* Fibonacci hashing, the top bits spread sequential ids over the table */
+    private static int home(long accountId, int capacityBits) {
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> (64 - capacityBits));
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> chunkBits];
+    }
+
+    private int offset(int slot) {
+        return (slot & ((1 << chunkBits) - 1)) * RECORD_BYTES;
+    }
+
+    /**** RECORDS ****/
+
+    private void encode(int slot, Account account) {
+
+        ByteBuffer chunk = chunk(slot);
+        int at = offset(slot);
+        int previous = chunk.getInt(at + FLAGS);
+
+        Boolean activeCard = account.getActiveCard();
+        Money limit = account.getAvailableLimit();
+        int flags = USED | (activeCard == null ? 0 : CARD_PRESENT | (activeCard ? CARD_ACTIVE : 0))
+                | (limit == null ? 0 : LIMIT_PRESENT);
+        chunk.putInt(at + LIMIT_SCALE, limit == null ? 0 : limit.getScale());
+        chunk.putLong(at + LIMIT_UNITS, limit == null ? 0 : limit.getUnits());
+        chunk.putLong(at + LAST_SEQUENCE, account.getLastSequence());
+
+        TransactionWindow window = account.getTransactions();
+        Transaction[] transactions = window.toArray();
+        chunk.putLong(at + EARLIEST_MILLIS, window.getEarliestMillis());
+
+        /* The ring keeps the latest transactions, busy windows are kept whole on the heap too */
+        int first = Math.max(0, transactions.length - WINDOW_SLOTS);
+        if (first > 0) {
+
+            this.overflow.put(account.getAccountId(), transactions);
+            flags |= OVERFLOW;
+        }
+        else if ((previous & OVERFLOW) != 0) {
+            this.overflow.remove(account.getAccountId());
+        }
+
+        chunk.putInt(at + WINDOW_COUNT, transactions.length - first);
+        for (int i = first; i < transactions.length; i++) {
+
+            Transaction transaction = transactions[i];
+            int slotAt = at + WINDOW + (i - first) * SLOT_BYTES;
+            Money amount = transaction.getAmount();
+            chunk.putInt(slotAt + SLOT_MERCHANT, storedMerchant(transaction.getMerchantId()));
+            chunk.putInt(slotAt + SLOT_AMOUNT_SCALE, amount == null ? NULL_SCALE : amount.getScale());
+            chunk.putLong(slotAt + SLOT_AMOUNT_UNITS, amount == null ? 0 : amount.getUnits());
+            chunk.putLong(slotAt + SLOT_EPOCH_SECOND, transaction.getTime().getEpochSecond());
+            chunk.putInt(slotAt + SLOT_NANO, transaction.getTime().getNano());
+        }
+        chunk.putInt(at + FLAGS, flags);
+    }
+
+    private Account decode(int slot) {
+
+        ByteBuffer chunk = chunk(slot);
+        int at = offset(slot);
+        int flags = chunk.getInt(at + FLAGS);
+        long accountId = chunk.getLong(at + ACCOUNT_ID);
+
+        Account account = new Account(accountId, activeCard(flags), limit(chunk, at, flags));
+        account.setLastSequence(chunk.getLong(at + LAST_SEQUENCE));
+
+        Transaction[] transactions = (flags & OVERFLOW) == 0 ? null : this.overflow.get(accountId);
+        if (transactions == null) {
+
+            transactions = new Transaction[chunk.getInt(at + WINDOW_COUNT)];
+            for (int i = 0; i < transactions.length; i++) {
+
+                int slotAt = at + WINDOW + i * SLOT_BYTES;
+                int scale = chunk.getInt(slotAt + SLOT_AMOUNT_SCALE);
+                Money amount = scale == NULL_SCALE ? null : Money.valueOf(chunk.getLong(slotAt + SLOT_AMOUNT_UNITS), scale);
+                Instant time = Instant.ofEpochSecond(chunk.getLong(slotAt + SLOT_EPOCH_SECOND), chunk.getInt(slotAt + SLOT_NANO));
+                transactions[i] = new Transaction(dictionaryMerchant(chunk.getInt(slotAt + SLOT_MERCHANT)), amount, time);
+            }
+        }
+        account.getTransactions().restore(transactions, chunk.getLong(at + EARLIEST_MILLIS));
+        return account;
+    }
+
+    private static Boolean activeCard(int flags) {
+        return (flags & CARD_PRESENT) == 0 ? null : (flags & CARD_ACTIVE) != 0;
+    }
+
+    private static Money limit(ByteBuffer chunk, int at, int flags) {
+
+        if ((flags & LIMIT_PRESENT) == 0) {
+            return null;
+        }
+        return Money.valueOf(chunk.getLong(at + LIMIT_UNITS), chunk.getInt(at + LIMIT_SCALE));
+    }
+
+    /**** MERCHANTS ****/
+
+    private int storedMerchant(int dictionaryId) {
+
+        if (dictionaryId == MerchantDictionary.NO_MERCHANT) {
+            return dictionaryId;
+        }
+        int[] stored = this.storedMerchants;
+        if (dictionaryId < stored.length && stored[dictionaryId] >= 0) {
+            return stored[dictionaryId];
+        }
+        return addMerchant(dictionaryId);
+    }
+
+    private int dictionaryMerchant(int storedId) {
+        return storedId == MerchantDictionary.NO_MERCHANT ? storedId : dictionaryMerchants[storedId];
+    }
+
+    private synchronized int addMerchant(int dictionaryId) {
+
+        int[] stored = this.storedMerchants;
+        if (dictionaryId < stored.length && stored[dictionaryId] >= 0) {
+            return stored[dictionaryId];
+        }
+
+        if (this.merchantsOut != null) {
+
+            try {
+
+                this.merchantsOut.writeUTF(MerchantDictionary.getInstance().nameOf(dictionaryId));
+                this.merchantsOut.flush();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Could not write merchant to " + this.merchantsFile, e);
+            }
+        }
+        return register(dictionaryId);
+    }
+
+    /* Gives the merchant the next stored id, the names array first so the id is readable once published */
+    private synchronized int register(int dictionaryId) {
+
+        int storedId = this.merchantCount++;
+        int[] dictionary = this.dictionaryMerchants;
+        if (storedId == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+        }
+        dictionary[storedId] = dictionaryId;
+        this.dictionaryMerchants = dictionary;
+
+        int[] stored = this.storedMerchants;
+        if (dictionaryId >= stored.length) {
+
+            int length = stored.length;
+            stored = Arrays.copyOf(stored, Math.max(length * 2, dictionaryId + 1));
+            Arrays.fill(stored, length, stored.length, -1);
+        }
+        stored[dictionaryId] = storedId;
+        this.storedMerchants = stored;
+        return storedId;
+    }
+
+    private synchronized void resetMerchants() throws IOException {
+
+        this.merchantCount = 0;
+        this.dictionaryMerchants = new int[64];
+        this.storedMerchants = new int[64];
+        Arrays.fill(this.storedMerchants, -1);
+
+        if (this.merchantsOut != null) {
+            this.merchantsOut.close();
+        }
+        this.merchantsOut = this.merchantsFile == null ? null : new DataOutputStream(Files.newOutputStream(
+                this.merchantsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**** STORAGE ****/
+
+    /* Maps the table left on the file, false when there is none or it can't be used */
+    private boolean reopen() throws IOException {
+
+        if (!Files.exists(this.file) || Files.size(this.file) < HEADER_BYTES || !Files.exists(this.merchantsFile)) {
+            return false;
+        }
+
+        ByteBuffer existing = map(this.file, 0, HEADER_BYTES);
+        int capacity = existing.getInt(HEADER_CAPACITY);
+        boolean valid = existing.getInt(HEADER_MAGIC) == MAGIC && existing.getInt(HEADER_VERSION) == VERSION
+                && capacity >= MIN_CAPACITY && Integer.bitCount(capacity) == 1
+                && Files.size(this.file) >= HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        if (!valid) {
+
+            release(existing, null);
+            System.err.println("Account table on " + this.file + " isn't valid, starting an empty one");
+            return false;
+        }
+
+        this.header = existing;
+        this.capacityBits = Integer.numberOfTrailingZeros(capacity);
+        this.chunkBits = Math.min(this.capacityBits, MAX_CHUNK_BITS);
+        this.chunks = mapChunks(this.file, capacity);
+        this.size = existing.getInt(HEADER_SIZE);
+        this.occupied = existing.getInt(HEADER_OCCUPIED);
+
+        /* Stored ids are the order of the names on the file */
+        this.merchantCount = 0;
+        this.dictionaryMerchants = new int[64];
+        this.storedMerchants = new int[64];
+        Arrays.fill(this.storedMerchants, -1);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.merchantsFile)))) {
+
+            while (true) {
+                register(MerchantDictionary.getInstance().idOf(in.readUTF()));
+            }
+        }
+        catch (EOFException e) {
+            // All names read
+        }
+        this.merchantsOut = new DataOutputStream(Files.newOutputStream(this.merchantsFile, StandardOpenOption.APPEND));
+        return true;
+    }
+
+    /* Replaces the storage with an empty table of the initial capacity */
+    private void reset() throws IOException {
+
+        ByteBuffer previousHeader = this.header;
+        ByteBuffer[] previousChunks = this.chunks;
+
+        allocate(this.initialCapacity);
+        this.size = 0;
+        this.occupied = 0;
+        this.header.putInt(HEADER_SIZE, 0);
+        this.header.putInt(HEADER_OCCUPIED, 0);
+        this.header.putLong(HEADER_APPLIED_SEQUENCE, -1);
+        install();
+
+        /* Names go once no table refers to them, a crash before leaves unused names only */
+        this.overflow.clear();
+        resetMerchants();
+        release(previousHeader, previousChunks);
+    }
+
+    /* Rehashes every live record on a table twice as large, holding the write lock */
+    private void grow() throws IOException {
+
+        ByteBuffer previousHeader = this.header;
+        ByteBuffer[] previousChunks = this.chunks;
+        int previousCapacityBits = this.capacityBits;
+        int previousChunkBits = this.chunkBits;
+        int previousCapacity = 1 << previousCapacityBits;
+
+        allocate(previousCapacity * 2);
+        try {
+
+            byte[] record = new byte[RECORD_BYTES];
+            for (int slot = 0; slot < previousCapacity; slot++) {
+
+                ByteBuffer source = previousChunks[slot >>> previousChunkBits].duplicate();
+                source.position((slot & ((1 << previousChunkBits) - 1)) * RECORD_BYTES);
+                source.get(record);
+                if ((ByteBuffer.wrap(record).getInt(FLAGS) & USED) == 0) {
+                    continue;
+                }
+
+                int mask = (1 << this.capacityBits) - 1;
+                int target = home(ByteBuffer.wrap(record).getLong(ACCOUNT_ID), this.capacityBits);
+                while (chunk(target).getInt(offset(target) + FLAGS) != 0) {
+                    target = (target + 1) & mask;
+                }
+                ByteBuffer destination = chunk(target).duplicate();
+                destination.position(offset(target));
+                destination.put(record);
+            }
+
+            this.header.putInt(HEADER_SIZE, this.size);
+            this.header.putInt(HEADER_OCCUPIED, this.size);
+            this.header.putLong(HEADER_APPLIED_SEQUENCE, previousHeader.getLong(HEADER_APPLIED_SEQUENCE));
+            install();
+        }
+        catch (IOException | RuntimeException e) {
+
+            /* The current table is still whole, on memory and on the file */
+            release(this.header, this.chunks);
+            this.header = previousHeader;
+            this.chunks = previousChunks;
+            this.capacityBits = previousCapacityBits;
+            this.chunkBits = previousChunkBits;
+            throw e;
+        }
+        this.occupied = this.size;
+        release(previousHeader, previousChunks);
+    }
+
+    /* Empty storage of the given capacity, on a temporary file until install() when mapped */
+    private void allocate(int capacity) throws IOException {
+
+        this.capacityBits = Integer.numberOfTrailingZeros(capacity);
+        this.chunkBits = Math.min(this.capacityBits, MAX_CHUNK_BITS);
+
+        if (this.file == null) {
+
+            this.header = ByteBuffer.allocateDirect(HEADER_BYTES);
+            this.chunks = new ByteBuffer[capacity >>> this.chunkBits];
+            for (int i = 0; i < this.chunks.length; i++) {
+                this.chunks[i] = ByteBuffer.allocateDirect(RECORD_BYTES << this.chunkBits);
+            }
+        }
+        else {
+
+            Path temporary = temporaryFile();
+            Files.deleteIfExists(temporary);
+            this.header = map(temporary, 0, HEADER_BYTES);
+            this.chunks = mapChunks(temporary, capacity);
+        }
+        this.header.putInt(HEADER_MAGIC, MAGIC);
+        this.header.putInt(HEADER_VERSION, VERSION);
+        this.header.putInt(HEADER_CAPACITY, capacity);
+    }
+
+    /*
+     * Makes the complete table allocated last the one on the file. It's written to disk before being moved
+     * over the current one, so a crash leaves either table whole, and the mappings stay valid once moved.
+     */
+    private void install() throws IOException {
+
+        if (this.file == null) {
+            return;
+        }
+        ((MappedByteBuffer) this.header).force();
+        for (ByteBuffer chunk : this.chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        Files.move(temporaryFile(), this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path temporaryFile() {
+        return this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    }
+
+    private ByteBuffer[] mapChunks(Path path, int capacity) throws IOException {
+
+        long chunkBytes = (long) RECORD_BYTES << this.chunkBits;
+        ByteBuffer[] mapped = new ByteBuffer[capacity >>> this.chunkBits];
+        for (int i = 0; i < mapped.length; i++) {
+            mapped[i] = map(path, HEADER_BYTES + i * chunkBytes, chunkBytes);
+        }
+        return mapped;
+    }
+
+    private static ByteBuffer map(Path path, long position, long size) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        }
+    }
+
+    /* Direct buffers are mapped buffers too, both are released without waiting for the collector */
+    private static void release(ByteBuffer header, ByteBuffer[] chunks) {
+
+        if (header instanceof MappedByteBuffer) {
+            MappedBuffers.unmap((MappedByteBuffer) header);
+        }
+        for (int i = 0; chunks != null && i < chunks.length; i++) {
+            if (chunks[i] instanceof MappedByteBuffer) {
+                MappedBuffers.unmap((MappedByteBuffer) chunks[i]);
+            }
+        }
+    }
+}
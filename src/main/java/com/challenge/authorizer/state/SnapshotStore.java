@@ -0,0 +1,304 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.domain.TransactionWindow;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Point in time copies of the AccountDataStore, used to bound recovery to the events after the snapshot.
+ *
+ * Accounts are copied one at a time under their own lock, so a snapshot is fuzzy: it holds every event
+ * before its replay sequence, plus possibly some later ones, which each Account tracks through its last
+ * applied sequence. Replaying from the snapshot sequence skips those. Files are named after the replay
+ * sequence and written to a temporary file forced to disk before it is moved into place, so a partial
+ * snapshot is never loaded. The EventStore is only compacted behind the oldest snapshot kept, and restoring
+ * falls back to an older snapshot when a newer one can't be read.
+ */
+public class SnapshotStore {
+
+    private static final String DIRECTORY_PROPERTY = "authorizer.snapshot.dir";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x41555448;
+    private static final int VERSION = 2;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private static SnapshotStore instance;
+
+    private final Path directory;
+
+    /* False on the temporary directory of the process, whose snapshots are deleted at exit */
+    private final boolean durable;
+
+    public SnapshotStore(Path directory) {
+
+        this(directory, true);
+    }
+
+    private SnapshotStore(Path directory, boolean durable) {
+
+        this.directory = directory;
+        this.durable = durable;
+        try {
+            Files.createDirectories(directory);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not open Snapshot Store at " + directory, e);
+        }
+    }
+
+    public static synchronized SnapshotStore getInstance() {
+
+        if(instance == null){
+
+            Path directory = StoreDirectories.resolve(DIRECTORY_PROPERTY, "snapshots");
+            try {
+                StoreDirectories.lockDirectory(directory);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Could not lock Snapshot Store at " + directory, e);
+            }
+            instance = new SnapshotStore(directory, StoreDirectories.isConfigured(DIRECTORY_PROPERTY));
+        }
+        return instance;
+    }
+
+    /* Whether the snapshots outlive the process */
+    public boolean isDurable() {
+        return this.durable;
+    }
+
+    /* Writes a snapshot of the store and returns the sequence replays must start from */
+    public synchronized long takeSnapshot(AccountDataStore store) throws IOException {
+
+        long replayFrom = store.getAppliedSequence() + 1;
+        Path temporary = this.directory.resolve(replayFrom + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(replayFrom);
+
+            IOException[] failure = new IOException[1];
+            store.forEachAccountCopy(account -> {
+
+                if (failure[0] == null) {
+                    try {
+
+                        out.writeBoolean(true);
+                        writeAccount(out, account);
+                    }
+                    catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.writeBoolean(false);
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(temporary, snapshotPath(replayFrom), StandardCopyOption.ATOMIC_MOVE);
+        deleteOlderSnapshots();
+        return replayFrom;
+    }
+
+    /* Loads the latest snapshot into the store, returning the sequence to replay from, 0 when there is none */
+    public synchronized long restoreLatest(AccountDataStore store) throws IOException {
+
+        return restoreBefore(store, Long.MAX_VALUE);
+    }
+
+    /*
+     * Loads the latest readable snapshot replaying from the sequence or before it, returning its sequence, 0 when
+     * there is none. Fails when there are snapshots but none of them can be read.
+     */
+    public synchronized long restoreBefore(AccountDataStore store, long sequence) throws IOException {
+
+        List<Long> snapshots = listSnapshots();
+        int latest = snapshots.size() - 1;
+        while (latest >= 0 && snapshots.get(latest) > sequence) {
+            latest--;
+        }
+
+        IOException failure = null;
+        for (int i = latest; i >= 0; i--) {
+
+            Path path = snapshotPath(snapshots.get(i));
+            try {
+                return restore(store, path);
+            }
+            catch (IOException e) {
+
+                System.err.println("Skipping unreadable snapshot " + path + ". Error: " + e);
+                store.resetState();
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return 0;
+    }
+
+    /* Replay sequence of the oldest snapshot kept, the EventStore can be compacted up to it, 0 when there is none */
+    public synchronized long getOldestReplayFrom() throws IOException {
+
+        List<Long> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? 0 : snapshots.get(0);
+    }
+
+    private long restore(AccountDataStore store, Path path) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown snapshot format on " + path);
+            }
+
+            long replayFrom = in.readLong();
+            while (in.readBoolean()) {
+
+                Account account = readAccount(in);
+                store.setAccount(account.getAccountId(), account);
+            }
+            store.setAppliedSequence(replayFrom - 1);
+            return replayFrom;
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+
+        for (Long snapshot : listSnapshots()) {
+            Files.deleteIfExists(snapshotPath(snapshot));
+        }
+    }
+
+    /**** ENCODING ****/
+
+    private void writeAccount(DataOutputStream out, Account account) throws IOException {
+
+        out.writeLong(account.getAccountId());
+        out.writeByte(account.getActiveCard() == null ? 0 : account.getActiveCard() ? 2 : 1);
+        writeMoney(out, account.getAvailableLimit());
+        out.writeLong(account.getLastSequence());
+
+        TransactionWindow window = account.getTransactions();
+        Transaction[] transactions = window.toArray();
+        out.writeLong(window.getEarliestMillis());
+        out.writeInt(transactions.length);
+        for (Transaction transaction : transactions) {
+
+            writeString(out, transaction.getMerchant());
+            writeMoney(out, transaction.getAmount());
+            out.writeLong(transaction.getTime().getEpochSecond());
+            out.writeInt(transaction.getTime().getNano());
+        }
+    }
+
+    private Account readAccount(DataInputStream in) throws IOException {
+
+        long accountId = in.readLong();
+        byte activeCard = in.readByte();
+        Money availableLimit = readMoney(in);
+
+        Account account = new Account(accountId, activeCard == 0 ? null : activeCard == 2, availableLimit);
+        account.setLastSequence(in.readLong());
+
+        long earliestMillis = in.readLong();
+        Transaction[] transactions = new Transaction[in.readInt()];
+        for (int i = 0; i < transactions.length; i++) {
+
+            String merchant = readString(in);
+            Money amount = readMoney(in);
+            Instant time = Instant.ofEpochSecond(in.readLong(), in.readInt());
+            transactions[i] = new Transaction(merchant, amount, time);
+        }
+        account.getTransactions().restore(transactions, earliestMillis);
+        return account;
+    }
+
+    private static void writeMoney(DataOutputStream out, Money value) throws IOException {
+
+        out.writeBoolean(value != null);
+        if (value != null) {
+
+            out.writeLong(value.getUnits());
+            out.writeInt(value.getScale());
+        }
+    }
+
+    private static Money readMoney(DataInputStream in) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long units = in.readLong();
+        return Money.valueOf(units, in.readInt());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**** FILES HANDLING ****/
+
+    private void deleteOlderSnapshots() throws IOException {
+
+        List<Long> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+            Files.deleteIfExists(snapshotPath(snapshots.get(i)));
+        }
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+
+        List<Long> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SNAPSHOT_SUFFIX)) {
+
+            for (Path file : files) {
+
+                String name = file.getFileName().toString();
+                snapshots.add(Long.parseLong(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    private Path snapshotPath(long replayFrom) {
+        return this.directory.resolve(String.format("%020d%s", replayFrom, SNAPSHOT_SUFFIX));
+    }
+}
@@ -0,0 +1,59 @@
+package com.challenge.authorizer.state;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Takes snapshots of the AccountDataStore on a background thread and compacts the EventStore once each
+ * one is on disk, so the log only keeps the events recovery needs. A log kept across runs is never compacted
+ * behind snapshots deleted at exit, which would leave recovery without the events they held.
+ */
+public class Snapshotter {
+
+    private final SnapshotStore snapshots;
+    private final ScheduledExecutorService executor;
+
+    public Snapshotter(SnapshotStore snapshots) {
+
+        this.snapshots = snapshots;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+
+            Thread thread = new Thread(runnable, "authorizer-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(long intervalSeconds) {
+
+        if (EventStore.isDurable() && !this.snapshots.isDurable()) {
+            throw new IllegalStateException("Snapshots would compact authorizer.eventstore.dir behind files deleted at exit,"
+                    + " authorizer.snapshot.dir must be configured too");
+        }
+        this.executor.scheduleWithFixedDelay(this::snapshot, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void snapshot() {
+
+        try {
+
+            this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+            if (this.snapshots.isDurable() || !EventStore.isDurable()) {
+
+                /* Behind the oldest snapshot kept, so recovery can fall back to it */
+                EventStore.getInstance().requestCompaction(this.snapshots.getOldestReplayFrom());
+            }
+        }
+        catch (IOException e) {
+
+            System.err.println("Error while trying to write snapshot. Error: " + e);
+        }
+    }
+
+    public void stop() {
+
+        this.executor.shutdown();
+    }
+}
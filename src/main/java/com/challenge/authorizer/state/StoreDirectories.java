@@ -0,0 +1,106 @@
+package com.challenge.authorizer.state;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/*
+ * Where the stores keep their files. A store without a configured location keeps them on a directory of
+ * this process, deleted when it exits, so separate runs never share files unless told to. Locations in use
+ * are locked for as long as the process lives, so a second process pointed at them fails to start instead
+ * of mapping and deleting the files of the first one.
+ */
+final class StoreDirectories {
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private static Path processDirectory;
+
+    /* Held until the process exits, closing the channel would release the lock */
+    private static final Map<Path, FileChannel> locks = new HashMap<>();
+
+    private StoreDirectories() {}
+
+    static boolean isConfigured(String property) {
+        return System.getProperty(property) != null;
+    }
+
+    /* The configured location, or the given name on the directory of this process */
+    static synchronized Path resolve(String property, String name) {
+
+        String configured = System.getProperty(property);
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+
+        if (processDirectory == null) {
+
+            try {
+                processDirectory = Files.createTempDirectory("authorizer-");
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Could not create a directory for the stores", e);
+            }
+            Path created = processDirectory;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteTree(created)));
+        }
+        return processDirectory.resolve(name);
+    }
+
+    /* Locks a directory for this process, failing when another one holds it */
+    static void lockDirectory(Path directory) throws IOException {
+
+        Files.createDirectories(directory);
+        lock(directory.resolve(LOCK_SUFFIX), directory);
+    }
+
+    /* Locks a file for this process through a lock file next to it */
+    static void lockFile(Path file) throws IOException {
+
+        lock(file.resolveSibling(file.getFileName() + LOCK_SUFFIX), file);
+    }
+
+    private static synchronized void lock(Path lockFile, Path locked) throws IOException {
+
+        Path key = lockFile.toAbsolutePath().normalize();
+        if (locks.containsKey(key)) {
+            return;
+        }
+
+        Files.createDirectories(key.getParent());
+        FileChannel channel = FileChannel.open(key, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+
+            channel.close();
+            throw new IllegalStateException(locked + " is in use by another process");
+        }
+        locks.put(key, channel);
+    }
+
+    private static void deleteTree(Path directory) {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+        catch (IOException | UncheckedIOException e) {
+            // Left for the system to clean up
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.challenge.authorizer.app;
+
+import com.challenge.authorizer.input.InputFormat;
+import com.challenge.authorizer.input.LineReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class EventConverterTest {
+
+    private static final String EVENTS = "{\"account\":{\"account-id\":7,\"active-card\":true,\"available-limit\":1E+3}}\n"
+            + "{\"transaction\":{\"merchant\":\"Caf\u00e9 \\\"Habbib's\\\"\",\"amount\":20.50,\"time\":\"2019-02-13T10:00:00.123456789Z\"}}\n"
+            + "{\"transaction\":{\"account-id\":7,\"amount\":-1}}\n";
+
+    private static byte[] convert(byte[] input, InputFormat source, InputFormat target) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (LineReader in = LineReader.forChannel(Channels.newChannel(new ByteArrayInputStream(input)), source)) {
+            new EventConverter().convert(in, target, out);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void shouldConvertEventsToBinaryRecordsAndBackToTheSameLines() throws IOException {
+
+        byte[] binary = convert(EVENTS.getBytes(StandardCharsets.UTF_8), InputFormat.JSON, InputFormat.BINARY);
+        byte[] json = convert(binary, InputFormat.BINARY, InputFormat.JSON);
+
+        Assert.assertEquals(EVENTS, new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldLeaveOutLinesThatAreNotEvents() throws IOException {
+
+        byte[] input = "{\"transaction\": {\"amount\": \nnot an event\n{}\n".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertEquals(0, convert(input, InputFormat.JSON, InputFormat.BINARY).length);
+    }
+}
@@ -7,7 +7,6 @@ import com.challenge.authorizer.state.AccountDataStore;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,38 +18,52 @@ public class AccountTest {
     @Test
     public void doReturnCopyOfTheAccountWhenCallingCopyAccountMethod() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         Assert.assertEquals(account, account.copyAccount());
     }
 
     @Test
     public void doPersistAccountOnAccountDataStoreWhenCallingHandleEventForAccountCreationEvent() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        account.handleEvent(new AccountCreationEvent(true, BigDecimal.TEN));
+        Account account = new Account(true, Money.TEN);
+        account.handleEvent(new AccountCreationEvent(true, Money.TEN));
         Assert.assertEquals(AccountDataStore.getInstance().getAccount(), account);
     }
 
+    @Test
+    public void shouldPublishANewSnapshotAfterEachTransactionWithoutChangingThePreviousOne() {
+
+        Account account = new Account(5L, true, Money.TEN);
+        AccountSnapshot before = account.getSnapshot();
+
+        TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(5L, "test", Money.ONE, Instant.now());
+        event.setSequence(3);
+        account.handleEvent(event);
+
+        Assert.assertEquals(new AccountSnapshot(5L, true, Money.TEN, -1), before);
+        Assert.assertEquals(new AccountSnapshot(5L, true, Money.valueOf(9), 3), account.getSnapshot());
+    }
+
     @Test
     public void shouldReturnFalseWhenCallingCheckCardNotActiveViolationOnActiveCard() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         Assert.assertFalse(account.checkCardNotActiveViolation());
     }
 
     @Test
     public void shouldReturnTrueWhenCallingCheckCardNotActiveViolationOnInActiveCard() {
 
-        Account account = new Account(false, BigDecimal.TEN);
+        Account account = new Account(false, Money.TEN);
         Assert.assertTrue(account.checkCardNotActiveViolation());
     }
 
     @Test
     public void shouldReturnTrueWhenCallingCheckInsufficientLimitViolationOnCardWithInsufficientLimit() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                new BigDecimal(20), Instant.now());
+                Money.valueOf(20), Instant.now());
 
         Assert.assertTrue(account.checkInsufficientLimitViolation(event));
     }
@@ -58,23 +71,23 @@ public class AccountTest {
     @Test
     public void shouldReturnFalseWhenCallingCheckInsufficientLimitViolationOnNullEvent() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         Assert.assertFalse(account.checkInsufficientLimitViolation(null));
     }
 
     @Test
     public void shouldReturnFalseWhenCallingCheckInsufficientLimitViolationOnEventWithNullAmount() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         Assert.assertFalse(account.checkInsufficientLimitViolation(new TransactionAuthorizationEvent("teste", null, Instant.now())));
     }
 
     @Test
     public void shouldReturnFalseWhenCallingCheckInsufficientLimitViolationWithNegativeAmountTransactionEvent() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                new BigDecimal(-20), Instant.now());
+                Money.valueOf(-20), Instant.now());
 
         Assert.assertFalse(account.checkInsufficientLimitViolation(event));
     }
@@ -82,9 +95,9 @@ public class AccountTest {
     @Test
     public void shouldReturnFalseWhenCallingCheckInsufficientLimitViolationWithZeroAmountTransactionEvent() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                BigDecimal.ZERO, Instant.now());
+                Money.ZERO, Instant.now());
 
         Assert.assertFalse(account.checkInsufficientLimitViolation(event));
     }
@@ -92,92 +105,88 @@ public class AccountTest {
     @Test
     public void shouldReturnFalseWhenCallingCheckInsufficientLimitViolationOnAccountWithSufficientAvailableLimit() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                BigDecimal.ONE, Instant.now());
+                Money.ONE, Instant.now());
 
         Assert.assertFalse(account.checkInsufficientLimitViolation(event));
     }
 
     @Test
-    public void shouldReturnFalseWhenCallingCheckHighFrequencySmallIntervalViolationOnNullList() {
+    public void shouldReturnFalseWhenCallingCheckHighFrequencySmallIntervalViolationWithNoTransactionsOnInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        Assert.assertFalse(account.checkHighFrequencySmallIntervalViolation(null));
+        Account account = new Account(true, Money.TEN);
+        Assert.assertFalse(account.checkHighFrequencySmallIntervalViolation(0));
     }
 
     @Test
-    public void shouldReturnFalseWhenCallingCheckHighFrequencySmallIntervalViolationOnListWithLessThan3Elements() {
+    public void shouldReturnFalseWhenCallingCheckHighFrequencySmallIntervalViolationWith3TransactionsOnInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        Assert.assertFalse(account.checkHighFrequencySmallIntervalViolation(new ArrayList<>()));
+        Account account = new Account(true, Money.TEN);
+        Assert.assertFalse(account.checkHighFrequencySmallIntervalViolation(3));
     }
 
     @Test
-    public void shouldReturnTrueWhenCallingCheckHighFrequencySmallIntervalViolationOnListWithMoreThan3Element() {
+    public void shouldReturnTrueWhenCallingCheckHighFrequencySmallIntervalViolationWithMoreThan3TransactionsOnInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction("teste1", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste2", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste3", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste4", BigDecimal.ONE, Instant.now()));
-
-        Assert.assertTrue(account.checkHighFrequencySmallIntervalViolation(transactions));
+        Account account = new Account(true, Money.TEN);
+        Assert.assertTrue(account.checkHighFrequencySmallIntervalViolation(4));
     }
 
     @Test
-    public void shouldReturnFalseWhenCallingCheckDoubledTransactionOnNullList() {
+    public void shouldReturnFalseWhenCallingCheckDoubledTransactionWithNoSimilarTransactionsOnInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        Assert.assertFalse(account.checkDoubledTransaction(null,
-                new Transaction("teste1", BigDecimal.ONE, Instant.now())));
+        Account account = new Account(true, Money.TEN);
+        Assert.assertFalse(account.checkDoubledTransaction(0));
     }
 
     @Test
-    public void shouldReturnFalseWhenCallingCheckDoubledTransactionWithNullInsertedTransaction() {
+    public void shouldReturnFalseWhenCallingCheckDoubledTransactionWithOnlyTheInsertedTransactionOnInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
-        Assert.assertFalse(account.checkDoubledTransaction(new ArrayList<>(), null));
+        Account account = new Account(true, Money.TEN);
+        Assert.assertFalse(account.checkDoubledTransaction(1));
     }
 
     @Test
-    public void shouldReturnFalseWhenCallingCheckDoubledTransactionWithListThatDoesntContainsInsertedTransaction() {
-
-        Account account = new Account(true, BigDecimal.TEN);
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction("teste1", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste2", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste3", BigDecimal.ONE, Instant.now()));
-
-        Transaction insertedTransaction = new Transaction("teste4", BigDecimal.ONE, Instant.now());
-        transactions.add(insertedTransaction);
-
-        Assert.assertFalse(account.checkDoubledTransaction(transactions, insertedTransaction));
+    public void shouldReturnFalseWhenCallingCheckDoubledTransactionWithIntervalThatDoesntContainsInsertedTransaction() {
+
+        Account account = new Account(true, Money.TEN);
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste1",
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z")));
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste2",
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z")));
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste3",
+                Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z")));
+        Transaction insertedTransaction = account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent(
+                "teste4", Money.ONE, Instant.parse("2019-02-13T10:02:30.000Z")));
+
+        int similar = account.getTransactions().countSimilarInInterval(insertedTransaction);
+        Assert.assertFalse(account.checkDoubledTransaction(similar));
     }
 
     @Test
-    public void shouldReturnTrueWhenCallingCheckDoubledTransactionWithListThatDoesContainsDuplicatedInsertedTransaction() {
-
-        Account account = new Account(true, BigDecimal.TEN);
-        List<Transaction> transactions = new ArrayList<>();
-        transactions.add(new Transaction("teste1", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste2", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste3", BigDecimal.ONE, Instant.now()));
-        transactions.add(new Transaction("teste4", BigDecimal.ONE, Instant.now()));
-
-        Transaction insertedTransaction = new Transaction("teste4", BigDecimal.ONE, Instant.now());
-        transactions.add(insertedTransaction);
-
-        Assert.assertTrue(account.checkDoubledTransaction(transactions, insertedTransaction));
+    public void shouldReturnTrueWhenCallingCheckDoubledTransactionWithIntervalThatDoesContainsDuplicatedInsertedTransaction() {
+
+        Account account = new Account(true, Money.TEN);
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste1",
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z")));
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste2",
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z")));
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("teste4",
+                Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z")));
+        Transaction insertedTransaction = account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent(
+                "teste4", Money.ONE, Instant.parse("2019-02-13T10:02:30.000Z")));
+
+        int similar = account.getTransactions().countSimilarInInterval(insertedTransaction);
+        Assert.assertTrue(account.checkDoubledTransaction(similar));
     }
 
     @Test
     public void shouldReturnTransactionInstanceWhenCallingInsertTransactionEventOrderedByTime() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                BigDecimal.ONE, Instant.now());
+                Money.ONE, Instant.now());
 
         Assert.assertThat(account.insertTransactionEventOrderedByTime(event), instanceOf(Transaction.class));
     }
@@ -185,11 +194,11 @@ public class AccountTest {
     @Test
     public void shouldInsertTransactionsOrderedByTimeWhenCallingInsertTransactionEventOrderedByTime() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event1 = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
         TransactionAuthorizationEvent event2 = new TransactionAuthorizationEvent("test2",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
 
         Transaction firstInserted = account.insertTransactionEventOrderedByTime(event1);
         Transaction lastInserted = account.insertTransactionEventOrderedByTime(event2);
@@ -201,42 +210,42 @@ public class AccountTest {
     @Test
     public void shouldNotReduceAvailableLimitWhenCallingReduceAvailableLimitWithNullAmount() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         account.reduceAvailableLimit(null);
-        Assert.assertEquals(BigDecimal.TEN, account.getAvailableLimit());
+        Assert.assertEquals(Money.TEN, account.getAvailableLimit());
     }
 
     @Test
     public void shouldNotReduceAvailableLimitWhenCallingReduceAvailableLimitWithNullAvailableLimit() {
 
         Account account = new Account(true, null);
-        account.reduceAvailableLimit(BigDecimal.ONE);
+        account.reduceAvailableLimit(Money.ONE);
         Assert.assertNull(account.getAvailableLimit());
     }
 
     @Test
     public void shouldReduceAvailableLimitWhenCallingReduceAvailableLimitWithValidMoneyAndAvailableLimit() {
 
-        Account account = new Account(true, BigDecimal.ONE);
-        account.reduceAvailableLimit(BigDecimal.ONE);
-        Assert.assertEquals(BigDecimal.ZERO, account.getAvailableLimit());
+        Account account = new Account(true, Money.ONE);
+        account.reduceAvailableLimit(Money.ONE);
+        Assert.assertEquals(Money.ZERO, account.getAvailableLimit());
     }
 
     @Test
     public void shouldReturnEmptyListWhenCallingGet2MinuteTransactionWindowBeforeLastInsertedTransactionWithNullTransaction() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         Assert.assertTrue(account.get2MinuteInterval(null).isEmpty());
     }
 
     @Test
     public void shouldReturnEmptyListWhenCallingGet2MinuteTransactionWindowBeforeLastInsertedTransactionWithLessThan2MinutesInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event1 = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
         TransactionAuthorizationEvent event2 = new TransactionAuthorizationEvent("test2",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
 
         account.insertTransactionEventOrderedByTime(event1);
         Transaction lastInserted = account.insertTransactionEventOrderedByTime(event2);
@@ -247,15 +256,15 @@ public class AccountTest {
     @Test
     public void shouldReturnListOfTransactionsWhenCallingGet2MinuteTransactionWindowBeforeLastInsertedTransactionWithValid2MinutesInterval() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         TransactionAuthorizationEvent event1 = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
         TransactionAuthorizationEvent event2 = new TransactionAuthorizationEvent("test2",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
         TransactionAuthorizationEvent event3 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
         TransactionAuthorizationEvent event4 = new TransactionAuthorizationEvent("test4",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
 
         account.insertTransactionEventOrderedByTime(event1);
         account.insertTransactionEventOrderedByTime(event2);
@@ -268,97 +277,97 @@ public class AccountTest {
     @Test
     public void shouldReturnCardNotActiveViolationWhenTransactionViolatesThisBusinessRule(){
 
-        Account account = new Account(false, BigDecimal.TEN);
+        Account account = new Account(false, Money.TEN);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
 
-        List<String> violations = account.handleEvent(event);
-        Assert.assertTrue(violations.contains(ViolationEnum.CARD_NOT_ACTIVE.getDescription()));
+        int violations = account.handleEvent(event);
+        Assert.assertTrue(ViolationEnum.CARD_NOT_ACTIVE.isIn(violations));
     }
 
     @Test
     public void shouldReturnInsufficientLimitViolationWhenTransactionViolatesThisBusinessRule(){
 
-        Account account = new Account(true, BigDecimal.ZERO);
+        Account account = new Account(true, Money.ZERO);
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
 
-        List<String> violations = account.handleEvent(event);
-        Assert.assertTrue(violations.contains(ViolationEnum.INSUFFICIENT_LIMIT.getDescription()));
+        int violations = account.handleEvent(event);
+        Assert.assertTrue(ViolationEnum.INSUFFICIENT_LIMIT.isIn(violations));
     }
 
     @Test
     public void shouldReturnHighFrequencySmallIntervalViolationWhenTransactionViolatesThisBusinessRule(){
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
 
         TransactionAuthorizationEvent event1 = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
         TransactionAuthorizationEvent event2 = new TransactionAuthorizationEvent("test2",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
         TransactionAuthorizationEvent event3 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
         TransactionAuthorizationEvent event4 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:02:01.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:02:01.000Z"));
         TransactionAuthorizationEvent event5 = new TransactionAuthorizationEvent("test4",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
 
         account.insertTransactionEventOrderedByTime(event1);
         account.insertTransactionEventOrderedByTime(event2);
         account.insertTransactionEventOrderedByTime(event3);
         account.insertTransactionEventOrderedByTime(event4);
 
-        List<String> violations = account.handleEvent(event5);
-        Assert.assertTrue(violations.contains(ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL.getDescription()));
+        int violations = account.handleEvent(event5);
+        Assert.assertTrue(ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL.isIn(violations));
     }
 
     @Test
     public void shouldReturnDoubledTransactionViolationWhenTransactionViolatesThisBusinessRule(){
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
 
         TransactionAuthorizationEvent event1 = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
         TransactionAuthorizationEvent event2 = new TransactionAuthorizationEvent("test2",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:00:00.000Z"));
         TransactionAuthorizationEvent event3 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
         TransactionAuthorizationEvent event4 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:02:01.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:02:01.000Z"));
         TransactionAuthorizationEvent event5 = new TransactionAuthorizationEvent("test3",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:03:00.000Z"));
 
         account.insertTransactionEventOrderedByTime(event1);
         account.insertTransactionEventOrderedByTime(event2);
         account.insertTransactionEventOrderedByTime(event3);
         account.insertTransactionEventOrderedByTime(event4);
 
-        List<String> violations = account.handleEvent(event5);
-        Assert.assertTrue(violations.contains(ViolationEnum.DOUBLED_TRANSACTION.getDescription()));
+        int violations = account.handleEvent(event5);
+        Assert.assertTrue(ViolationEnum.DOUBLED_TRANSACTION.isIn(violations));
     }
 
     @Test
     public void shouldReduceAccountAvailableLimitIfValidTransactionEvent(){
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
 
         account.handleEvent(event);
-        Assert.assertEquals(new BigDecimal(9), account.getAvailableLimit());
+        Assert.assertEquals(Money.valueOf(9), account.getAvailableLimit());
     }
 
     @Test
-    public void shouldReturnEmptyViolationsListIfValidTransactionEvent(){
+    public void shouldReturnNoViolationsIfValidTransactionEvent(){
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("test1",
-                BigDecimal.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
+                Money.ONE, Instant.parse("2019-02-13T10:01:00.000Z"));
 
-        List<String> violations = account.handleEvent(event);
-        Assert.assertTrue(violations.isEmpty());
+        int violations = account.handleEvent(event);
+        Assert.assertEquals(0, violations);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.challenge.authorizer.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class MerchantDictionaryTest {
+
+    @Test
+    public void shouldGiveEachNameOneIdThatMapsBackToIt() {
+
+        MerchantDictionary dictionary = MerchantDictionary.getInstance();
+
+        int id = dictionary.idOf("dictionary-test-merchant");
+
+        Assert.assertEquals(id, dictionary.idOf(new String("dictionary-test-merchant")));
+        Assert.assertTrue(id != dictionary.idOf("dictionary-test-other-merchant"));
+        Assert.assertEquals("dictionary-test-merchant", dictionary.nameOf(id));
+        Assert.assertEquals(MerchantDictionary.NO_MERCHANT, dictionary.idOf(null));
+        Assert.assertNull(dictionary.nameOf(MerchantDictionary.NO_MERCHANT));
+    }
+
+    @Test
+    public void shouldGiveUtf8BytesTheIdOfTheirName() {
+
+        MerchantDictionary dictionary = MerchantDictionary.getInstance();
+        byte[] line = "{\"merchant\": \"Padaria S\u00e3o Jo\u00e3o\"}".getBytes(StandardCharsets.UTF_8);
+        int offset = 14;
+        int length = "Padaria S\u00e3o Jo\u00e3o".getBytes(StandardCharsets.UTF_8).length;
+
+        int id = dictionary.idOf(line, offset, length);
+
+        Assert.assertEquals(id, dictionary.idOf("Padaria S\u00e3o Jo\u00e3o"));
+        Assert.assertEquals(id, dictionary.idOf(Arrays.copyOfRange(line, offset, offset + length), 0, length));
+        Assert.assertEquals("Padaria S\u00e3o Jo\u00e3o", dictionary.nameOf(id));
+        Assert.assertTrue(id != dictionary.idOf(line, offset, length - 1));
+    }
+
+    @Test
+    public void shouldKeepUtf8IdsWhileTheByteTableGrows() {
+
+        MerchantDictionary dictionary = MerchantDictionary.getInstance();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+
+            byte[] name = ("utf8-merchant-" + i).getBytes(StandardCharsets.UTF_8);
+            ids.add(dictionary.idOf(name, 0, name.length));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+
+            byte[] name = ("utf8-merchant-" + i).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(ids.get(i).intValue(), dictionary.idOf(name, 0, name.length));
+            Assert.assertEquals("utf8-merchant-" + i, dictionary.nameOf(ids.get(i)));
+        }
+    }
+
+    @Test
+    public void shouldHandOutDenseIdsToNamesAddedConcurrently() throws InterruptedException {
+
+        MerchantDictionary dictionary = MerchantDictionary.getInstance();
+        int before = dictionary.size();
+        ConcurrentMap<String, Integer> seen = new ConcurrentHashMap<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+
+                    String name = "concurrent-merchant-" + i;
+                    int id = dictionary.idOf(name);
+                    Integer previous = seen.putIfAbsent(name, id);
+                    Assert.assertTrue(previous == null || previous == id);
+                    Assert.assertEquals(name, dictionary.nameOf(id));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(before + 500, dictionary.size());
+        for (int id : seen.values()) {
+            Assert.assertTrue(id >= before && id < before + 500);
+        }
+    }
+}
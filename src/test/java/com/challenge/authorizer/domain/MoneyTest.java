@@ -0,0 +1,56 @@
+package com.challenge.authorizer.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+public class MoneyTest {
+
+    private static final String[] VALUES = {"0", "1", "-1", "100", "20.50", "99.5", "0.001", "0.0000001", "-0.05",
+            "1E3", "1.5e-2", "123456.789", "9223372036854775807", "-9223372036854775808", "0.00", "1E-20"};
+
+    @Test
+    public void shouldPrintTheSameTextAsBigDecimal() {
+
+        for (String value : VALUES) {
+            Assert.assertEquals(new BigDecimal(value).toString(), Money.parse(value).toString());
+        }
+    }
+
+    @Test
+    public void shouldSubtractAndCompareLikeBigDecimal() {
+
+        for (String left : VALUES) {
+            for (String right : VALUES) {
+
+                BigDecimal expected = new BigDecimal(left).subtract(new BigDecimal(right));
+                if (expected.unscaledValue().bitLength() <= 63) {
+                    Assert.assertEquals(expected.toString(), Money.parse(left).subtract(Money.parse(right)).toString());
+                }
+                Assert.assertEquals(left + " vs " + right, new BigDecimal(left).compareTo(new BigDecimal(right)),
+                        Money.parse(left).compareTo(Money.parse(right)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeScaleSensitiveOnEqualsLikeBigDecimal() {
+
+        Assert.assertEquals(Money.valueOf(20), Money.parse("20"));
+        Assert.assertFalse(Money.parse("20").equals(Money.parse("20.0")));
+        Assert.assertEquals(0, Money.parse("20").compareTo(Money.parse("20.0")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldThrowArithmeticExceptionOnOverflow() {
+
+        Money.valueOf(Long.MIN_VALUE).subtract(Money.ONE);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldThrowArithmeticExceptionOnValuesOutOfRange() {
+
+        Money.parse("123456789012345678901234567890");
+    }
+}
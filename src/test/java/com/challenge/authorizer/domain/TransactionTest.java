@@ -3,7 +3,6 @@ package com.challenge.authorizer.domain;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 public class TransactionTest {
@@ -11,9 +10,9 @@ public class TransactionTest {
     @Test
     public void doReturnGreaterThanZeroIfTransactionMoreRecent() {
 
-        Transaction transaction1 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
-        Transaction transaction2 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:00:00.000Z"));
 
         Assert.assertTrue(transaction1.compareTo(transaction2) > 0);
@@ -22,9 +21,9 @@ public class TransactionTest {
     @Test
     public void doReturnLessThanZeroIfTransactionBeforeActual() {
 
-        Transaction transaction1 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
-        Transaction transaction2 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:00:00.000Z"));
 
         Assert.assertTrue(transaction2.compareTo(transaction1) < 0);
@@ -33,9 +32,9 @@ public class TransactionTest {
     @Test
     public void doReturnZeroIfTransactionsOnSameTime() {
 
-        Transaction transaction1 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
-        Transaction transaction2 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
 
         Assert.assertTrue(transaction2.compareTo(transaction1) == 0);
@@ -44,7 +43,7 @@ public class TransactionTest {
     @Test
     public void doReturnZeroWhenCallingMinutesBetweenTransactionsWithNullTransaction() {
 
-        Transaction transaction = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
         Assert.assertEquals(0.0D, transaction.minutesBetweenTransactions(null),0);
     }
@@ -52,9 +51,9 @@ public class TransactionTest {
     @Test
     public void doReturnValidIntervalWhenCallingMinutesBetweenTransactionsWithValidTransaction() {
 
-        Transaction transaction1 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:00:00.000Z"));
-        Transaction transaction2 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
 
         Assert.assertEquals(1.0D, transaction2.minutesBetweenTransactions(transaction1),0);
@@ -63,7 +62,7 @@ public class TransactionTest {
     @Test
     public void doReturnTrueWhenCallingEqualsForSameObject() {
 
-        Transaction transaction = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
         Assert.assertTrue(transaction.equals(transaction));
     }
@@ -71,15 +70,15 @@ public class TransactionTest {
     @Test
     public void doReturnFalseWhenCallingEqualsForObjectOfAnotherClass() {
 
-        Transaction transaction = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
-        Assert.assertFalse(transaction.equals(BigDecimal.ZERO));
+        Assert.assertFalse(transaction.equals(Money.ZERO));
     }
 
     @Test
     public void doReturnFalseWhenCallingEqualsForNullObject() {
 
-        Transaction transaction = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
         Assert.assertFalse(transaction.equals(null));
     }
@@ -87,11 +86,38 @@ public class TransactionTest {
     @Test
     public void doReturnTrueWhenCallingEqualsForObjectsWithSameMerchantAndAmount() {
 
-        Transaction transaction1 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
-        Transaction transaction2 = new Transaction("teste", BigDecimal.ONE,
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
                 Instant.parse("2019-02-13T10:01:00.000Z"));
 
         Assert.assertTrue(transaction1.equals(transaction2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void doReturnSameHashCodeForObjectsWithSameMerchantAndAmount() {
+
+        Transaction transaction1 = new Transaction("teste", Money.ONE,
+                Instant.parse("2019-02-13T10:01:00.000Z"));
+        Transaction transaction2 = new Transaction("teste", Money.ONE,
+                Instant.parse("2019-02-13T10:02:00.000Z"));
+
+        Assert.assertEquals(transaction1.hashCode(), transaction2.hashCode());
+    }
+
+    @Test
+    public void shouldCompareMerchantsThroughTheirDictionaryIds() {
+
+        Transaction transaction1 = new Transaction(new String("Burger King"), Money.ONE,
+                Instant.parse("2019-02-13T10:01:00.000Z"));
+        Transaction transaction2 = new Transaction(new String("Burger King"), Money.ONE,
+                Instant.parse("2019-02-13T10:02:00.000Z"));
+        Transaction noMerchant = new Transaction((String) null, Money.ONE, Instant.parse("2019-02-13T10:02:00.000Z"));
+
+        Assert.assertEquals(transaction1.getMerchantId(), transaction2.getMerchantId());
+        Assert.assertEquals(transaction1, transaction2);
+        Assert.assertEquals("Burger King", transaction1.getMerchant());
+        Assert.assertFalse(transaction1.equals(noMerchant));
+        Assert.assertNull(noMerchant.getMerchant());
+    }
+}
@@ -0,0 +1,198 @@
+package com.challenge.authorizer.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TransactionWindowTest {
+
+    private static final long HORIZON = 2 * 60 * 1000L;
+
+    private Transaction transactionAt(String time) {
+        return new Transaction("teste", Money.ONE, Instant.parse(time));
+    }
+
+    @Test
+    public void shouldKeepOnlyTransactionsInsideHorizonPlusLateness() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, 0);
+        Instant start = Instant.parse("2019-02-13T10:00:00.000Z");
+
+        for (int i = 0; i < 10000; i++) {
+            window.add(new Transaction("teste", Money.ONE, start.plusSeconds(i)));
+        }
+
+        Assert.assertEquals(121, window.size());
+        Assert.assertEquals(start.plusSeconds(9999), window.last().getTime());
+    }
+
+    @Test
+    public void shouldKeepAndCountEveryTransactionThatHappenedAtTheSameTime() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T09:58:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        Transaction other = new Transaction("other", Money.TEN, Instant.parse("2019-02-13T10:00:00.000Z"));
+
+        Assert.assertSame(other, window.add(other));
+        Assert.assertEquals(3, window.size());
+        Assert.assertEquals(3, window.countInterval(other.getTimeMillis()));
+        Assert.assertEquals(1, window.countSimilarInInterval(other));
+        Assert.assertSame(other, window.last());
+    }
+
+    @Test
+    public void shouldInsertLateTransactionsInsideTheWatermarkAndCountOnlyTheOthersBeyondIt() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:05:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:03:00.500Z"));
+        window.add(transactionAt("2019-02-13T10:03:00.100Z"));
+        window.add(transactionAt("2019-02-13T10:02:59.999Z"));
+
+        Transaction[] transactions = window.toArray();
+        Assert.assertEquals(4, transactions.length);
+        for (int i = 1; i < transactions.length; i++) {
+            Assert.assertTrue(transactions[i - 1].getTimeMillis() <= transactions[i].getTimeMillis());
+        }
+        Assert.assertEquals(Instant.parse("2019-02-13T10:02:59.999Z"), window.first().getTime());
+        Assert.assertEquals(3, window.countInterval(Instant.parse("2019-02-13T10:04:00.000Z").toEpochMilli()));
+        Assert.assertEquals(3, window.countInterval(Instant.parse("2019-02-13T10:05:00.000Z").toEpochMilli()));
+    }
+
+    @Test
+    public void shouldCountNothingWhileHistoryIsShorterThanHorizon() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:01:00.000Z"));
+
+        Assert.assertEquals(0, window.countInterval(Instant.parse("2019-02-13T10:01:00.000Z").toEpochMilli()));
+    }
+
+    @Test
+    public void shouldCountTransactionsInsideHorizonIncludingItsLimit() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:01:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:02:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:02:30.000Z"));
+
+        Assert.assertEquals(3, window.countInterval(Instant.parse("2019-02-13T10:02:00.000Z").toEpochMilli()));
+        Assert.assertEquals(3, window.countInterval(Instant.parse("2019-02-13T10:02:30.000Z").toEpochMilli()));
+    }
+
+    @Test
+    public void shouldCountLateTransactionsOnlyAgainstOlderOnes() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:03:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:01:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:02:00.000Z"));
+
+        Assert.assertEquals(3, window.countInterval(Instant.parse("2019-02-13T10:02:00.000Z").toEpochMilli()));
+        Assert.assertEquals(3, window.interval(transactionAt("2019-02-13T10:02:00.000Z")).size());
+        Assert.assertEquals(3, window.countSimilarInInterval(transactionAt("2019-02-13T10:02:00.000Z")));
+    }
+
+    @Test
+    public void shouldCountSimilarTransactionsOnlyWhileTheyAreInsideTheInterval() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(new Transaction("other", Money.ONE, Instant.parse("2019-02-13T09:00:00.000Z")));
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:01:00.000Z"));
+        window.add(new Transaction("teste", Money.TEN, Instant.parse("2019-02-13T10:01:30.000Z")));
+
+        Transaction inserted = transactionAt("2019-02-13T10:02:00.000Z");
+        window.add(inserted);
+        Assert.assertEquals(3, window.countSimilarInInterval(inserted));
+
+        inserted = transactionAt("2019-02-13T10:03:30.000Z");
+        window.add(inserted);
+        Assert.assertEquals(2, window.countSimilarInInterval(inserted));
+
+        inserted = transactionAt("2019-02-13T10:06:00.000Z");
+        window.add(inserted);
+        Assert.assertEquals(1, window.countSimilarInInterval(inserted));
+    }
+
+    @Test
+    public void shouldForgetSimilarTransactionsEvictedAfterAGapLongerThanTheRetention() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+
+        Transaction inserted = transactionAt("2019-02-13T10:10:00.000Z");
+        window.add(inserted);
+        Assert.assertEquals(1, window.countSimilarInInterval(inserted));
+
+        inserted = transactionAt("2019-02-13T10:11:00.000Z");
+        window.add(inserted);
+        Assert.assertEquals(2, window.countSimilarInInterval(inserted));
+    }
+
+    @Test
+    public void shouldIndexSimilarTransactionsRegardlessOfTheirArrivalOrder() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        window.add(transactionAt("2019-02-13T10:00:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:02:00.000Z"));
+        window.add(transactionAt("2019-02-13T10:01:00.000Z"));
+        window.add(transactionAt("2019-02-13T09:59:00.000Z"));
+
+        Transaction inserted = transactionAt("2019-02-13T10:02:30.000Z");
+        window.add(inserted);
+        Assert.assertEquals(3, window.countSimilarInInterval(inserted));
+    }
+
+    @Test
+    public void shouldCountAsAScanOfTheTransactionsKeptInsideTheWatermark() {
+
+        TransactionWindow window = new TransactionWindow(HORIZON, HORIZON);
+        List<Transaction> kept = new ArrayList<>();
+        Random random = new Random(42);
+        long now = Instant.parse("2019-02-13T10:00:00.000Z").toEpochMilli();
+        long newest = Long.MIN_VALUE;
+
+        for (int i = 0; i < 5000; i++) {
+
+            now += random.nextInt(20000);
+            long time = random.nextInt(4) == 0 ? now - random.nextInt(300000) : now;
+            Transaction transaction = new Transaction("m" + random.nextInt(3), Money.valueOf(random.nextInt(2)),
+                    Instant.ofEpochMilli(time));
+            window.add(transaction);
+
+            if (kept.isEmpty() || time >= newest - 2 * HORIZON) {
+
+                newest = Math.max(newest, time);
+                kept.add(transaction);
+            }
+            long watermark = newest - 2 * HORIZON;
+            kept.removeIf(t -> t.getTimeMillis() < watermark);
+
+            int interval = 0;
+            int similar = 0;
+            for (Transaction other : kept) {
+
+                if (other.getTimeMillis() >= time - HORIZON && other.getTimeMillis() <= time) {
+
+                    interval++;
+                    if (other.equals(transaction)) similar++;
+                }
+            }
+            boolean counted = window.getEarliestMillis() <= time - HORIZON;
+            Assert.assertEquals(kept.size(), window.size());
+            Assert.assertEquals(counted ? interval : 0, window.countInterval(time));
+            Assert.assertEquals(counted ? similar : 0, window.countSimilarInInterval(transaction));
+            Assert.assertEquals(counted ? interval : 0, window.interval(transaction).size());
+        }
+    }
+}
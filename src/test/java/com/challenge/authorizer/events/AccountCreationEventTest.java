@@ -1,24 +1,22 @@
 package com.challenge.authorizer.events;
 
-
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
 import com.challenge.authorizer.enums.ViolationEnum;
 import com.challenge.authorizer.models.OutputModel;
 import com.challenge.authorizer.state.AccountDataStore;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.math.BigDecimal;
-
 public class AccountCreationEventTest {
 
     @Test
     public void shouldReturnOutputModelWithAccountAlreadyInitialedViolationIfAccountAlreadyExists() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         AccountDataStore.getInstance().setAccount(account);
 
-        AccountCreationEvent event = new AccountCreationEvent(true, new BigDecimal(20));
+        AccountCreationEvent event = new AccountCreationEvent(true, Money.valueOf(20));
 
         OutputModel output = event.process();
         Assert.assertTrue(output.violations.contains(ViolationEnum.ACCOUNT_ALREADY_INITIALIZED.getDescription()));
@@ -29,7 +27,7 @@ public class AccountCreationEventTest {
 
         AccountDataStore.getInstance().setAccount(null);
 
-        AccountCreationEvent event = new AccountCreationEvent(true, BigDecimal.TEN);
+        AccountCreationEvent event = new AccountCreationEvent(true, Money.TEN);
 
         OutputModel output = event.process();
         Assert.assertTrue(output.violations.isEmpty());
@@ -40,7 +38,7 @@ public class AccountCreationEventTest {
 
         AccountDataStore.getInstance().setAccount(null);
 
-        AccountCreationEvent event = new AccountCreationEvent(true, BigDecimal.TEN);
+        AccountCreationEvent event = new AccountCreationEvent(true, Money.TEN);
 
         OutputModel output = event.process();
         Assert.assertEquals(true, output.account.activeCard);
@@ -51,9 +49,9 @@ public class AccountCreationEventTest {
 
         AccountDataStore.getInstance().setAccount(null);
 
-        AccountCreationEvent event = new AccountCreationEvent(true, BigDecimal.TEN);
+        AccountCreationEvent event = new AccountCreationEvent(true, Money.TEN);
 
         OutputModel output = event.process();
-        Assert.assertEquals(BigDecimal.TEN, output.account.availableLimit);
+        Assert.assertEquals(Money.TEN, output.account.availableLimit);
     }
 }
\ No newline at end of file
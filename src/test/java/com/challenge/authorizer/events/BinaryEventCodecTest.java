@@ -0,0 +1,82 @@
+package com.challenge.authorizer.events;
+
+import com.challenge.authorizer.domain.Money;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+public class BinaryEventCodecTest {
+
+    private static Event roundTrip(Event event) throws IOException {
+
+        BinaryEventCodec codec = new BinaryEventCodec();
+        int length = codec.encode(event);
+        byte[] record = Arrays.copyOf(codec.getBuffer(), length);
+
+        Assert.assertTrue(BinaryEventCodec.isRecord(record, 0, length));
+        Assert.assertEquals(length, BinaryEventCodec.recordLength(record, 0));
+        return BinaryEventCodec.decode(record, 0, length, null, null);
+    }
+
+    @Test
+    public void shouldDecodeAccountRecordsToTheSameValues() throws IOException {
+
+        AccountCreationEvent event = (AccountCreationEvent) roundTrip(
+                new AccountCreationEvent(123456789012L, true, Money.valueOf(1, -3)));
+        AccountCreationEvent empty = (AccountCreationEvent) roundTrip(new AccountCreationEvent(7L, null, null));
+
+        Assert.assertEquals(123456789012L, event.getAccountId());
+        Assert.assertEquals(Boolean.TRUE, event.getActiveCard());
+        Assert.assertEquals(Money.valueOf(1, -3), event.getAvailableLimit());
+        Assert.assertNull(empty.getActiveCard());
+        Assert.assertNull(empty.getAvailableLimit());
+    }
+
+    @Test
+    public void shouldDecodeTransactionRecordsToTheSameValues() throws IOException {
+
+        Instant time = Instant.parse("1969-12-31T23:59:59.123456789Z");
+        TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) roundTrip(
+                new TransactionAuthorizationEvent(-1L, "Caf\u00e9 \"Habbib's\"", Money.parse("-20.50"), time));
+        TransactionAuthorizationEvent empty = (TransactionAuthorizationEvent) roundTrip(
+                new TransactionAuthorizationEvent(null, null, null));
+
+        Assert.assertEquals(-1L, event.getAccountId());
+        Assert.assertEquals("Caf\u00e9 \"Habbib's\"", event.getMerchant());
+        Assert.assertEquals(Money.parse("-20.50"), event.getAmount());
+        Assert.assertEquals(time, event.getTime());
+        Assert.assertNull(empty.getMerchant());
+        Assert.assertNull(empty.getAmount());
+        Assert.assertNull(empty.getTime());
+    }
+
+    @Test
+    public void shouldRefillTheGivenHolders() throws IOException {
+
+        BinaryEventCodec codec = new BinaryEventCodec();
+        int length = codec.encode(new TransactionAuthorizationEvent("a", Money.ONE, Instant.EPOCH));
+        TransactionAuthorizationEvent holder = new TransactionAuthorizationEvent(null, null, null);
+
+        Assert.assertSame(holder, BinaryEventCodec.decode(codec.getBuffer(), 0, length, null, holder));
+        Assert.assertEquals("a", holder.getMerchant());
+    }
+
+    @Test
+    public void shouldNotTakeJsonLinesForRecords() {
+
+        byte[] line = "{\"account\": {}}".getBytes();
+        Assert.assertFalse(BinaryEventCodec.isRecord(line, 0, line.length));
+        Assert.assertFalse(BinaryEventCodec.isRecord(line, 0, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionOnTruncatedRecords() throws IOException {
+
+        BinaryEventCodec codec = new BinaryEventCodec();
+        int length = codec.encode(new TransactionAuthorizationEvent("merchant", Money.ONE, Instant.EPOCH));
+        BinaryEventCodec.decode(codec.getBuffer(), 0, length - 1, null, null);
+    }
+}
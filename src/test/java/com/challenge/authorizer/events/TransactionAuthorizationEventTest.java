@@ -1,13 +1,13 @@
 package com.challenge.authorizer.events;
 
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
 import com.challenge.authorizer.enums.ViolationEnum;
 import com.challenge.authorizer.models.OutputModel;
 import com.challenge.authorizer.state.AccountDataStore;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 public class TransactionAuthorizationEventTest {
@@ -18,7 +18,7 @@ public class TransactionAuthorizationEventTest {
         AccountDataStore.getInstance().setAccount(null);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(
-                "teste", BigDecimal.ONE, Instant.now());
+                "teste", Money.ONE, Instant.now());
 
         OutputModel output = event.process();
         Assert.assertTrue(output.violations.contains(ViolationEnum.ACCOUNT_NOT_INITIALIZED.getDescription()));
@@ -27,11 +27,11 @@ public class TransactionAuthorizationEventTest {
     @Test
     public void shouldReturnOutputModelWitNoViolationsIfAccountDoesExistsAndTransactionEventOK() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         AccountDataStore.getInstance().setAccount(account);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(
-                "teste", BigDecimal.ONE, Instant.now());
+                "teste", Money.ONE, Instant.now());
 
         OutputModel output = event.process();
         Assert.assertTrue(output.violations.isEmpty());
@@ -40,12 +40,11 @@ public class TransactionAuthorizationEventTest {
     @Test
     public void shouldReturnOutputModelWitActiveCardTrueIfAccountDoesExistsAndTransactionEventOK() {
 
-
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         AccountDataStore.getInstance().setAccount(account);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(
-                "teste", BigDecimal.ONE, Instant.now());
+                "teste", Money.ONE, Instant.now());
 
         OutputModel output = event.process();
         Assert.assertEquals(true, output.account.activeCard);
@@ -54,14 +53,14 @@ public class TransactionAuthorizationEventTest {
     @Test
     public void shouldReturnOutputModelWitCorrectAvailableLimitIfAccountDoesExistsAndTransactionEventOK() {
 
-        Account account = new Account(true, BigDecimal.TEN);
+        Account account = new Account(true, Money.TEN);
         AccountDataStore.getInstance().setAccount(account);
 
         TransactionAuthorizationEvent event = new TransactionAuthorizationEvent(
-                "teste", BigDecimal.ONE, Instant.now());
+                "teste", Money.ONE, Instant.now());
 
         OutputModel output = event.process();
-        Assert.assertEquals(new BigDecimal(9), output.account.availableLimit);
+        Assert.assertEquals(Money.valueOf(9), output.account.availableLimit);
     }
 
 }
\ No newline at end of file
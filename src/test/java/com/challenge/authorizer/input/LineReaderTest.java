@@ -0,0 +1,122 @@
+package com.challenge.authorizer.input;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LineReaderTest {
+
+    private static final String INPUT = "{\"account\": 1}\n\n{\"transaction\": \"Caf\u00e9\"}\r\n"
+            + "a line longer than the buffers used by these tests\n\r\nlast line without a break";
+
+    private static final List<String> LINES = Arrays.asList("{\"account\": 1}", "{\"transaction\": \"Caf\u00e9\"}",
+            "a line longer than the buffers used by these tests", "last line without a break");
+
+    private Path file;
+
+    @After
+    public void tearDown() throws IOException {
+
+        if (this.file != null) {
+            Files.deleteIfExists(this.file);
+        }
+    }
+
+    private List<String> readAll(LineReader reader) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+        try (LineReader in = reader) {
+
+            while (in.readLine()) {
+                lines.add(new String(in.getLine(), 0, in.getLength(), StandardCharsets.UTF_8));
+            }
+            Assert.assertFalse(in.readLine());
+        }
+        return lines;
+    }
+
+    private ChannelLineReader channelReader(String input, int bufferSize) {
+
+        return new ChannelLineReader(Channels.newChannel(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), bufferSize);
+    }
+
+    private MappedLineReader mappedReader(String input, int windowSize) throws IOException {
+
+        this.file = Files.createTempFile("authorizer", ".input");
+        Files.write(this.file, input.getBytes(StandardCharsets.UTF_8));
+        return new MappedLineReader(this.file, windowSize);
+    }
+
+    @Test
+    public void shouldSplitLinesFromAChannelWhateverTheBufferSize() throws IOException {
+
+        for (int bufferSize : new int[]{1, 2, 7, 16, LineReader.DEFAULT_BUFFER_SIZE}) {
+            Assert.assertEquals(LINES, readAll(channelReader(INPUT, bufferSize)));
+        }
+    }
+
+    @Test
+    public void shouldSplitLinesFromAMappedFileWhateverTheWindowSize() throws IOException {
+
+        for (int windowSize : new int[]{1, 3, 16, LineReader.DEFAULT_WINDOW_SIZE}) {
+
+            Assert.assertEquals(LINES, readAll(mappedReader(INPUT, windowSize)));
+            Files.delete(this.file);
+        }
+        this.file = null;
+    }
+
+    @Test
+    public void shouldReadNoLinesFromEmptyInputs() throws IOException {
+
+        Assert.assertTrue(readAll(channelReader("", 16)).isEmpty());
+        Assert.assertTrue(readAll(channelReader("\n\r\n", 16)).isEmpty());
+        Assert.assertTrue(readAll(mappedReader("", 16)).isEmpty());
+    }
+
+    @Test
+    public void shouldSplitBinaryRecordsByTheirOwnLengthWhateverTheBufferSize() throws IOException {
+
+        BinaryEventCodec codec = new BinaryEventCodec();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        records.write(codec.getBuffer(), 0, codec.encode(new AccountCreationEvent(true, Money.TEN)));
+        records.write(codec.getBuffer(), 0, codec.encode(new TransactionAuthorizationEvent("a\nmerchant", Money.ONE, Instant.EPOCH)));
+        byte[] input = records.toByteArray();
+
+        for (int bufferSize : new int[]{1, 5, LineReader.DEFAULT_BUFFER_SIZE}) {
+
+            LineReader reader = new ChannelLineReader(Channels.newChannel(new ByteArrayInputStream(input)), bufferSize)
+                    .withFormat(InputFormat.BINARY);
+            Assert.assertTrue(reader.readLine());
+            Assert.assertEquals(BinaryEventCodec.ACCOUNT_RECORD_LENGTH, reader.getLength());
+            Assert.assertTrue(reader.readLine());
+            Assert.assertEquals(input.length - BinaryEventCodec.ACCOUNT_RECORD_LENGTH, reader.getLength());
+            Assert.assertFalse(reader.readLine());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionOnTruncatedBinaryRecords() throws IOException {
+
+        LineReader reader = new ChannelLineReader(Channels.newChannel(new ByteArrayInputStream(
+                new byte[]{BinaryEventCodec.ACCOUNT_RECORD, 0, 0})), 16).withFormat(InputFormat.BINARY);
+        reader.readLine();
+    }
+}
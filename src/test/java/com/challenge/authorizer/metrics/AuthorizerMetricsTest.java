@@ -0,0 +1,80 @@
+package com.challenge.authorizer.metrics;
+
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.processor.EventProcessor;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+
+public class AuthorizerMetricsTest {
+
+    private AuthorizerMetrics metrics;
+
+    @Before
+    public void setUp() {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+        this.metrics = AuthorizerMetrics.getInstance();
+        this.metrics.reset();
+    }
+
+    private void processEvents() {
+
+        EventProcessor processor = new EventProcessor(new BufferedOutputSink(new ByteArrayOutputStream(), FlushPolicy.atEndOfStream()));
+        processor.process("{\"transaction\": {\"merchant\": \"a\", \"amount\": 10, \"time\": \"2019-02-13T10:00:00.000Z\"}}", false);
+        processor.process("{\"account\": {\"active-card\": false, \"available-limit\": 5}}", false);
+        processor.process("{\"transaction\": {\"merchant\": \"a\", \"amount\": 10, \"time\": \"2019-02-13T10:00:01.000Z\"}}", false);
+        processor.process("{\"transaction\": {\"merchant\": ", false);
+        processor.flush();
+    }
+
+    @Test
+    public void shouldCountEventsErrorsAndViolations() {
+
+        processEvents();
+
+        Assert.assertEquals(4, this.metrics.getEventsParsed());
+        Assert.assertEquals(3, this.metrics.getEventsAuthorized());
+        Assert.assertEquals(3, this.metrics.getOutputsWritten());
+        Assert.assertEquals(1, this.metrics.getParseErrors());
+        Assert.assertEquals(0, this.metrics.getProcessErrors());
+        Assert.assertEquals(Long.valueOf(1), this.metrics.getViolations().get("account-not-initialized"));
+        Assert.assertEquals(Long.valueOf(1), this.metrics.getViolations().get("card-not-active"));
+        Assert.assertEquals(Long.valueOf(1), this.metrics.getViolations().get("insufficient-limit"));
+        Assert.assertEquals(Long.valueOf(0), this.metrics.getViolations().get("doubled-transaction"));
+        Assert.assertEquals(4, this.metrics.getEventStoreEvents());
+        Assert.assertEquals(1, this.metrics.getEventStoreSegments());
+        Assert.assertEquals(0, this.metrics.getEventStoreLag());
+    }
+
+    @Test
+    public void shouldExposeTheMetricsOverJmx() throws Exception {
+
+        this.metrics.register();
+        this.metrics.register();
+        processEvents();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName metricsName = new ObjectName("com.challenge.authorizer:type=Metrics");
+        ObjectName parseName = new ObjectName("com.challenge.authorizer:type=Latency,stage=parse");
+
+        Assert.assertEquals(4L, server.getAttribute(metricsName, "EventsParsed"));
+        Assert.assertEquals(4L, server.getAttribute(parseName, "Count"));
+        Assert.assertTrue((Long) server.getAttribute(parseName, "P99") > 0);
+
+        TabularData violations = (TabularData) server.getAttribute(metricsName, "Violations");
+        CompositeData cardNotActive = violations.get(new Object[]{"card-not-active"});
+        Assert.assertEquals(1L, cardNotActive.get("value"));
+    }
+}
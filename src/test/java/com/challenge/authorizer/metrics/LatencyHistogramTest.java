@@ -0,0 +1,56 @@
+package com.challenge.authorizer.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapEveryValueToABucketHoldingIt() {
+
+        long[] values = {0, 1, 63, 64, 65, 66, 1000, 123456789, 1L << 40, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : values) {
+
+            int index = LatencyHistogram.index(value);
+            Assert.assertTrue(index >= previous);
+            Assert.assertTrue(LatencyHistogram.highestValue(index) >= value);
+            Assert.assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void shouldKeepPercentilesWithinThreePercentOfTheRecordedValues() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        Assert.assertEquals(100000, histogram.getCount());
+        Assert.assertEquals(100000000L, histogram.getMax());
+        Assert.assertEquals(50000500.0, histogram.getMean(), 0.001);
+        Assert.assertEquals(50000000, histogram.getP50(), 50000000 * 0.03);
+        Assert.assertEquals(99000000, histogram.getP99(), 99000000 * 0.03);
+        Assert.assertEquals(99900000, histogram.getP999(), 99900000 * 0.03);
+        Assert.assertEquals(100000000L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldReadZeroWhenEmptyOrReset() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getP99());
+        Assert.assertEquals(0.0, histogram.getMean(), 0);
+
+        histogram.record(42);
+        histogram.record(-5);
+        Assert.assertEquals(2, histogram.getCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+}
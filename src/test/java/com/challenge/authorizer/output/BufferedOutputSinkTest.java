@@ -0,0 +1,145 @@
+package com.challenge.authorizer.output;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.enums.ViolationEnum;
+import com.challenge.authorizer.models.AuthorizationResult;
+import com.challenge.authorizer.models.InnerAccountModel;
+import com.challenge.authorizer.models.OutputModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BufferedOutputSinkTest {
+
+    private List<OutputModel> getOutputModels() {
+
+        List<OutputModel> outputs = new ArrayList<>();
+        outputs.add(new OutputModel(null, Arrays.asList(ViolationEnum.ACCOUNT_NOT_INITIALIZED.getDescription())));
+        outputs.add(new OutputModel(new InnerAccountModel(true, Money.parse("100")), new ArrayList<>()));
+        outputs.add(new OutputModel(new InnerAccountModel(false, Money.parse("99.50")),
+                Arrays.asList(ViolationEnum.CARD_NOT_ACTIVE.getDescription(), ViolationEnum.INSUFFICIENT_LIMIT.getDescription())));
+        outputs.add(new OutputModel(new InnerAccountModel(null, Money.parse("1E+3")), null));
+        for (String limit : new String[]{"0.05", "-12.345", "0.0000001", "0.000001", "-9223372036854775808", "0"}) {
+            outputs.add(new OutputModel(new InnerAccountModel(true, Money.parse(limit)), new ArrayList<>()));
+        }
+        outputs.add(new OutputModel(new InnerAccountModel(true, null),
+                Arrays.asList("custom \"rule\"\t\u00e9\u0001")));
+        return outputs;
+    }
+
+    @Test
+    public void shouldWriteTheSameJsonLinesAsJackson() throws IOException {
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder expected = new StringBuilder();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.atEndOfStream());
+
+        for (OutputModel output : getOutputModels()) {
+
+            expected.append(mapper.writeValueAsString(output)).append(System.lineSeparator());
+            sink.write(output);
+        }
+        sink.flush();
+
+        Assert.assertEquals(expected.toString(), baos.toString("UTF-8"));
+    }
+
+    @Test
+    public void shouldWriteAuthorizationResultsAsTheirOutputModels() throws IOException {
+
+        AuthorizationResult[] results = new AuthorizationResult[3];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new AuthorizationResult();
+        }
+        results[0].setNoAccount(ViolationEnum.ACCOUNT_NOT_INITIALIZED.getMask());
+        results[1].setAccount(true, Money.parse("79.5"), 0);
+        results[2].setAccount(false, Money.ZERO, ViolationEnum.DOUBLED_TRANSACTION.getMask()
+                | ViolationEnum.CARD_NOT_ACTIVE.getMask() | ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL.getMask());
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder expected = new StringBuilder();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.atEndOfStream());
+
+        for (AuthorizationResult result : results) {
+
+            expected.append(mapper.writeValueAsString(result.toOutputModel())).append(System.lineSeparator());
+            sink.write(result);
+        }
+        sink.flush();
+
+        Assert.assertEquals(expected.toString(), baos.toString("UTF-8"));
+        Assert.assertTrue(baos.toString("UTF-8").contains("[\"card-not-active\",\"high-frequency-small-interval\",\"doubled-transaction\"]"));
+    }
+
+    @Test
+    public void shouldWriteOnEveryEventWhenUsingEveryEventPolicy() throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.everyEvent());
+
+        sink.write(getOutputModels().get(0));
+        Assert.assertTrue(baos.size() > 0);
+    }
+
+    @Test
+    public void shouldWriteOnlyAfterSizeThresholdWhenUsingSizePolicy() throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.bySize(100));
+        OutputModel output = getOutputModels().get(1);
+
+        sink.write(output);
+        Assert.assertEquals(0, baos.size());
+
+        sink.write(output);
+        Assert.assertTrue(baos.size() >= 100);
+    }
+
+    @Test
+    public void shouldWriteAfterIntervalWhenUsingTimePolicy() throws IOException, InterruptedException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.byTime(20));
+        OutputModel output = getOutputModels().get(1);
+
+        sink.write(output);
+        Thread.sleep(30);
+        sink.write(output);
+        Assert.assertTrue(baos.size() > 0);
+    }
+
+    @Test
+    public void shouldFlushWhenBufferIsFullEvenIfPolicyWaitsForEndOfStream() throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BufferedOutputSink sink = new BufferedOutputSink(baos, FlushPolicy.atEndOfStream(), 64);
+
+        for (int i = 0; i < 10; i++) {
+            sink.write(getOutputModels().get(2));
+        }
+        Assert.assertTrue(baos.size() > 0);
+    }
+
+    @Test
+    public void shouldParseFlushPolicyDescriptions() {
+
+        Assert.assertNotNull(FlushPolicy.parse("event"));
+        Assert.assertNotNull(FlushPolicy.parse("end"));
+        Assert.assertNotNull(FlushPolicy.parse("size:4096"));
+        Assert.assertNotNull(FlushPolicy.parse("time:100"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFlushPolicy() {
+
+        FlushPolicy.parse("never");
+    }
+}
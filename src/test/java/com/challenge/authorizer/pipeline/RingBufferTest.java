@@ -0,0 +1,95 @@
+package com.challenge.authorizer.pipeline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RingBufferTest {
+
+    private static final int ITEMS = 20000;
+
+    private void shouldHandOverEveryItemInOrder(int capacity, int items, WaitStrategy waitStrategy) throws InterruptedException {
+
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(capacity, AtomicLong::new, waitStrategy);
+        List<Long> taken = new ArrayList<>();
+
+        Thread consumer = new Thread(() -> {
+
+            for (int i = 0; i < items; i++) {
+
+                taken.add(ring.take().get());
+                ring.release();
+            }
+        });
+        consumer.start();
+
+        for (long i = 0; i < items; i++) {
+
+            ring.claim().set(i);
+            ring.publish();
+        }
+        consumer.join();
+
+        Assert.assertEquals(items, taken.size());
+        for (int i = 0; i < items; i++) {
+            Assert.assertEquals(i, taken.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void shouldHandOverEveryItemInOrderWithEveryWaitStrategy() throws InterruptedException {
+
+        // Spinning threads only hand over once descheduled when cores are scarce, so they get larger rings
+        shouldHandOverEveryItemInOrder(1024, ITEMS, WaitStrategy.busySpin());
+        shouldHandOverEveryItemInOrder(1024, ITEMS, WaitStrategy.yielding());
+        shouldHandOverEveryItemInOrder(8, ITEMS, WaitStrategy.parse("park:10"));
+    }
+
+    @Test
+    public void shouldWaitOnFullAndEmptySmallRingsWithEveryWaitStrategy() throws InterruptedException {
+
+        // Few items, so spinning threads handing over once per time slice still finish quickly
+        shouldHandOverEveryItemInOrder(2, 200, WaitStrategy.busySpin());
+        shouldHandOverEveryItemInOrder(2, 200, WaitStrategy.yielding());
+        shouldHandOverEveryItemInOrder(2, 200, WaitStrategy.parse("park:10"));
+    }
+
+    @Test
+    public void shouldReuseTheSameSlotsOnceReleased() {
+
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(2, AtomicLong::new, WaitStrategy.busySpin());
+
+        AtomicLong first = ring.claim();
+        ring.publish();
+        ring.claim();
+        ring.publish();
+        Assert.assertSame(first, ring.take());
+        ring.release();
+
+        Assert.assertSame(first, ring.claim());
+    }
+
+    @Test
+    public void shouldReturnNullOnceHaltedInsteadOfWaiting() {
+
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(1, AtomicLong::new, WaitStrategy.busySpin());
+
+        ring.claim().set(7);
+        ring.publish();
+        ring.halt();
+
+        Assert.assertNull(ring.claim());
+        Assert.assertEquals(7, ring.take().get());
+        ring.release();
+        Assert.assertNull(ring.take());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowIllegalArgumentExceptionOnCapacitiesThatAreNotPowersOfTwo() {
+
+        new RingBuffer<>(6, AtomicLong::new, WaitStrategy.busySpin());
+    }
+}
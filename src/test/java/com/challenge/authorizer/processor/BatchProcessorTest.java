@@ -0,0 +1,160 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class BatchProcessorTest {
+
+    private static final int ACCOUNTS = 10;
+
+    @Before
+    public void setUp() {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+    }
+
+    private List<String> events() {
+
+        List<String> events = new ArrayList<>();
+        Random random = new Random(11);
+        Instant time = Instant.parse("2019-02-13T10:00:00.000Z");
+        for (int account = 0; account < ACCOUNTS; account++) {
+            events.add("{\"account\": {\"account-id\": " + account + ", \"active-card\": true, \"available-limit\": 100}}");
+        }
+        for (int i = 0; i < 500; i++) {
+
+            time = time.plusMillis(random.nextInt(5000));
+            events.add("{\"transaction\": {\"account-id\": " + random.nextInt(ACCOUNTS + 2)
+                    + ", \"merchant\": \"merchant-" + random.nextInt(3) + "\", \"amount\": " + (1 + random.nextInt(3))
+                    + ", \"time\": \"" + time + "\"}}");
+            if (i % 100 == 0) {
+                events.add("{\"unknown\": [1, 2]}");
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void shouldProduceTheSameOutputsAsTheEventProcessorInArrayOrder() throws IOException {
+
+        List<String> events = events();
+        ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+        EventProcessor processor = new EventProcessor(new BufferedOutputSink(sequentialOutput, FlushPolicy.atEndOfStream()));
+        for (String event : events) {
+            processor.process(event, false);
+        }
+        processor.flush();
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+        byte[] batch = ("[" + String.join(",\n", events) + "]").getBytes(StandardCharsets.UTF_8);
+        List<OutputModel> outputs = new BatchProcessor().process(batch, 0, batch.length);
+
+        Assert.assertEquals(events.size(), outputs.size());
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder batchOutput = new StringBuilder();
+        for (int i = 0; i < outputs.size(); i++) {
+
+            Assert.assertEquals(events.get(i).startsWith("{\"unknown\""), outputs.get(i) == null);
+            if (outputs.get(i) != null) {
+                batchOutput.append(mapper.writeValueAsString(outputs.get(i))).append(System.lineSeparator());
+            }
+        }
+        Assert.assertEquals(sequentialOutput.toString("UTF-8"), batchOutput.toString());
+        Assert.assertEquals(events.size(), EventStore.getInstance().getNextSequence());
+        Assert.assertEquals(events.size() - 1, AccountDataStore.getInstance().getAppliedSequence());
+    }
+
+    @Test
+    public void shouldApplyNothingWhenTheBatchIsNotAnArray() {
+
+        String[] batches = {"{\"account\": {\"active-card\": true, \"available-limit\": 100}}",
+                "[{\"account\": {\"active-card\": true, \"available-limit\": 100}}", "[{}] []"};
+        for (String batch : batches) {
+
+            byte[] bytes = batch.getBytes(StandardCharsets.UTF_8);
+            try {
+
+                new BatchProcessor().process(bytes, 0, bytes.length);
+                Assert.fail("Expected IOException for " + batch);
+            } catch (IOException e) {
+
+                Assert.assertEquals(0, EventStore.getInstance().getNextSequence());
+                Assert.assertEquals(0, AccountDataStore.getInstance().size());
+            }
+        }
+    }
+
+    @Test
+    public void shouldReturnNoOutputsForAnEmptyArray() throws IOException {
+
+        byte[] batch = " [ ] ".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertTrue(new BatchProcessor().process(batch, 0, batch.length).isEmpty());
+        Assert.assertEquals(-1, AccountDataStore.getInstance().getAppliedSequence());
+    }
+
+    private static String transaction(String key, String merchant, int amount, String time) {
+
+        return "{\"idempotency-key\": \"" + key + "\", \"transaction\": {\"merchant\": \"" + merchant
+                + "\", \"amount\": " + amount + ", \"time\": \"" + time + "\"}}";
+    }
+
+    private static String output(int availableLimit) {
+        return "{\"account\":{\"active-card\":true,\"available-limit\":" + availableLimit + "},\"violations\":[]}";
+    }
+
+    /* First delivery through another processor sharing the cache, as on another connection */
+    private static IdempotencyCache cacheAfterFirstDelivery(String event) {
+
+        IdempotencyCache cache = new IdempotencyCache(16, 60000);
+        EventProcessor processor = new EventProcessor(new BufferedOutputSink(new ByteArrayOutputStream(), FlushPolicy.atEndOfStream()));
+        processor.setIdempotencyCache(cache);
+        processor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processor.process(event, false);
+        return cache;
+    }
+
+    @Test
+    public void shouldAnswerRedeliveredEventsWithTheirFirstOutput() throws IOException {
+
+        String first = transaction("t-0", "Burger King", 20, "2019-02-13T10:00:00.000Z");
+        String habbibs = transaction("t-1", "Habbib's", 30, "2019-02-13T10:01:00.000Z");
+        IdempotencyCache cache = cacheAfterFirstDelivery(first);
+
+        byte[] batch = ("[" + String.join(",", first, habbibs, habbibs,
+                transaction("t-2", "McDonald's", 10, "2019-02-13T10:02:00.000Z")) + "]").getBytes(StandardCharsets.UTF_8);
+        BatchProcessor processor = new BatchProcessor();
+        processor.setIdempotencyCache(cache);
+        List<OutputModel> outputs = processor.process(batch, 0, batch.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> written = new ArrayList<>();
+        for (OutputModel output : outputs) {
+            written.add(mapper.writeValueAsString(output));
+        }
+        Assert.assertEquals(Arrays.asList(output(80), output(50), output(50), output(40)), written);
+
+        byte[] redelivered = ("[" + habbibs + "]").getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(output(50), mapper.writeValueAsString(processor.process(redelivered, 0, redelivered.length).get(0)));
+        Assert.assertEquals(3, AccountDataStore.getInstance().getAccount().getTransactions().size());
+        Assert.assertEquals(3, EventStore.getInstance().getLastSequence());
+    }
+}
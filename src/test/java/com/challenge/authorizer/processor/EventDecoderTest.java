@@ -0,0 +1,177 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.Event;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import com.challenge.authorizer.state.AccountDataStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+
+public class EventDecoderTest {
+
+    private Event decode(String eventString) throws IOException {
+
+        byte[] bytes = eventString.getBytes(StandardCharsets.UTF_8);
+        return new EventDecoder().decode(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void shouldDecodeAccountCreationEventFields() throws IOException {
+
+        Event event = decode("{\"account\": {\"active-card\": true, \"available-limit\": 100}}");
+
+        Assert.assertThat(event, instanceOf(AccountCreationEvent.class));
+        Assert.assertEquals(Boolean.TRUE, Whitebox.getInternalState(event, "activeCard"));
+        Assert.assertEquals(Money.parse("100"), Whitebox.getInternalState(event, "availableLimit"));
+    }
+
+    @Test
+    public void shouldDecodeTransactionAuthorizationEventFields() throws IOException {
+
+        TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decode(
+                "{\"transaction\": {\"merchant\": \"Burger King\", \"amount\": 20,\"time\":\"2019-02-13T10:00:00.000Z\"}}");
+
+        Assert.assertEquals("Burger King", event.getMerchant());
+        Assert.assertEquals(Money.parse("20"), event.getAmount());
+        Assert.assertEquals(Instant.parse("2019-02-13T10:00:00.000Z"), event.getTime());
+    }
+
+    @Test
+    public void shouldDecodeAccountIdOrUseTheDefaultAccount() throws IOException {
+
+        TransactionAuthorizationEvent withId = (TransactionAuthorizationEvent) decode(
+                "{\"transaction\": {\"account-id\": 123456789012, \"merchant\": \"a\", \"amount\": 1, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+        TransactionAuthorizationEvent withoutId = (TransactionAuthorizationEvent) decode(
+                "{\"transaction\": {\"merchant\": \"a\", \"amount\": 1, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+        AccountCreationEvent account = (AccountCreationEvent) decode(
+                "{\"account\": {\"active-card\": true, \"account-id\": \"7\", \"available-limit\": 100}}");
+
+        Assert.assertEquals(123456789012L, withId.getAccountId());
+        Assert.assertEquals(AccountDataStore.DEFAULT_ACCOUNT_ID, withoutId.getAccountId());
+        Assert.assertEquals(7L, account.getAccountId());
+    }
+
+    @Test
+    public void shouldDecodeAmountsWithTheSameScaleAsBigDecimalParsing() throws IOException {
+
+        String[] amounts = {"0", "-20", "20.50", "0.001", "1E3", "1.5e-2", "9223372036854775807", "\"42.00\""};
+        for (String amount : amounts) {
+
+            TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decode(
+                    "{\"transaction\": {\"merchant\": \"a\", \"amount\": " + amount + ", \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+            Assert.assertEquals(new BigDecimal(amount.replace("\"", "")), event.getAmount().toBigDecimal());
+        }
+    }
+
+    @Test
+    public void shouldDecodeTimesExactlyAsInstantParse() throws IOException {
+
+        String[] times = {"2019-02-13T10:00:00Z", "2019-02-13T10:00:00.1Z", "2020-02-29T23:59:59.123456789Z",
+                "1969-12-31T23:59:59.999Z", "0001-01-01T00:00:00Z"};
+        for (String time : times) {
+
+            TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decode(
+                    "{\"transaction\": {\"merchant\": \"a\", \"amount\": 1, \"time\": \"" + time + "\"}}");
+            Assert.assertEquals(Instant.parse(time), event.getTime());
+        }
+    }
+
+    @Test
+    public void shouldDecodeEscapedMerchantNames() throws IOException {
+
+        TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decode(
+                "{\"transaction\": {\"merchant\": \"Habbib\\u0027s \\\"Caf\u00e9\\\"\", \"amount\": 1, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+
+        Assert.assertEquals("Habbib's \"Caf\u00e9\"", event.getMerchant());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownFieldsBeforeAndInsideTheEventNode() throws IOException {
+
+        TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decode(
+                "{\"meta\": {\"tags\": [\"a\", {\"b\": \"}\"}]}, \"transaction\": {\"extra\": null, "
+                        + "\"merchant\": \"a\", \"amount\": 1, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+
+        Assert.assertEquals("a", event.getMerchant());
+    }
+
+    @Test
+    public void shouldRefillTheSameEventInstancesWhenReusingEvents() throws IOException {
+
+        EventDecoder decoder = new EventDecoder(true);
+        byte[] first = "{\"transaction\": {\"merchant\": \"a\", \"amount\": 1, \"time\": \"2019-02-13T10:00:00.000Z\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] second = "{\"transaction\": {\"merchant\": \"b\", \"amount\": 2, \"time\": \"2019-02-13T10:00:01.000Z\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        TransactionAuthorizationEvent event = (TransactionAuthorizationEvent) decoder.decode(first, 0, first.length);
+        event.setSequence(5);
+        Assert.assertSame(event, decoder.decode(second, 0, second.length));
+        Assert.assertEquals("b", event.getMerchant());
+        Assert.assertEquals(Money.valueOf(2), event.getAmount());
+        Assert.assertEquals(-1, event.getSequence());
+    }
+
+    @Test
+    public void shouldSplitArraysInTheBoundsOfTheirElements() throws IOException {
+
+        String array = " [{\"account\": {\"a\": \"]}\"}}, 12 ,\n{\"transaction\": [1, {}]} ] ";
+        byte[] bytes = array.getBytes(StandardCharsets.UTF_8);
+
+        int[] bounds = new EventDecoder().splitArray(bytes, 0, bytes.length);
+
+        Assert.assertEquals(6, bounds.length);
+        Assert.assertEquals("{\"account\": {\"a\": \"]}\"}}", array.substring(bounds[0], bounds[0] + bounds[1]));
+        Assert.assertEquals("12", array.substring(bounds[2], bounds[2] + bounds[3]));
+        Assert.assertEquals("{\"transaction\": [1, {}]}", array.substring(bounds[4], bounds[4] + bounds[5]));
+    }
+
+    @Test
+    public void shouldReturnNullIfNoKnownEventNodeIsPresent() throws IOException {
+
+        Assert.assertNull(decode("{}"));
+        Assert.assertNull(decode("{\"other\": 1}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionOnAmountsThatDoNotFitOnMoney() throws IOException {
+
+        decode("{\"transaction\": {\"merchant\": \"a\", \"amount\": 123456789012345678901234567890, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionOnTruncatedEvent() throws IOException {
+
+        decode("{\"transaction\": {\"merchant\": \"a\", \"amount\": ");
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionOnInvalidTime() throws IOException {
+
+        decode("{\"transaction\": {\"merchant\": \"a\", \"amount\": 1, \"time\": \"2019-02-30T10:00:00.000Z\"}}");
+    }
+
+    @Test
+    public void shouldReadTheIdempotencyKeyWithoutDecodingTheEvent() {
+
+        EventDecoder decoder = new EventDecoder();
+        byte[] first = "{\"idempotency-key\": \"k-1\", \"transaction\": {\"amount\": 20}}".getBytes(StandardCharsets.UTF_8);
+        byte[] last = "{\"transaction\": {\"amount\": 20}, \"idempotency-key\": \"k-2\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] missing = "{\"transaction\": {\"idempotency-key\": \"nested\"}}".getBytes(StandardCharsets.UTF_8);
+        byte[] malformed = "{\"idempotency-key\": ".getBytes(StandardCharsets.UTF_8);
+
+        Assert.assertEquals("k-1", decoder.readIdempotencyKey(first, 0, first.length));
+        Assert.assertEquals("k-2", decoder.readIdempotencyKey(last, 0, last.length));
+        Assert.assertNull(decoder.readIdempotencyKey(missing, 0, missing.length));
+        Assert.assertNull(decoder.readIdempotencyKey(malformed, 0, malformed.length));
+    }
+}
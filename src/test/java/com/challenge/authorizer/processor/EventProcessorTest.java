@@ -1,15 +1,17 @@
 package com.challenge.authorizer.processor;
 
 import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
 import com.challenge.authorizer.domain.Transaction;
 import com.challenge.authorizer.events.AccountCreationEvent;
+import com.challenge.authorizer.events.BinaryEventCodec;
 import com.challenge.authorizer.events.TransactionAuthorizationEvent;
-import com.challenge.authorizer.models.AccountModel;
 import com.challenge.authorizer.models.OutputModel;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
 import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventRecord;
 import com.challenge.authorizer.state.EventStore;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -19,8 +21,9 @@ import org.powermock.reflect.Whitebox;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.math.BigDecimal;
+import java.time.Instant;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -29,7 +32,6 @@ import static org.junit.Assert.*;
 public class EventProcessorTest {
 
     private EventProcessor eventProcessor;
-    private ObjectMapper mapper;
 
     @Before
     public void setUp() throws Exception {
@@ -37,7 +39,6 @@ public class EventProcessorTest {
         AccountDataStore.getInstance().resetState();
         EventStore.getInstance().emptyEventStore();
         this.eventProcessor = new EventProcessor();
-        this.mapper = PowerMockito.mock(ObjectMapper.class);
     }
 
     @Test
@@ -66,8 +67,10 @@ public class EventProcessorTest {
 
         String eventString = "{\"account\": {\"active-card\": true, \"available-limit\": 100}}";
 
-        PowerMockito.doThrow(new IOException()).when(this.mapper).readValue(eventString, AccountModel.class);
-        Whitebox.setInternalState(eventProcessor, "mapper", mapper);
+        EventDecoder decoder = PowerMockito.mock(EventDecoder.class);
+        PowerMockito.doThrow(new IOException()).when(decoder)
+                .decode(Mockito.any(byte[].class), Mockito.anyInt(), Mockito.anyInt());
+        Whitebox.setInternalState(eventProcessor, "decoder", decoder);
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         PrintStream ps = new PrintStream(baos);
@@ -88,6 +91,7 @@ public class EventProcessorTest {
         PrintStream ps = new PrintStream(baos);
         System.setOut(ps);
 
+        this.eventProcessor = new EventProcessor();
         this.eventProcessor.process(eventString, false);
 
         String output = "";
@@ -103,6 +107,7 @@ public class EventProcessorTest {
         PrintStream ps = new PrintStream(baos);
         System.setOut(ps);
 
+        this.eventProcessor = new EventProcessor();
         this.eventProcessor.process(eventString, false);
 
         String output = "{\"account\":{\"active-card\":true,\"available-limit\":100},\"violations\":[]}\n";
@@ -110,13 +115,17 @@ public class EventProcessorTest {
     }
 
     @Test
-    public void shouldWriteMessageOnConsoleIfExceptionOccursWhenConvertingOutputEventToString() throws IOException {
+    public void shouldWriteMessageOnConsoleIfExceptionOccursWhenWritingOutputEvent() {
 
         String eventString = "{\"account\": {\"active-card\": true, \"available-limit\": 100}}";
 
-        this.mapper = Mockito.spy(new ObjectMapper());
-        Mockito.when( this.mapper.writeValueAsString(Mockito.any())).thenThrow(new JsonProcessingException("") {});
-        Whitebox.setInternalState(eventProcessor, "mapper", mapper);
+        OutputStream failingStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("closed");
+            }
+        };
+        this.eventProcessor = new EventProcessor(new BufferedOutputSink(failingStream, FlushPolicy.everyEvent()));
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         PrintStream ps = new PrintStream(baos);
@@ -128,13 +137,45 @@ public class EventProcessorTest {
         Assert.assertTrue(baos.toString().contains(exceptionMessage));
     }
 
+    @Test
+    public void shouldOnlyWriteBufferedOutputOnFlushWhenUsingEndOfStreamPolicy() {
+
+        String eventString = "{\"account\": {\"active-card\": true, \"available-limit\": 100}}";
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.eventProcessor = new EventProcessor(new BufferedOutputSink(baos, FlushPolicy.atEndOfStream()));
+
+        this.eventProcessor.process(eventString, false);
+        Assert.assertEquals("", baos.toString());
+
+        this.eventProcessor.flush();
+        String output = "{\"account\":{\"active-card\":true,\"available-limit\":100},\"violations\":[]}\n";
+        Assert.assertEquals(output, baos.toString());
+    }
+
+    @Test
+    public void shouldAuthorizeTransactionsAgainstTheAccountOfTheirAccountId() {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.eventProcessor = new EventProcessor(new BufferedOutputSink(baos, FlushPolicy.atEndOfStream()));
+
+        this.eventProcessor.process("{\"account\": {\"account-id\": 1, \"active-card\": true, \"available-limit\": 100}}", false);
+        this.eventProcessor.process("{\"account\": {\"account-id\": 2, \"active-card\": true, \"available-limit\": 50}}", false);
+        this.eventProcessor.process("{\"transaction\": {\"account-id\": 2, \"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}}", false);
+        this.eventProcessor.process("{\"transaction\": {\"account-id\": 3, \"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}}", false);
+        this.eventProcessor.flush();
+
+        Assert.assertEquals(Money.valueOf(100), AccountDataStore.getInstance().getAccount(1L).getAvailableLimit());
+        Assert.assertEquals(Money.valueOf(30), AccountDataStore.getInstance().getAccount(2L).getAvailableLimit());
+        Assert.assertTrue(baos.toString().endsWith("{\"account\":null,\"violations\":[\"account-not-initialized\"]}\n"));
+    }
+
     /* Checks that if in case of failure,
      * reprocessing of events on EventStore retores Account to correct state
      */
     @Test
     public void testingEventSourcingReprocessingMechanism(){
 
-
         String eventCreateAccount = "{\"account\": {\"active-card\": true, \"available-limit\": 100}}";
         String eventTransactionOK = "{\"transaction\": {\"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}}";
         String eventTransactionViolation = "{\"transaction\": {\"merchant\": \"Habbib's\", \"amount\": 90, \"time\": \"2019-02-13T11:00:00.000Z\"}}";
@@ -155,4 +196,54 @@ public class EventProcessorTest {
         assertEquals(accountBeforeReset.getTransactions(), reprocessedAccount.getTransactions());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldPersistEventsAsBinaryRecordsAndOtherLinesAsTheyCame() {
+
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        this.eventProcessor.process("not an event", false);
+
+        EventStore.getInstance().rewind();
+        EventRecord record = new EventRecord();
+        Assert.assertTrue(EventStore.getInstance().nextEvent(record));
+        Assert.assertTrue(BinaryEventCodec.isRecord(record.getBytes(), 0, record.getLength()));
+        Assert.assertTrue(EventStore.getInstance().nextEvent(record));
+        Assert.assertEquals("not an event", record.asString());
+    }
+
+    @Test
+    public void shouldProcessBinaryRecordsAsTheEventsTheyEncode() throws IOException {
+
+        BinaryEventCodec codec = new BinaryEventCodec();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.eventProcessor = new EventProcessor(new BufferedOutputSink(baos, FlushPolicy.atEndOfStream()));
+
+        int length = codec.encode(new AccountCreationEvent(true, Money.valueOf(100)));
+        this.eventProcessor.process(codec.getBuffer(), 0, length, false);
+        length = codec.encode(new TransactionAuthorizationEvent("Burger King", Money.valueOf(20),
+                Instant.parse("2019-02-13T10:00:00.000Z")));
+        this.eventProcessor.process(codec.getBuffer(), 0, length, false);
+        this.eventProcessor.flush();
+
+        Assert.assertTrue(baos.toString().endsWith("{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[]}\n"));
+    }
+
+    @Test
+    public void shouldAnswerRedeliveredEventsWithTheirFirstOutput() {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.eventProcessor = new EventProcessor(new BufferedOutputSink(baos, FlushPolicy.atEndOfStream()));
+        this.eventProcessor.setIdempotencyCache(new IdempotencyCache(16, 60000));
+
+        String transaction = "{\"idempotency-key\": \"t-1\", \"transaction\": {\"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}}";
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        this.eventProcessor.process(transaction, false);
+        this.eventProcessor.process(transaction, false);
+        this.eventProcessor.flush();
+
+        String output = "{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[]}\n";
+        Assert.assertTrue(baos.toString().endsWith(output + output));
+        Assert.assertEquals(Money.valueOf(80), AccountDataStore.getInstance().getAccount().getAvailableLimit());
+        Assert.assertEquals(1, AccountDataStore.getInstance().getAccount().getTransactions().size());
+        Assert.assertEquals(1, EventStore.getInstance().getLastSequence());
+    }
+}
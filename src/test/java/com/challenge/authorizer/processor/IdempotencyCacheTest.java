@@ -0,0 +1,61 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.models.AuthorizationResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdempotencyCacheTest {
+
+    private static AuthorizationResult result(int limit) {
+
+        AuthorizationResult result = new AuthorizationResult();
+        result.setAccount(true, Money.valueOf(limit), 0);
+        return result;
+    }
+
+    @Test
+    public void shouldKeepACopyOfTheOutput() {
+
+        IdempotencyCache cache = new IdempotencyCache(16, 1000);
+        AuthorizationResult result = result(80);
+
+        cache.put("k", result);
+        result.setNoAccount(0);
+
+        Assert.assertEquals(Money.valueOf(80), cache.get("k").getAvailableLimit());
+        Assert.assertNull(cache.get("other"));
+    }
+
+    @Test
+    public void shouldExpireKeysAfterTheirTimeToLive() {
+
+        AtomicLong now = new AtomicLong();
+        IdempotencyCache cache = new IdempotencyCache(16, 1000, now::get);
+
+        cache.put("first", result(1));
+        now.set(600000000L);
+        cache.put("second", result(2));
+
+        now.set(1000000000L);
+        Assert.assertNull(cache.get("first"));
+        Assert.assertNotNull(cache.get("second"));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldEvictTheOldestKeysPastTheMaximumSize() {
+
+        IdempotencyCache cache = new IdempotencyCache(2, 1000);
+
+        cache.put("first", result(1));
+        cache.put("second", result(2));
+        cache.put("third", result(3));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("first"));
+        Assert.assertNotNull(cache.get("third"));
+    }
+}
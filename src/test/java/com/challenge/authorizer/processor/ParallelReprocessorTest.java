@@ -0,0 +1,98 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.DiscardingOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelReprocessorTest {
+
+    private static final int ACCOUNTS = 40;
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+
+        this.pool.shutdown();
+    }
+
+    private void processEvents(EventProcessor processor) {
+
+        Random random = new Random(42);
+        Instant time = Instant.parse("2019-02-13T10:00:00.000Z");
+        for (int account = 0; account < ACCOUNTS; account++) {
+            processor.process("{\"account\": {\"account-id\": " + account + ", \"active-card\": true, \"available-limit\": 500}}", false);
+        }
+        for (int i = 0; i < 2000; i++) {
+
+            time = time.plusMillis(random.nextInt(5000));
+            processor.process("{\"transaction\": {\"account-id\": " + random.nextInt(ACCOUNTS + 2)
+                    + ", \"merchant\": \"merchant-" + random.nextInt(3) + "\", \"amount\": " + (1 + random.nextInt(3))
+                    + ", \"time\": \"" + time + "\"}}", false);
+            if (i % 500 == 0) {
+                processor.process("{}", false);
+            }
+        }
+        processor.flush();
+    }
+
+    @Test
+    public void shouldReplayToTheSameOutputAndStateAsTheSequentialProcessing() {
+
+        ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+        processEvents(new EventProcessor(new BufferedOutputSink(sequentialOutput, FlushPolicy.atEndOfStream())));
+
+        Map<Long, Account> sequentialAccounts = new HashMap<>();
+        for (long account = 0; account < ACCOUNTS; account++) {
+            sequentialAccounts.put(account, AccountDataStore.getInstance().getAccount(account));
+        }
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().rewind();
+        ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+        ReprocessReport report = new ParallelReprocessor(
+                new BufferedOutputSink(parallelOutput, FlushPolicy.atEndOfStream()), this.pool, 64).reprocess();
+
+        Assert.assertEquals(sequentialOutput.toString(), parallelOutput.toString());
+        for (long account = 0; account < ACCOUNTS; account++) {
+
+            Account expected = sequentialAccounts.get(account);
+            Account replayed = AccountDataStore.getInstance().getAccount(account);
+            Assert.assertEquals(expected.getAvailableLimit(), replayed.getAvailableLimit());
+            Assert.assertEquals(expected.getTransactions(), replayed.getTransactions());
+        }
+        Assert.assertEquals(EventStore.getInstance().getNextSequence(), report.getEvents());
+        Assert.assertEquals(EventStore.getInstance().getNextSequence() - 1, AccountDataStore.getInstance().getAppliedSequence());
+        Assert.assertEquals(16, report.getPartitions());
+    }
+
+    @Test
+    public void shouldReportNoEventsWhenTheEventStoreIsEmpty() {
+
+        ReprocessReport report = new ParallelReprocessor(new DiscardingOutputSink(), this.pool).reprocess();
+
+        Assert.assertEquals(0, report.getEvents());
+    }
+}
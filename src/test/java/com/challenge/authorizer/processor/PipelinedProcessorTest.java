@@ -0,0 +1,186 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.input.LineReader;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.pipeline.WaitStrategy;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PipelinedProcessorTest {
+
+    private static final int ACCOUNTS = 20;
+
+    @Before
+    public void setUp() {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+    }
+
+    private List<String> inputLines() {
+
+        List<String> lines = new ArrayList<>();
+        Random random = new Random(7);
+        Instant time = Instant.parse("2019-02-13T10:00:00.000Z");
+        for (int account = 0; account < ACCOUNTS; account++) {
+            lines.add("{\"account\": {\"account-id\": " + account + ", \"active-card\": true, \"available-limit\": 300}}");
+        }
+        for (int i = 0; i < 3000; i++) {
+
+            time = time.plusMillis(random.nextInt(5000));
+            lines.add("{\"transaction\": {\"account-id\": " + random.nextInt(ACCOUNTS + 2)
+                    + ", \"merchant\": \"merchant-" + random.nextInt(3) + "\", \"amount\": " + (1 + random.nextInt(3))
+                    + ", \"time\": \"" + time + "\"}}");
+            if (i % 700 == 0) {
+                lines.add("{\"transaction\": ");
+            }
+        }
+        return lines;
+    }
+
+    private String runPipeline(List<String> lines, int ringSize, WaitStrategy waitStrategy) throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+
+        byte[] input = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (LineReader reader = LineReader.forChannel(Channels.newChannel(new ByteArrayInputStream(input)))) {
+            new PipelinedProcessor(new BufferedOutputSink(output, FlushPolicy.atEndOfStream()), ringSize, waitStrategy)
+                    .process(reader);
+        }
+        return output.toString("UTF-8");
+    }
+
+    private String runSequentially(List<String> lines) throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        EventProcessor processor = new EventProcessor(new BufferedOutputSink(output, FlushPolicy.atEndOfStream()));
+        for (String line : lines) {
+            processor.process(line, false);
+        }
+        processor.flush();
+        return output.toString("UTF-8");
+    }
+
+    @Test
+    public void shouldProduceTheSameOutputAndStateAsTheEventProcessor() throws IOException {
+
+        List<String> lines = inputLines();
+        String sequentialOutput = runSequentially(lines);
+
+        List<Account> sequentialAccounts = new ArrayList<>();
+        for (long account = 0; account < ACCOUNTS; account++) {
+            sequentialAccounts.add(AccountDataStore.getInstance().getAccount(account));
+        }
+        long sequentialEvents = EventStore.getInstance().getNextSequence();
+
+        // Spinning threads only hand over once descheduled when cores are scarce, so they get larger rings
+        int[] ringSizes = {4096, 4096, 4};
+        WaitStrategy[] waitStrategies = {WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking(10)};
+        for (int i = 0; i < ringSizes.length; i++) {
+
+            Assert.assertEquals(sequentialOutput, runPipeline(lines, ringSizes[i], waitStrategies[i]));
+            for (int account = 0; account < ACCOUNTS; account++) {
+
+                Account expected = sequentialAccounts.get(account);
+                Account pipelined = AccountDataStore.getInstance().getAccount(account);
+                Assert.assertEquals(expected.getAvailableLimit(), pipelined.getAvailableLimit());
+                Assert.assertEquals(expected.getTransactions(), pipelined.getTransactions());
+            }
+            Assert.assertEquals(sequentialEvents, EventStore.getInstance().getNextSequence());
+            Assert.assertEquals(sequentialEvents - 1, AccountDataStore.getInstance().getAppliedSequence());
+        }
+    }
+
+    @Test
+    public void shouldWrapAroundSmallRingsWithEveryWaitStrategy() throws IOException {
+
+        // Few events, so spinning threads handing over once per time slice still finish quickly
+        List<String> lines = inputLines().subList(0, 60);
+        String sequentialOutput = runSequentially(lines);
+        long sequentialEvents = EventStore.getInstance().getNextSequence();
+
+        for (WaitStrategy waitStrategy : new WaitStrategy[]{WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking(10)}) {
+
+            Assert.assertEquals(sequentialOutput, runPipeline(lines, 2, waitStrategy));
+            Assert.assertEquals(sequentialEvents, EventStore.getInstance().getNextSequence());
+        }
+    }
+
+    @Test
+    public void shouldFinishOnEmptyInput() throws IOException {
+
+        Assert.assertEquals("", runPipeline(new ArrayList<>(), 2, WaitStrategy.parse("park")));
+        Assert.assertEquals(0, EventStore.getInstance().getNextSequence());
+    }
+
+    private static String transaction(String key, String merchant, int amount, String time) {
+
+        return "{\"idempotency-key\": \"" + key + "\", \"transaction\": {\"merchant\": \"" + merchant
+                + "\", \"amount\": " + amount + ", \"time\": \"" + time + "\"}}";
+    }
+
+    private static String output(int availableLimit) {
+        return "{\"account\":{\"active-card\":true,\"available-limit\":" + availableLimit + "},\"violations\":[]}";
+    }
+
+    /* First delivery through another processor sharing the cache, as on another connection */
+    private static IdempotencyCache cacheAfterFirstDelivery(String event) {
+
+        IdempotencyCache cache = new IdempotencyCache(16, 60000);
+        EventProcessor processor = new EventProcessor(new BufferedOutputSink(new ByteArrayOutputStream(), FlushPolicy.atEndOfStream()));
+        processor.setIdempotencyCache(cache);
+        processor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processor.process(event, false);
+        return cache;
+    }
+
+    @Test
+    public void shouldAnswerRedeliveredEventsWithTheirFirstOutput() throws IOException {
+
+        String first = transaction("t-0", "Burger King", 20, "2019-02-13T10:00:00.000Z");
+        String habbibs = transaction("t-1", "Habbib's", 30, "2019-02-13T10:01:00.000Z");
+        IdempotencyCache cache = cacheAfterFirstDelivery(first);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(first);
+        lines.add(habbibs);
+        lines.add(habbibs);
+        lines.add(transaction("t-2", "McDonald's", 10, "2019-02-13T10:02:00.000Z"));
+        lines.add(habbibs);
+
+        byte[] input = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (LineReader reader = LineReader.forChannel(Channels.newChannel(new ByteArrayInputStream(input)))) {
+
+            PipelinedProcessor pipeline = new PipelinedProcessor(new BufferedOutputSink(output, FlushPolicy.atEndOfStream()),
+                    2, WaitStrategy.parking(10));
+            pipeline.setIdempotencyCache(cache);
+            pipeline.process(reader);
+        }
+
+        String expected = String.join("\n", output(80), output(50), output(50), output(40), output(50)) + "\n";
+        Assert.assertEquals(expected, output.toString("UTF-8"));
+        Assert.assertEquals(3, AccountDataStore.getInstance().getAccount().getTransactions().size());
+        Assert.assertEquals(3, EventStore.getInstance().getLastSequence());
+    }
+}
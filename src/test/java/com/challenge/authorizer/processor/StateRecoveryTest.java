@@ -0,0 +1,157 @@
+package com.challenge.authorizer.processor;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.output.BufferedOutputSink;
+import com.challenge.authorizer.output.DiscardingOutputSink;
+import com.challenge.authorizer.output.FlushPolicy;
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import com.challenge.authorizer.state.MappedAccountStores;
+import com.challenge.authorizer.state.SnapshotStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class StateRecoveryTest {
+
+    private Path directory;
+    private SnapshotStore snapshots;
+    private EventProcessor eventProcessor;
+
+    @Before
+    public void setUp() throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+        this.directory = Files.createTempDirectory("state-recovery-test");
+        this.snapshots = new SnapshotStore(this.directory);
+        this.eventProcessor = new EventProcessor(new DiscardingOutputSink());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private void processTransaction(String merchant, int amount, String time) {
+
+        this.eventProcessor.process("{\"transaction\": {\"merchant\": \"" + merchant + "\", \"amount\": " + amount
+                + ", \"time\": \"" + time + "\"}}", false);
+    }
+
+    @Test
+    public void shouldRecoverFromSnapshotReplayingOnlyTheEventsAfterIt() throws IOException {
+
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processTransaction("Burger King", 20, "2019-02-13T10:00:00.000Z");
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+        processTransaction("Habbib's", 30, "2019-02-13T10:01:00.000Z");
+        processTransaction("Habbib's", 30, "2019-02-13T10:01:30.000Z");
+
+        Account accountBeforeCrash = AccountDataStore.getInstance().getAccount();
+
+        Assert.assertEquals(2, new StateRecovery(this.snapshots).recover());
+
+        Account recoveredAccount = AccountDataStore.getInstance().getAccount();
+        Assert.assertEquals(accountBeforeCrash.getAvailableLimit(), recoveredAccount.getAvailableLimit());
+        Assert.assertEquals(accountBeforeCrash.getTransactions(), recoveredAccount.getTransactions());
+        Assert.assertEquals(3, AccountDataStore.getInstance().getAppliedSequence());
+    }
+
+    @Test
+    public void shouldSkipReplayedEventsAlreadyOnTheSnapshotAccounts() throws IOException {
+
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processTransaction("Burger King", 20, "2019-02-13T10:00:00.000Z");
+        processTransaction("Habbib's", 30, "2019-02-13T10:01:00.000Z");
+
+        /* Snapshot started before the last event was acknowledged, but the account copy already holds it */
+        AccountDataStore.getInstance().setAppliedSequence(1);
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+
+        new StateRecovery(this.snapshots).recover();
+
+        Account recoveredAccount = AccountDataStore.getInstance().getAccount();
+        Assert.assertEquals(Money.valueOf(50), recoveredAccount.getAvailableLimit());
+        Assert.assertEquals(2, recoveredAccount.getTransactions().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowIllegalStateExceptionWhenTheEventStoreEndsBeforeTheSnapshot() throws IOException {
+
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processTransaction("Burger King", 20, "2019-02-13T10:00:00.000Z");
+        processTransaction("Habbib's", 30, "2019-02-13T10:01:00.000Z");
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+
+        /* A new log, numbering its events from 0 again */
+        EventStore.getInstance().emptyEventStore();
+        processTransaction("McDonald's", 40, "2019-02-13T10:02:00.000Z");
+
+        new StateRecovery(this.snapshots).recover();
+    }
+
+    @Test
+    public void shouldReplayFromATimeWritingOnlyTheOutputsFromThere() throws IOException {
+
+        this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+        processTransaction("Burger King", 20, "2019-02-13T10:00:00.000Z");
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+        processTransaction("Habbib's", 30, "2019-02-13T10:01:00.000Z");
+        processTransaction("McDonald's", 40, "2019-02-13T10:02:00.000Z");
+
+        Account accountBeforeReplay = AccountDataStore.getInstance().getAccount();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long sequence = new StateRecovery(this.snapshots).replayFrom(Instant.parse("2019-02-13T10:01:30.000Z"),
+                new BufferedOutputSink(out, FlushPolicy.atEndOfStream()));
+
+        Assert.assertEquals(3, sequence);
+        Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":10},\"violations\":[]}\n",
+                out.toString("UTF-8"));
+        Assert.assertEquals(accountBeforeReplay.getTransactions(), AccountDataStore.getInstance().getAccount().getTransactions());
+    }
+
+    @Test
+    public void shouldLeaveTheMappedAccountFileAsItIsWhenReplaying() throws IOException {
+
+        Path file = Files.createDirectories(this.directory.resolve("accounts")).resolve("accounts.dat");
+        MappedAccountStores.install(file);
+        try {
+
+            this.eventProcessor.process("{\"account\": {\"active-card\": true, \"available-limit\": 100}}", false);
+            processTransaction("Burger King", 20, "2019-02-13T10:00:00.000Z");
+            this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+            processTransaction("Habbib's", 30, "2019-02-13T10:01:00.000Z");
+
+            byte[] accounts = Files.readAllBytes(file);
+            byte[] merchants = Files.readAllBytes(file.resolveSibling("accounts.dat.merchants"));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            new StateRecovery(this.snapshots).replayFrom(2, new BufferedOutputSink(out, FlushPolicy.atEndOfStream()));
+
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":50},\"violations\":[]}\n",
+                    out.toString("UTF-8"));
+            Assert.assertFalse(AccountDataStore.getInstance().isDurable());
+            Assert.assertTrue(Arrays.equals(accounts, Files.readAllBytes(file)));
+            Assert.assertTrue(Arrays.equals(merchants, Files.readAllBytes(file.resolveSibling("accounts.dat.merchants"))));
+        }
+        finally {
+            MappedAccountStores.uninstall();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.challenge.authorizer.rules;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.domain.Transaction;
+import com.challenge.authorizer.enums.ViolationEnum;
+import com.challenge.authorizer.events.TransactionAuthorizationEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RulePlanTest {
+
+    private static int evaluate(RulePlan plan, Account account, Money amount) {
+
+        TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("Burger King", amount,
+                Instant.parse("2019-02-13T10:00:00.000Z"));
+        Transaction transaction = account.insertTransactionEventOrderedByTime(event);
+        return plan.evaluate(account, event, transaction);
+    }
+
+    @Test
+    public void shouldCheckTheCheapestRulesFirstKeepingTheGivenOrderOnTies() {
+
+        RulePlan plan = RulePlan.compile(RulePlan.defaultRules(), false, false);
+
+        List<ViolationEnum> order = new ArrayList<>();
+        for (Rule rule : plan.getRules()) {
+            order.add(rule.getViolation());
+        }
+        Assert.assertEquals(Arrays.asList(ViolationEnum.CARD_NOT_ACTIVE, ViolationEnum.INSUFFICIENT_LIMIT,
+                ViolationEnum.DOUBLED_TRANSACTION, ViolationEnum.HIGH_FREQUENCY_SMALL_INTERVAL), order);
+    }
+
+    @Test
+    public void shouldReportEveryViolationByDefault() {
+
+        RulePlan plan = RulePlan.compile(RulePlan.defaultRules(), false, false);
+
+        int violations = evaluate(plan, new Account(false, Money.ONE), Money.TEN);
+
+        Assert.assertEquals(ViolationEnum.CARD_NOT_ACTIVE.getMask() | ViolationEnum.INSUFFICIENT_LIMIT.getMask(), violations);
+    }
+
+    @Test
+    public void shouldSkipTheRemainingRulesAndTheirInputsWhenStoppingAtTheFirstViolation() {
+
+        CountingRule expensive = new CountingRule();
+        RulePlan plan = RulePlan.compile(Arrays.asList(expensive, new CardNotActiveRule()), true, false);
+
+        int violations = evaluate(plan, new Account(false, Money.ONE), Money.TEN);
+
+        Assert.assertEquals(ViolationEnum.CARD_NOT_ACTIVE.getMask(), violations);
+        Assert.assertEquals(0, expensive.checks);
+    }
+
+    @Test
+    public void shouldComputeEachInputOnceForAllTheRulesReadingIt() {
+
+        Account account = new Account(true, Money.TEN);
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("Burger King", Money.ONE,
+                Instant.parse("2019-02-13T09:57:00.000Z")));
+        TransactionAuthorizationEvent event = new TransactionAuthorizationEvent("Burger King", Money.ONE,
+                Instant.parse("2019-02-13T10:00:00.000Z"));
+        RuleContext context = new RuleContext(account, event, account.insertTransactionEventOrderedByTime(event));
+
+        Assert.assertEquals(1, context.getTransactionsOnInterval());
+        account.insertTransactionEventOrderedByTime(new TransactionAuthorizationEvent("Burger King", Money.ONE,
+                Instant.parse("2019-02-13T10:00:01.000Z")));
+        Assert.assertEquals(1, context.getTransactionsOnInterval());
+    }
+
+    @Test
+    public void shouldRecordTheLatencyOfEachRuleOnTimedPlans() {
+
+        RulePlan plan = RulePlan.compile(RulePlan.defaultRules(), false, true);
+
+        evaluate(plan, new Account(true, Money.TEN), Money.ONE);
+
+        Assert.assertTrue(plan.isTimed());
+        for (int i = 0; i < plan.getRules().size(); i++) {
+            Assert.assertEquals(1, plan.getLatency(i).getCount());
+        }
+        Assert.assertNull(RulePlan.compile(RulePlan.defaultRules(), false, false).getLatency(0));
+    }
+
+    private static final class CountingRule implements Rule {
+
+        private int checks;
+
+        @Override
+        public ViolationEnum getViolation() {
+            return ViolationEnum.DOUBLED_TRANSACTION;
+        }
+
+        @Override
+        public int getInputs() {
+            return RuleInput.INTERVAL.getMask() | RuleInput.SIMILAR_TRANSACTIONS.getMask();
+        }
+
+        @Override
+        public boolean isViolated(RuleContext context) {
+
+            this.checks++;
+            return context.getTransactionsOnInterval() > 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.challenge.authorizer.server;
+
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class AuthorizerServerTest {
+
+    private AuthorizerServer server;
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+
+        this.server = new AuthorizerServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.serverThread = new Thread(() -> {
+            try {
+
+                this.server.serve();
+            } catch (IOException e) {
+
+                throw new RuntimeException(e);
+            }
+        });
+        this.serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+
+        this.server.close();
+        this.serverThread.join(5000);
+        Assert.assertFalse(this.serverThread.isAlive());
+    }
+
+    private Socket connect() throws IOException {
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldReplyPipelinedEventsInOrderOnTheirConnection() throws IOException {
+
+        try (Socket socket = connect()) {
+
+            send(socket, "{\"account\": {\"active-card\": true, \"available-limit\": 100}}\n"
+                    + "{\"transaction\": {\"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}}\r\n"
+                    + "\n{\"transaction\": {\"merchant\": \"Habbib's\", \"amount\": 90, ");
+            send(socket, "\"time\": \"2019-02-13T10:00:01.000Z\"}}\n");
+
+            BufferedReader in = reader(socket);
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":100},\"violations\":[]}", in.readLine());
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[]}", in.readLine());
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[\"insufficient-limit\"]}", in.readLine());
+        }
+        Assert.assertEquals(3, EventStore.getInstance().getNextSequence());
+    }
+
+    @Test
+    public void shouldKeepTheStateBetweenConnections() throws IOException {
+
+        try (Socket first = connect(); Socket second = connect()) {
+
+            send(first, "{\"account\": {\"account-id\": 5, \"active-card\": true, \"available-limit\": 10}}\n");
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":10},\"violations\":[]}",
+                    reader(first).readLine());
+
+            send(second, "{\"transaction\": {\"account-id\": 5, \"merchant\": \"a\", \"amount\": 3, \"time\": \"2019-02-13T10:00:00.000Z\"}}\n");
+            Assert.assertEquals("{\"account\":{\"active-card\":true,\"available-limit\":7},\"violations\":[]}",
+                    reader(second).readLine());
+        }
+    }
+
+    @Test
+    public void shouldProcessTheLastLineAndCloseWhenTheClientEndsItsInput() throws IOException {
+
+        try (Socket socket = connect()) {
+
+            send(socket, "{\"transaction\": {\"merchant\": \"a\", \"amount\": 3, \"time\": \"2019-02-13T10:00:00.000Z\"}}");
+            socket.shutdownOutput();
+
+            BufferedReader in = reader(socket);
+            Assert.assertEquals("{\"account\":null,\"violations\":[\"account-not-initialized\"]}", in.readLine());
+            Assert.assertNull(in.readLine());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.challenge.authorizer.server;
+
+import com.challenge.authorizer.state.AccountDataStore;
+import com.challenge.authorizer.state.EventStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class HttpBatchServerTest {
+
+    private HttpBatchServer server;
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        EventStore.getInstance().emptyEventStore();
+
+        this.server = new HttpBatchServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.serverThread = new Thread(this.server::serve);
+        this.serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+
+        this.server.close();
+        this.serverThread.join(5000);
+        Assert.assertFalse(this.serverThread.isAlive());
+    }
+
+    private HttpURLConnection request(String method, String body) throws IOException {
+
+        URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), this.server.getPort(), HttpBatchServer.PATH);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+            body.write(chunk, 0, read);
+        }
+        return body.toString("UTF-8");
+    }
+
+    @Test
+    public void shouldAnswerTheOutputsOfTheBatchInOrder() throws IOException {
+
+        HttpURLConnection connection = request("POST", "[{\"account\": {\"active-card\": true, \"available-limit\": 100}},"
+                + "{\"transaction\": {\"merchant\": \"Burger King\", \"amount\": 20, \"time\": \"2019-02-13T10:00:00.000Z\"}},"
+                + "{\"transaction\": {\"merchant\": \"Burger King\", \"amount\": 1, \"time\": \"2019-02-30T10:00:00.000Z\"}},"
+                + "{\"transaction\": {\"merchant\": \"Habbib's\", \"amount\": 90, \"time\": \"2019-02-13T10:00:01.000Z\"}}]");
+
+        Assert.assertEquals(200, connection.getResponseCode());
+        Assert.assertEquals("application/json", connection.getContentType());
+        Assert.assertEquals("[{\"account\":{\"active-card\":true,\"available-limit\":100},\"violations\":[]},"
+                + "{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[]},"
+                + "null,"
+                + "{\"account\":{\"active-card\":true,\"available-limit\":80},\"violations\":[\"insufficient-limit\"]}]",
+                read(connection.getInputStream()));
+    }
+
+    @Test
+    public void shouldKeepTheStateBetweenRequests() throws IOException {
+
+        Assert.assertEquals(200, request("POST", "[{\"account\": {\"active-card\": true, \"available-limit\": 10}}]").getResponseCode());
+
+        HttpURLConnection connection = request("POST", "[{\"account\": {\"active-card\": true, \"available-limit\": 10}}]");
+        Assert.assertEquals("[{\"account\":{\"active-card\":true,\"available-limit\":10},\"violations\":[\"account-already-initialized\"]}]",
+                read(connection.getInputStream()));
+    }
+
+    @Test
+    public void shouldRejectBodiesThatAreNotArraysAndOtherMethods() throws IOException {
+
+        Assert.assertEquals(400, request("POST", "{\"account\": {\"active-card\": true, \"available-limit\": 10}}").getResponseCode());
+        Assert.assertEquals(405, request("GET", null).getResponseCode());
+        Assert.assertEquals(0, EventStore.getInstance().getNextSequence());
+    }
+}
@@ -0,0 +1,112 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class AccountDataStoreTest {
+
+    @Before
+    public void setUp() {
+
+        AccountDataStore.getInstance().resetState();
+    }
+
+    @Test
+    public void shouldKeepAccountsSeparatedByAccountId() {
+
+        AccountDataStore.getInstance().setAccount(1L, new Account(1L, true, Money.ONE));
+        AccountDataStore.getInstance().setAccount(2L, new Account(2L, false, Money.TEN));
+
+        Assert.assertEquals(Money.ONE, AccountDataStore.getInstance().getAccount(1L).getAvailableLimit());
+        Assert.assertEquals(Money.TEN, AccountDataStore.getInstance().getAccount(2L).getAvailableLimit());
+        Assert.assertNull(AccountDataStore.getInstance().getAccount());
+        Assert.assertEquals(2, AccountDataStore.getInstance().size());
+    }
+
+    @Test
+    public void shouldRemoveAccountWhenSettingNullAccount() {
+
+        AccountDataStore.getInstance().setAccount(1L, new Account(1L, true, Money.ONE));
+        AccountDataStore.getInstance().setAccount(1L, null);
+
+        Assert.assertNull(AccountDataStore.getInstance().getAccount(1L));
+    }
+
+    @Test
+    public void shouldReturnCopiesThatDoNotShareTransactionsAndSnapshotsWithoutCopying() {
+
+        Account account = new Account(1L, true, Money.ONE);
+        AccountDataStore.getInstance().setAccount(1L, account);
+
+        Assert.assertNotSame(account.getTransactions(), AccountDataStore.getInstance().getAccount(1L).getTransactions());
+        Assert.assertSame(account.getSnapshot(), AccountDataStore.getInstance().getSnapshot(1L));
+        Assert.assertNull(AccountDataStore.getInstance().getSnapshot());
+    }
+
+    @Test
+    public void shouldReturnTheSameLockForTheSameAccountId() {
+
+        Assert.assertSame(AccountDataStore.getInstance().lockFor(42L), AccountDataStore.getInstance().lockFor(42L));
+    }
+
+    @Test
+    public void shouldReadSnapshotsAndCopiesOfAccountsWrittenBackOffHeap() throws IOException {
+
+        AccountDataStore store = new AccountDataStore(OffHeapAccountTable.direct(16));
+        store.setAccount(1L, new Account(1L, true, Money.TEN));
+
+        synchronized (store.lockFor(1L)) {
+
+            Account account = store.getAccountForUpdate(1L);
+            account.reduceAvailableLimit(Money.ONE);
+            account.setLastSequence(3);
+            store.writeBack(1L, account);
+        }
+
+        Assert.assertEquals(Money.valueOf(9), store.getAccount(1L).getAvailableLimit());
+        Assert.assertEquals(3, store.getSnapshot(1L).getLastSequence());
+        Assert.assertNull(store.getSnapshot(2L));
+        Assert.assertEquals(-1, store.getPersistedAppliedSequence());
+    }
+
+    @Test
+    public void shouldLeaveDurableTablesAsTheyAreOnceTransient() throws IOException {
+
+        Path directory = Files.createTempDirectory("account-data-store-test");
+        Path file = directory.resolve("accounts.dat");
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            AccountDataStore store = new AccountDataStore(table);
+            store.setAccount(1L, new Account(1L, true, Money.TEN));
+            store.setAppliedSequence(4);
+            Assert.assertTrue(store.isDurable());
+            byte[] accounts = Files.readAllBytes(file);
+
+            store.useTransientTable();
+            Assert.assertFalse(store.isDurable());
+            Assert.assertEquals(-1, store.getAppliedSequence());
+            Assert.assertNull(store.getAccount(1L));
+
+            store.resetState();
+            store.setAccount(2L, new Account(2L, true, Money.ONE));
+            store.setAppliedSequence(9);
+            Assert.assertTrue(Arrays.equals(accounts, Files.readAllBytes(file)));
+            Assert.assertEquals(4, table.getPersistedAppliedSequence());
+        }
+        finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.challenge.authorizer.state;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+public class CompressedSegmentTest {
+
+    private static final int EVENTS = 20000;
+
+    private Path directory;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+
+        this.directory = Files.createTempDirectory("compressed-segment-test");
+        this.executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        this.executor.shutdownNow();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /* Raw segment of the given events, with the trailing zero header of a preallocated segment */
+    private Path writeRaw(long firstSequence, int events) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(events * 32 + 4);
+        for (int i = 0; i < events; i++) {
+
+            byte[] event = ("event-" + (firstSequence + i)).getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(event.length + 1).put(event);
+        }
+        Path raw = this.directory.resolve("raw.log");
+        Files.write(raw, buffer.array());
+        return raw;
+    }
+
+    @Test
+    public void shouldReadEveryRecordBackInOrder() throws IOException {
+
+        Path target = this.directory.resolve("segment.zlog");
+        CompressedSegment.compress(writeRaw(100, EVENTS), 100, target);
+
+        try (CompressedSegment.Reader reader = new CompressedSegment.Reader(target, 100, this.executor)) {
+
+            Assert.assertEquals(100, reader.getStartSequence());
+            EventRecord record = new EventRecord();
+            for (long sequence = 100; sequence < 100 + EVENTS; sequence++) {
+
+                Assert.assertTrue(reader.next(record, sequence));
+                Assert.assertEquals("event-" + sequence, record.asString());
+            }
+            Assert.assertFalse(reader.next(record, 100 + EVENTS));
+            Assert.assertFalse(reader.next(record, 100 + EVENTS));
+        }
+        Assert.assertTrue(Files.size(target) < Files.size(this.directory.resolve("raw.log")));
+    }
+
+    @Test
+    public void shouldStartReadingAtTheBlockHoldingTheSequence() throws IOException {
+
+        Path target = this.directory.resolve("segment.zlog");
+        CompressedSegment.compress(writeRaw(0, EVENTS), 0, target);
+
+        try (CompressedSegment.Reader reader = new CompressedSegment.Reader(target, EVENTS - 1, this.executor)) {
+
+            long sequence = reader.getStartSequence();
+            Assert.assertTrue(sequence > 0 && sequence <= EVENTS - 1);
+
+            EventRecord record = new EventRecord();
+            Assert.assertTrue(reader.next(record, sequence));
+            Assert.assertEquals("event-" + sequence, record.asString());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectFilesWithoutAValidFooter() throws IOException {
+
+        Path target = this.directory.resolve("segment.zlog");
+        Files.write(target, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+
+        new CompressedSegment.Reader(target, 0, this.executor).close();
+    }
+}
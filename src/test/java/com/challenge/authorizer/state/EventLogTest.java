@@ -0,0 +1,380 @@
+package com.challenge.authorizer.state;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class EventLogTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+
+        this.directory = Files.createTempDirectory("event-log-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static void append(EventLog log, String event) throws IOException {
+
+        byte[] bytes = event.getBytes(StandardCharsets.UTF_8);
+        log.append(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void shouldReadEventsInTheOrderTheyWereAppended() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 1024)) {
+
+            append(log, "first");
+            append(log, "");
+            append(log, "third");
+
+            EventRecord record = new EventRecord();
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("first", record.asString());
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("", record.asString());
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("third", record.asString());
+            Assert.assertEquals(2, record.getSequence());
+            Assert.assertFalse(log.readNext(record));
+        }
+    }
+
+    @Test
+    public void shouldKeepReadingEventsAppendedAfterTheCursorReachedTheEnd() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 1024)) {
+
+            EventRecord record = new EventRecord();
+            Assert.assertFalse(log.readNext(record));
+
+            append(log, "late");
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("late", record.asString());
+        }
+    }
+
+    @Test
+    public void shouldRollSegmentsAndReadAcrossThem() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            for (int i = 0; i < 100; i++) {
+                append(log, "event-" + i);
+            }
+            Assert.assertTrue(log.getSegmentCount() > 1);
+
+            EventRecord record = new EventRecord();
+            for (int i = 0; i < 100; i++) {
+
+                Assert.assertTrue(log.readNext(record));
+                Assert.assertEquals("event-" + i, record.asString());
+            }
+            Assert.assertFalse(log.readNext(record));
+        }
+    }
+
+    @Test
+    public void shouldKeepEventsAfterReopeningTheLog() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            for (int i = 0; i < 20; i++) {
+                append(log, "event-" + i);
+            }
+        }
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            Assert.assertEquals(20, log.getNextSequence());
+            append(log, "event-20");
+
+            EventRecord record = new EventRecord();
+            int read = 0;
+            while (log.readNext(record)) {
+                Assert.assertEquals("event-" + read++, record.asString());
+            }
+            Assert.assertEquals(21, read);
+        }
+    }
+
+    @Test
+    public void shouldReadFromTheStartAgainAfterRewind() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 1024)) {
+
+            append(log, "first");
+            EventRecord record = new EventRecord();
+            log.readNext(record);
+
+            log.rewind();
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("first", record.asString());
+        }
+    }
+
+    @Test
+    public void shouldStartEmptyAfterClear() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            for (int i = 0; i < 20; i++) {
+                append(log, "event-" + i);
+            }
+            log.clear();
+
+            Assert.assertEquals(1, log.getSegmentCount());
+            Assert.assertEquals(0, log.getNextSequence());
+            Assert.assertFalse(log.readNext(new EventRecord()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectEventsLargerThanASegment() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 16)) {
+            append(log, "an event that is too large for the segment");
+        }
+    }
+
+    @Test
+    public void shouldSeekToTheGivenSequenceAcrossSegments() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 32)) {
+
+            for (int i = 0; i < 10; i++) {
+                append(log, "event-" + i);
+            }
+
+            EventRecord record = new EventRecord();
+            log.seek(7);
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("event-7", record.asString());
+            Assert.assertEquals(7, record.getSequence());
+        }
+    }
+
+    @Test
+    public void shouldDeleteOnlySealedSegmentsBeforeTheSequence() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 32)) {
+
+            for (int i = 0; i < 10; i++) {
+                append(log, "event-" + i);
+            }
+            int segments = log.getSegmentCount();
+
+            log.deleteSegmentsBefore(5);
+
+            Assert.assertTrue(log.getSegmentCount() < segments);
+            Assert.assertTrue(log.getFirstSequence() <= 5);
+
+            EventRecord record = new EventRecord();
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals(log.getFirstSequence(), record.getSequence());
+
+            log.seek(5);
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("event-5", record.asString());
+        }
+    }
+
+    @Test
+    public void shouldReadAcrossCompressedSegments() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 64, true)) {
+
+            for (int i = 0; i < 100; i++) {
+                append(log, "event-" + i);
+            }
+            log.awaitCompression();
+            Assert.assertEquals(log.getSegmentCount() - 1, log.getCompressedSegmentCount());
+
+            EventRecord record = new EventRecord();
+            for (int i = 0; i < 100; i++) {
+
+                Assert.assertTrue(log.readNext(record));
+                Assert.assertEquals("event-" + i, record.asString());
+                Assert.assertEquals(i, record.getSequence());
+            }
+            Assert.assertFalse(log.readNext(record));
+        }
+    }
+
+    @Test
+    public void shouldSeekInsideCompressedSegmentsOfManyBlocks() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 256 * 1024, true)) {
+
+            for (int i = 0; i < 60000; i++) {
+                append(log, "event-" + i);
+            }
+            log.awaitCompression();
+            Assert.assertTrue(log.getCompressedSegmentCount() > 0);
+
+            EventRecord record = new EventRecord();
+            for (long sequence : new long[]{0, 30000, 54321, 59999}) {
+
+                log.seek(sequence);
+                Assert.assertTrue(log.readNext(record));
+                Assert.assertEquals("event-" + sequence, record.asString());
+                Assert.assertEquals(sequence, record.getSequence());
+            }
+        }
+    }
+
+    @Test
+    public void shouldReopenCompressedSegmentsAndCompressSealedRawOnes() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            for (int i = 0; i < 20; i++) {
+                append(log, "event-" + i);
+            }
+        }
+        Files.write(this.directory.resolve(String.format("%020d.zlog.tmp", 0)), new byte[]{1, 2, 3});
+
+        try (EventLog log = new EventLog(this.directory, 64, true)) {
+
+            log.awaitCompression();
+            Assert.assertEquals(log.getSegmentCount() - 1, log.getCompressedSegmentCount());
+            Assert.assertFalse(Files.exists(this.directory.resolve(String.format("%020d.zlog.tmp", 0))));
+            Assert.assertFalse(Files.exists(this.directory.resolve(String.format("%020d.log", 0))));
+        }
+
+        try (EventLog log = new EventLog(this.directory, 64)) {
+
+            Assert.assertEquals(20, log.getNextSequence());
+            EventRecord record = new EventRecord();
+            int read = 0;
+            while (log.readNext(record)) {
+                Assert.assertEquals("event-" + read++, record.asString());
+            }
+            Assert.assertEquals(20, read);
+        }
+    }
+
+    @Test
+    public void shouldDeleteCompressedSegmentsBeforeTheSequence() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 32, true)) {
+
+            for (int i = 0; i < 10; i++) {
+                append(log, "event-" + i);
+            }
+            log.awaitCompression();
+
+            log.deleteSegmentsBefore(5);
+            Assert.assertTrue(log.getFirstSequence() <= 5);
+            Assert.assertFalse(Files.exists(this.directory.resolve(String.format("%020d.zlog", 0))));
+
+            EventRecord record = new EventRecord();
+            log.seek(5);
+            Assert.assertTrue(log.readNext(record));
+            Assert.assertEquals("event-5", record.asString());
+        }
+    }
+
+    private static final EventLog.TimeExtractor NUMERIC_TIME =
+            (event, offset, length) -> Long.parseLong(new String(event, offset, length, StandardCharsets.UTF_8));
+
+    /* Times mostly increasing, with some events arriving late */
+    private static long[] appendTimes(EventLog log, int events) throws IOException {
+
+        Random random = new Random(42);
+        long[] times = new long[events];
+        for (int i = 0; i < events; i++) {
+
+            times[i] = i * 10L - (random.nextInt(10) == 0 ? random.nextInt(5000) : 0);
+            append(log, Long.toString(times[i]));
+        }
+        return times;
+    }
+
+    private static long firstAtOrAfter(long[] times, long time) {
+
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] >= time) {
+                return i;
+            }
+        }
+        return times.length;
+    }
+
+    @Test
+    public void shouldSeekToTheFirstEventAtOrAfterATime() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 16 * 1024, false, NUMERIC_TIME)) {
+
+            long[] times = appendTimes(log, 10000);
+
+            EventRecord record = new EventRecord();
+            for (long time : new long[]{Long.MIN_VALUE, 0, 12345, 50000, 99990, 200000}) {
+
+                long expected = firstAtOrAfter(times, time);
+                Assert.assertEquals(expected, log.seekToTime(time));
+                Assert.assertEquals(expected, log.getReadSequence());
+                Assert.assertEquals(expected < times.length, log.readNext(record));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRebuildTheIndexWhenReopeningWithoutIt() throws IOException {
+
+        long[] times;
+        try (EventLog log = new EventLog(this.directory, 16 * 1024, true, NUMERIC_TIME)) {
+            times = appendTimes(log, 10000);
+        }
+        Files.delete(this.directory.resolve("events.idx"));
+
+        try (EventLog log = new EventLog(this.directory, 16 * 1024, true, NUMERIC_TIME)) {
+
+            Assert.assertEquals(firstAtOrAfter(times, 77777), log.seekToTime(77777));
+            append(log, "100000");
+        }
+
+        try (EventLog log = new EventLog(this.directory, 16 * 1024, true, NUMERIC_TIME)) {
+
+            Assert.assertEquals(10000, log.seekToTime(99995));
+            Assert.assertEquals(firstAtOrAfter(times, 31415), log.seekToTime(31415));
+        }
+    }
+
+    @Test
+    public void shouldSeekThroughTheIndexInsideLargeSegments() throws IOException {
+
+        try (EventLog log = new EventLog(this.directory, 1024 * 1024)) {
+
+            for (int i = 0; i < 5000; i++) {
+                append(log, "event-" + i);
+            }
+
+            EventRecord record = new EventRecord();
+            for (long sequence : new long[]{1023, 1024, 1025, 4999}) {
+
+                log.seek(sequence);
+                Assert.assertTrue(log.readNext(record));
+                Assert.assertEquals("event-" + sequence, record.asString());
+            }
+        }
+    }
+}
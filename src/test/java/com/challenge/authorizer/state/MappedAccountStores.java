@@ -0,0 +1,28 @@
+package com.challenge.authorizer.state;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/* Puts the AccountDataStore instance on a mapped table, for tests of the packages using it */
+public final class MappedAccountStores {
+
+    private static OffHeapAccountTable table;
+
+    private MappedAccountStores() {}
+
+    public static void install(Path file) throws IOException {
+
+        table = OffHeapAccountTable.mapped(file, 16);
+        AccountDataStore.getInstance().replaceTable(table);
+    }
+
+    public static void uninstall() throws IOException {
+
+        AccountDataStore.getInstance().replaceTable(new HeapAccountTable());
+        if (table != null) {
+
+            table.close();
+            table = null;
+        }
+    }
+}
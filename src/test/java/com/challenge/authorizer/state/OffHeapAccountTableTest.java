@@ -0,0 +1,208 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.AccountSnapshot;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.domain.Transaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class OffHeapAccountTableTest {
+
+    private static final Instant TIME = Instant.parse("2019-02-13T10:00:00.000Z");
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+
+        this.directory = Files.createTempDirectory("account-table-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldStoreAccountsAndTheirTransactionWindowsOffHeap() throws IOException {
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.direct(16)) {
+
+            Account account = new Account(42L, true, Money.parse("80.50"));
+            account.setLastSequence(6);
+            account.getTransactions().add(new Transaction("Burger King", Money.parse("20"), TIME));
+            account.getTransactions().add(new Transaction(null, null, TIME.plusNanos(123456789)));
+            table.put(42L, account);
+            table.put(7L, new Account(7L, null, null));
+
+            Account stored = table.getForUpdate(42L);
+            Assert.assertEquals(account, stored);
+            Assert.assertEquals(account.getTransactions(), stored.getTransactions());
+            Assert.assertEquals("Burger King", stored.getTransactions().first().getMerchant());
+            Assert.assertNull(stored.getTransactions().last().getAmount());
+            Assert.assertEquals(6, stored.getLastSequence());
+            Assert.assertEquals(new AccountSnapshot(42L, true, Money.parse("80.50"), 6), table.snapshot(42L));
+
+            Account empty = table.copy(7L);
+            Assert.assertNull(empty.getActiveCard());
+            Assert.assertNull(empty.getAvailableLimit());
+            Assert.assertNull(table.getForUpdate(8L));
+            Assert.assertEquals(2, table.size());
+
+            table.remove(42L);
+            Assert.assertNull(table.getForUpdate(42L));
+            Assert.assertNotNull(table.getForUpdate(7L));
+            Assert.assertEquals(1, table.size());
+        }
+    }
+
+    @Test
+    public void shouldKeepChangesWrittenBack() throws IOException {
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.direct(16)) {
+
+            table.put(1L, new Account(1L, true, Money.valueOf(100)));
+
+            Account account = table.getForUpdate(1L);
+            account.reduceAvailableLimit(Money.valueOf(30));
+            account.getTransactions().add(new Transaction("Habbib's", Money.valueOf(30), TIME));
+            Assert.assertEquals(Money.valueOf(100), table.getForUpdate(1L).getAvailableLimit());
+
+            table.writeBack(1L, account);
+            Assert.assertEquals(Money.valueOf(70), table.getForUpdate(1L).getAvailableLimit());
+            Assert.assertEquals(1, table.getForUpdate(1L).getTransactions().size());
+        }
+    }
+
+    @Test
+    public void shouldKeepWindowsLargerThanTheRecordRing() throws IOException {
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.direct(16)) {
+
+            Account account = new Account(1L, true, Money.valueOf(100));
+            for (int i = 0; i < OffHeapAccountTable.WINDOW_SLOTS + 3; i++) {
+                account.getTransactions().add(new Transaction("Merchant " + i, Money.ONE, TIME.plusSeconds(i)));
+            }
+            table.put(1L, account);
+
+            Assert.assertEquals(account.getTransactions(), table.getForUpdate(1L).getTransactions());
+
+            Account fewer = new Account(1L, true, Money.valueOf(100));
+            fewer.getTransactions().add(new Transaction("Merchant", Money.ONE, TIME));
+            table.writeBack(1L, fewer);
+            Assert.assertEquals(1, table.getForUpdate(1L).getTransactions().size());
+        }
+    }
+
+    @Test
+    public void shouldGrowAndSkipRemovedAccounts() throws IOException {
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.direct(16)) {
+
+            for (long id = 0; id < 5000; id++) {
+                table.put(id, new Account(id, true, Money.valueOf(id)));
+            }
+            for (long id = 0; id < 5000; id += 2) {
+                table.remove(id);
+            }
+
+            Assert.assertEquals(2500, table.size());
+            for (long id = 0; id < 5000; id++) {
+
+                Account account = table.getForUpdate(id);
+                if (id % 2 == 0) {
+                    Assert.assertNull(account);
+                }
+                else {
+                    Assert.assertEquals(Money.valueOf(id), account.getAvailableLimit());
+                }
+            }
+
+            AtomicInteger visited = new AtomicInteger();
+            table.forEachId(id -> {
+
+                Assert.assertEquals(1, id % 2);
+                visited.incrementAndGet();
+            });
+            Assert.assertEquals(2500, visited.get());
+        }
+    }
+
+    @Test
+    public void shouldReopenMappedAccountsWithTheirMerchantsAndAppliedSequence() throws IOException {
+
+        Path file = this.directory.resolve("accounts.dat");
+        Account account = new Account(42L, true, Money.parse("80.50"));
+        account.getTransactions().add(new Transaction("Padaria S\u00e3o Jo\u00e3o", Money.parse("19.50"), TIME));
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            Assert.assertEquals(-1, table.getPersistedAppliedSequence());
+            for (long id = 0; id < 100; id++) {
+                table.put(id, new Account(id, false, Money.valueOf(id)));
+            }
+            table.put(42L, account);
+            table.persistAppliedSequence(41);
+        }
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            Assert.assertEquals(41, table.getPersistedAppliedSequence());
+            Assert.assertEquals(100, table.size());
+            Account reopened = table.getForUpdate(42L);
+            Assert.assertEquals(account, reopened);
+            Assert.assertEquals(account.getTransactions(), reopened.getTransactions());
+            Assert.assertEquals("Padaria S\u00e3o Jo\u00e3o", reopened.getTransactions().first().getMerchant());
+            Assert.assertEquals(Money.valueOf(99), table.getForUpdate(99L).getAvailableLimit());
+
+            table.clear();
+            Assert.assertEquals(-1, table.getPersistedAppliedSequence());
+        }
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            Assert.assertEquals(0, table.size());
+            Assert.assertNull(table.getForUpdate(42L));
+        }
+    }
+
+    @Test
+    public void shouldOnlyReplaceTheMappedFileWithCompleteTables() throws IOException {
+
+        Path file = this.directory.resolve("accounts.dat");
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            table.persistAppliedSequence(7);
+            for (long id = 0; id < 1000; id++) {
+                table.put(id, new Account(id, true, Money.valueOf(id)));
+            }
+            Assert.assertFalse(Files.exists(this.directory.resolve("accounts.dat.tmp")));
+        }
+
+        /* Left by a crash while growing */
+        Files.write(this.directory.resolve("accounts.dat.tmp"), new byte[4096]);
+
+        try (OffHeapAccountTable table = OffHeapAccountTable.mapped(file, 16)) {
+
+            Assert.assertEquals(7, table.getPersistedAppliedSequence());
+            Assert.assertEquals(1000, table.size());
+            for (long id = 0; id < 1000; id++) {
+                Assert.assertEquals(Money.valueOf(id), table.getForUpdate(id).getAvailableLimit());
+            }
+        }
+    }
+}
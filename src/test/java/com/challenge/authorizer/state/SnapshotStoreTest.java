@@ -0,0 +1,155 @@
+package com.challenge.authorizer.state;
+
+import com.challenge.authorizer.domain.Account;
+import com.challenge.authorizer.domain.Money;
+import com.challenge.authorizer.domain.Transaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class SnapshotStoreTest {
+
+    private Path directory;
+    private SnapshotStore snapshots;
+
+    @Before
+    public void setUp() throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        this.directory = Files.createTempDirectory("snapshot-store-test");
+        this.snapshots = new SnapshotStore(this.directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        AccountDataStore.getInstance().resetState();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldRestoreAccountsAndTheirTransactionWindows() throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        Account account = new Account(42L, true, Money.parse("80.50"));
+        account.setLastSequence(6);
+        account.getTransactions().add(new Transaction("Burger King", Money.parse("20"), Instant.parse("2019-02-13T10:00:00.000Z")));
+        account.getTransactions().add(new Transaction(null, Money.parse("0.5"), Instant.parse("2019-02-13T10:00:30.123456789Z")));
+        store.setAccount(42L, account);
+        store.setAccount(7L, new Account(7L, null, null));
+        store.setAppliedSequence(6);
+
+        Assert.assertEquals(7, this.snapshots.takeSnapshot(store));
+
+        store.resetState();
+        Assert.assertEquals(7, this.snapshots.restoreLatest(store));
+
+        Account restored = store.getAccount(42L);
+        Assert.assertEquals(account, restored);
+        Assert.assertEquals(Money.parse("80.50"), restored.getAvailableLimit());
+        Assert.assertEquals(6, restored.getLastSequence());
+        Assert.assertEquals(account.getTransactions(), restored.getTransactions());
+        Assert.assertNull(store.getAccount(7L).getActiveCard());
+        Assert.assertEquals(6, store.getAppliedSequence());
+    }
+
+    @Test
+    public void shouldRestoreTheLatestSnapshotAndKeepOnlyTheLastOnes() throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        for (int i = 0; i < 4; i++) {
+
+            store.setAccount(i, new Account(i, true, Money.TEN));
+            store.setAppliedSequence(i);
+            this.snapshots.takeSnapshot(store);
+        }
+
+        store.resetState();
+        Assert.assertEquals(4, this.snapshots.restoreLatest(store));
+        Assert.assertEquals(4, store.size());
+        try (Stream<Path> files = Files.list(this.directory)) {
+            Assert.assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void shouldReturnZeroWhenThereIsNoSnapshot() throws IOException {
+
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+        this.snapshots.clear();
+
+        Assert.assertEquals(0, this.snapshots.restoreLatest(AccountDataStore.getInstance()));
+    }
+
+    @Test
+    public void shouldRestoreTheLatestSnapshotBeforeTheSequence() throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        store.setAccount(1L, new Account(1L, true, Money.parse("10")));
+        store.setAppliedSequence(4);
+        this.snapshots.takeSnapshot(store);
+        store.setAccount(1L, new Account(1L, true, Money.parse("20")));
+        store.setAppliedSequence(9);
+        this.snapshots.takeSnapshot(store);
+
+        store.resetState();
+        Assert.assertEquals(5, this.snapshots.restoreBefore(store, 7));
+        Assert.assertEquals(Money.parse("10"), store.getAccount(1L).getAvailableLimit());
+
+        store.resetState();
+        Assert.assertEquals(10, this.snapshots.restoreBefore(store, 10));
+        Assert.assertEquals(0, this.snapshots.restoreBefore(store, 4));
+    }
+
+    @Test
+    public void shouldFallBackToThePreviousSnapshotWhenTheLatestIsUnreadable() throws IOException {
+
+        AccountDataStore store = AccountDataStore.getInstance();
+        store.setAccount(1L, new Account(1L, true, Money.parse("10")));
+        store.setAppliedSequence(4);
+        this.snapshots.takeSnapshot(store);
+        store.setAccount(1L, new Account(1L, true, Money.parse("20")));
+        store.setAccount(2L, new Account(2L, true, Money.parse("30")));
+        store.setAppliedSequence(9);
+        this.snapshots.takeSnapshot(store);
+        Assert.assertEquals(5, this.snapshots.getOldestReplayFrom());
+
+        /* Cut short in the middle of the second account */
+        try (Stream<Path> files = Files.list(this.directory)) {
+
+            Path latest = files.max(Comparator.naturalOrder()).get();
+            try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 10);
+            }
+        }
+
+        store.resetState();
+        Assert.assertEquals(5, this.snapshots.restoreLatest(store));
+        Assert.assertEquals(Money.parse("10"), store.getAccount(1L).getAvailableLimit());
+        Assert.assertNull(store.getAccount(2L));
+        Assert.assertEquals(4, store.getAppliedSequence());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowIOExceptionWhenNoSnapshotIsReadable() throws IOException {
+
+        this.snapshots.takeSnapshot(AccountDataStore.getInstance());
+        try (Stream<Path> files = Files.list(this.directory)) {
+            Files.write(files.findFirst().get(), new byte[3]);
+        }
+
+        this.snapshots.restoreLatest(AccountDataStore.getInstance());
+    }
+}
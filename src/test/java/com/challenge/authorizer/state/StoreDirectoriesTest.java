@@ -0,0 +1,79 @@
+package com.challenge.authorizer.state;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class StoreDirectoriesTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+
+        this.directory = Files.createTempDirectory("store-directories-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldKeepUnconfiguredStoresOnADirectoryOfTheProcess() {
+
+        Path events = StoreDirectories.resolve("authorizer.test.unconfigured", "events");
+        Path snapshots = StoreDirectories.resolve("authorizer.test.unconfigured", "snapshots");
+
+        Assert.assertEquals(events.getParent(), snapshots.getParent());
+        Assert.assertTrue(Files.isDirectory(events.getParent()));
+        Assert.assertFalse(StoreDirectories.isConfigured("authorizer.test.unconfigured"));
+    }
+
+    @Test
+    public void shouldUseConfiguredLocations() {
+
+        System.setProperty("authorizer.test.configured", this.directory.toString());
+        try {
+
+            Assert.assertEquals(this.directory, StoreDirectories.resolve("authorizer.test.configured", "events"));
+            Assert.assertTrue(StoreDirectories.isConfigured("authorizer.test.configured"));
+        }
+        finally {
+            System.clearProperty("authorizer.test.configured");
+        }
+    }
+
+    @Test
+    public void shouldLockTheSameDirectoryAgainFromTheSameProcess() throws IOException {
+
+        StoreDirectories.lockDirectory(this.directory.resolve("events"));
+        StoreDirectories.lockDirectory(this.directory.resolve("events"));
+
+        Assert.assertTrue(Files.exists(this.directory.resolve("events").resolve(".lock")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWhenTheDirectoryIsLockedByAnotherOwner() throws IOException {
+
+        Path events = Files.createDirectories(this.directory.resolve("events"));
+        try (FileChannel channel = FileChannel.open(events.resolve(".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock ignored = channel.lock()) {
+
+            StoreDirectories.lockDirectory(events);
+        }
+    }
+}